@@ -1,9 +1,13 @@
 package YOUR_PACKAGE_NAME;
 
 import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
+import android.os.Build;
 import android.os.Bundle;
-import android.util.Log;
+import android.os.SystemClock;
+import android.view.ViewGroup;
+import android.view.ViewParent;
 
 import com.applovin.adview.AppLovinAdView;
 import com.applovin.sdk.AppLovinAd;
@@ -13,12 +17,28 @@ import com.applovin.sdk.AppLovinAdLoadListener;
 import com.applovin.sdk.AppLovinAdSize;
 import com.applovin.sdk.AppLovinErrorCodes;
 import com.applovin.sdk.AppLovinSdk;
+import com.applovin.mediation.AppLovinAdapterLogger;
+import com.applovin.mediation.AppLovinCircuitBreaker;
+import com.applovin.mediation.AppLovinLatencyStats;
+import com.applovin.mediation.AppLovinLoadDeadline;
+import com.applovin.mediation.AppLovinMainThreadDispatcher;
+import com.applovin.mediation.AppLovinPrefetchScheduler;
+import com.applovin.mediation.AppLovinSdkRegistry;
 import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.AdSize;
 import com.google.android.gms.ads.mediation.MediationAdRequest;
 import com.google.android.gms.ads.mediation.customevent.CustomEventBanner;
 import com.google.android.gms.ads.mediation.customevent.CustomEventBannerListener;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
 import static android.util.Log.DEBUG;
 import static android.util.Log.ERROR;
 
@@ -31,13 +51,23 @@ import static android.util.Log.ERROR;
 public class AppLovinCustomEventBanner
         implements CustomEventBanner
 {
-    private static final boolean LOGGING_ENABLED = true;
-    private static final String  DEFAULT_ZONE    = "";
+    private static final String TAG          = "AppLovinBanner";
+    private static final String DEFAULT_ZONE = "";
 
     private static final int BANNER_STANDARD_HEIGHT         = 50;
     private static final int BANNER_HEIGHT_OFFSET_TOLERANCE = 10;
 
-    private AppLovinAdView adView;
+    // Released `AppLovinAdView`s per size, reused by later requests instead of allocating a new WebView-backed view on every refresh
+    private static final Map<AppLovinAdSize, List<PooledAdView>> POOLED_AD_VIEWS              = new HashMap<AppLovinAdSize, List<PooledAdView>>(); // Guarded by itself
+    private static final int                                     MAX_POOLED_AD_VIEWS_PER_SIZE = 2;
+    private static       boolean                                 lifecycleCallbacksRegistered; // Guarded by POOLED_AD_VIEWS
+
+    // A map of "Zone/Size" -> the next banner ad, fetched while the current one is displayed when prefetching is enabled
+    private static final ConcurrentMap<String, BannerPrefetch> BANNER_PREFETCHES       = new ConcurrentHashMap<String, BannerPrefetch>();
+    private static final long                                  PREFETCHED_AD_TTL_MILLIS = TimeUnit.MINUTES.toMillis( 30 );
+
+    private PooledAdView pooledAdView;
+    private boolean      destroyed;
 
     //
     // AdMob Custom Event Methods
@@ -46,6 +76,7 @@ public class AppLovinCustomEventBanner
     @Override
     public void requestBannerAd(final Context context, final CustomEventBannerListener customEventBannerListener, final String serverParameter, final AdSize adSize, final MediationAdRequest mediationAdRequest, final Bundle customEventExtras)
     {
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_LOAD_REQUESTED, 0 );
         // SDK versions BELOW 7.1.0 require a instance of an Activity to be passed in as the context
         if ( AppLovinSdk.VERSION_CODE < 710 && !( context instanceof Activity ) )
         {
@@ -55,69 +86,56 @@ public class AppLovinCustomEventBanner
             return;
         }
 
-        log( DEBUG, "Requesting AppLovin banner of size: " + adSize );
+        log( DEBUG, "Requesting AppLovin banner of size: {}", adSize );
 
         final AppLovinAdSize appLovinAdSize = appLovinAdSizeFromAdMobAdSize( adSize );
         if ( appLovinAdSize != null )
         {
-            final AppLovinSdk sdk = AppLovinSdk.getInstance( context );
-            sdk.setPluginVersion( "AdMob-2.2.1" );
-
-            // Zones support is available on AppLovin SDK 7.5.0 and higher
-            final String zoneId;
-            if ( AppLovinSdk.VERSION_CODE >= 750 && customEventExtras != null && customEventExtras.containsKey( "zone_id" ) )
-            {
-                zoneId = customEventExtras.getString( "zone_id" );
-            }
-            else
-            {
-                zoneId = DEFAULT_ZONE;
-            }
-
-            adView = new AppLovinAdView( appLovinAdSize, zoneId, context );
-            adView.setAdLoadListener( new AppLovinAdLoadListener()
+            // Requests made while the SDK is still warming up continue once it is ready
+            AppLovinSdkRegistry.whenReady( null, context, new AppLovinSdkRegistry.SdkReadyListener()
             {
                 @Override
-                public void adReceived(final AppLovinAd ad)
+                public void onSdkReady(final AppLovinSdk sdk)
                 {
-                    log( DEBUG, "Successfully loaded banner ad" );
-                    customEventBannerListener.onAdLoaded( adView );
-                }
+                    if ( destroyed ) return;
 
-                @Override
-                public void failedToReceiveAd(final int errorCode)
-                {
-                    log( ERROR, "Failed to load banner ad with code: " + errorCode );
-                    customEventBannerListener.onAdFailedToLoad( toAdMobErrorCode( errorCode ) );
-                }
-            } );
-            adView.setAdDisplayListener( new AppLovinAdDisplayListener()
-            {
-                @Override
-                public void adDisplayed(final AppLovinAd ad)
-                {
-                    log( DEBUG, "Banner displayed" );
-                }
+                    // Zones support is available on AppLovin SDK 7.5.0 and higher
+                    final String zoneId;
+                    if ( AppLovinSdk.VERSION_CODE >= 750 && customEventExtras != null && customEventExtras.containsKey( "zone_id" ) )
+                    {
+                        zoneId = customEventExtras.getString( "zone_id" );
+                    }
+                    else
+                    {
+                        zoneId = DEFAULT_ZONE;
+                    }
 
-                @Override
-                public void adHidden(final AppLovinAd ad)
-                {
-                    log( DEBUG, "Banner dismissed" );
+                    // Return the view from a previous request before taking one for this request
+                    if ( pooledAdView != null ) releaseAdView( pooledAdView );
+
+                    // Prefetching fetches the next ad in the background while this one is displayed, so the next refresh renders it right away
+                    final boolean prefetchEnabled = customEventExtras != null && customEventExtras.getBoolean( "prefetch", false );
+                    final BannerPrefetch bannerPrefetch = getBannerPrefetch( sdk, zoneId, appLovinAdSize );
+
+                    // How long a load for the zone may take before failing back to the waterfall
+                    if ( customEventExtras != null && customEventExtras.containsKey( "load_deadline_millis" ) )
+                    {
+                        AppLovinLoadDeadline.setDeadline( AppLovinLatencyStats.FORMAT_BANNER, zoneId, customEventExtras.getLong( "load_deadline_millis", 0 ) );
+                    }
+
+                    pooledAdView = acquireAdView( appLovinAdSize, zoneId, context );
+                    pooledAdView.load( sdk, bannerPrefetch, prefetchEnabled, customEventBannerListener );
                 }
-            } );
-            adView.setAdClickListener( new AppLovinAdClickListener()
-            {
+
                 @Override
-                public void adClicked(final AppLovinAd ad)
+                public void onSdkFailed()
                 {
-                    log( DEBUG, "Banner clicked" );
+                    log( ERROR, "Unable to request AppLovin banner. SDK failed to initialize." );
+                    AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.UNSPECIFIED_ERROR );
 
-                    customEventBannerListener.onAdOpened();
-                    customEventBannerListener.onAdLeftApplication();
+                    if ( !destroyed ) customEventBannerListener.onAdFailedToLoad( AdRequest.ERROR_CODE_INTERNAL_ERROR );
                 }
             } );
-
-            adView.loadNextAd();
         }
         else
         {
@@ -129,19 +147,251 @@ public class AppLovinCustomEventBanner
     @Override
     public void onDestroy()
     {
-        if ( adView != null ) adView.destroy();
+        destroyed = true;
+
+        if ( pooledAdView != null )
+        {
+            releaseAdView( pooledAdView );
+            pooledAdView = null;
+        }
     }
 
     @Override
     public void onPause()
     {
-        if ( adView != null ) adView.pause();
+        if ( pooledAdView != null ) pooledAdView.adView.pause();
     }
 
     @Override
     public void onResume()
     {
-        if ( adView != null ) adView.resume();
+        if ( pooledAdView != null ) pooledAdView.adView.resume();
+    }
+
+    /**
+     * Destroys all pooled banner views. Views are destroyed along with their activity anyway; call this to release all of them right away.
+     */
+    public static void destroyPooledAdViews()
+    {
+        synchronized ( POOLED_AD_VIEWS )
+        {
+            for ( final List<PooledAdView> pooledAdViews : POOLED_AD_VIEWS.values() )
+            {
+                for ( final PooledAdView pooledAdView : pooledAdViews )
+                {
+                    pooledAdView.adView.destroy();
+                }
+            }
+
+            POOLED_AD_VIEWS.clear();
+        }
+    }
+
+    //
+    // Ad View Pool
+    //
+
+    /**
+     * Takes a released view of the given size, zone and context from the pool, or creates a new one if none is available.
+     */
+    private static PooledAdView acquireAdView(final AppLovinAdSize adSize, final String zoneId, final Context context)
+    {
+        synchronized ( POOLED_AD_VIEWS )
+        {
+            purgeFinishedAdViews();
+
+            final List<PooledAdView> pooledAdViews = POOLED_AD_VIEWS.get( adSize );
+            if ( pooledAdViews != null )
+            {
+                final Iterator<PooledAdView> iterator = pooledAdViews.iterator();
+                while ( iterator.hasNext() )
+                {
+                    final PooledAdView pooledAdView = iterator.next();
+                    if ( pooledAdView.context == context && pooledAdView.zoneId.equals( zoneId ) )
+                    {
+                        iterator.remove();
+
+                        log( DEBUG, "Reusing pooled banner view" );
+                        pooledAdView.adView.resume();
+
+                        return pooledAdView;
+                    }
+                }
+            }
+        }
+
+        return new PooledAdView( new AppLovinAdView( adSize, zoneId, context ), zoneId, context );
+    }
+
+    /**
+     * Detaches the view from its adapter and returns it to the pool, or destroys it if the pool for its size is full, it is still loading, or its activity is finishing or destroyed.
+     */
+    private static void releaseAdView(final PooledAdView pooledAdView)
+    {
+        final AppLovinAdView adView = pooledAdView.adView;
+
+        pooledAdView.listener = null;
+
+        final ViewParent parent = adView.getParent();
+        if ( parent instanceof ViewGroup )
+        {
+            ( (ViewGroup) parent ).removeView( adView );
+        }
+
+        synchronized ( POOLED_AD_VIEWS )
+        {
+            purgeFinishedAdViews();
+
+            if ( !pooledAdView.loading && !isActivityGone( pooledAdView.context ) )
+            {
+                List<PooledAdView> pooledAdViews = POOLED_AD_VIEWS.get( adView.getSize() );
+                if ( pooledAdViews == null )
+                {
+                    pooledAdViews = new ArrayList<PooledAdView>( MAX_POOLED_AD_VIEWS_PER_SIZE );
+                    POOLED_AD_VIEWS.put( adView.getSize(), pooledAdViews );
+                }
+
+                if ( pooledAdViews.size() < MAX_POOLED_AD_VIEWS_PER_SIZE )
+                {
+                    pooledAdViews.add( pooledAdView );
+                    adView.pause();
+
+                    registerLifecycleCallbacks( pooledAdView.context );
+
+                    return;
+                }
+            }
+        }
+
+        adView.destroy();
+    }
+
+    /**
+     * Destroys pooled views whose activity is finishing or destroyed. Must be called while holding the pool's lock.
+     */
+    private static void purgeFinishedAdViews()
+    {
+        for ( final List<PooledAdView> pooledAdViews : POOLED_AD_VIEWS.values() )
+        {
+            final Iterator<PooledAdView> iterator = pooledAdViews.iterator();
+            while ( iterator.hasNext() )
+            {
+                final PooledAdView pooledAdView = iterator.next();
+                if ( isActivityGone( pooledAdView.context ) )
+                {
+                    iterator.remove();
+                    pooledAdView.adView.destroy();
+                }
+            }
+        }
+    }
+
+    /**
+     * Destroys the pooled views of the given activity, so they do not hold on to it once it is destroyed, including by a configuration change.
+     */
+    private static void destroyPooledAdViews(final Activity activity)
+    {
+        synchronized ( POOLED_AD_VIEWS )
+        {
+            for ( final List<PooledAdView> pooledAdViews : POOLED_AD_VIEWS.values() )
+            {
+                final Iterator<PooledAdView> iterator = pooledAdViews.iterator();
+                while ( iterator.hasNext() )
+                {
+                    final PooledAdView pooledAdView = iterator.next();
+                    if ( pooledAdView.context == activity )
+                    {
+                        iterator.remove();
+                        pooledAdView.adView.destroy();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Watches the activities of pooled views from the first view pooled, so their views are destroyed along with them rather than on the next
+     * request. Must be called while holding the pool's lock.
+     */
+    private static void registerLifecycleCallbacks(final Context context)
+    {
+        if ( lifecycleCallbacksRegistered || !( context instanceof Activity ) || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH ) return;
+
+        final Application application = ( (Activity) context ).getApplication();
+        if ( application == null ) return;
+
+        application.registerActivityLifecycleCallbacks( new Application.ActivityLifecycleCallbacks()
+        {
+            @Override
+            public void onActivityDestroyed(final Activity activity)
+            {
+                destroyPooledAdViews( activity );
+            }
+
+            @Override
+            public void onActivityCreated(final Activity activity, final Bundle savedInstanceState) {}
+
+            @Override
+            public void onActivityStarted(final Activity activity) {}
+
+            @Override
+            public void onActivityResumed(final Activity activity) {}
+
+            @Override
+            public void onActivityPaused(final Activity activity) {}
+
+            @Override
+            public void onActivityStopped(final Activity activity) {}
+
+            @Override
+            public void onActivitySaveInstanceState(final Activity activity, final Bundle outState) {}
+        } );
+
+        lifecycleCallbacksRegistered = true;
+    }
+
+    private static boolean isActivityGone(final Context context)
+    {
+        if ( !( context instanceof Activity ) ) return false;
+
+        final Activity activity = (Activity) context;
+        return activity.isFinishing() || ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && activity.isDestroyed() );
+    }
+
+    //
+    // Banner Prefetch
+    //
+
+    private static BannerPrefetch getBannerPrefetch(final AppLovinSdk sdk, final String zoneId, final AppLovinAdSize adSize)
+    {
+        final String key = zoneId + "/" + adSize.getLabel();
+
+        BannerPrefetch bannerPrefetch = BANNER_PREFETCHES.get( key );
+        if ( bannerPrefetch == null )
+        {
+            final BannerPrefetch newBannerPrefetch = new BannerPrefetch( sdk, zoneId, adSize );
+            bannerPrefetch = BANNER_PREFETCHES.putIfAbsent( key, newBannerPrefetch );
+            if ( bannerPrefetch == null )
+            {
+                bannerPrefetch = newBannerPrefetch;
+            }
+        }
+
+        return bannerPrefetch;
+    }
+
+    private static void loadNextAd(final AppLovinSdk sdk, final String zoneId, final AppLovinAdSize adSize, final AppLovinAdLoadListener listener)
+    {
+        // If this is a default Zone, load the ad by size
+        if ( DEFAULT_ZONE.equals( zoneId ) )
+        {
+            sdk.getAdService().loadNextAd( adSize, listener );
+        }
+        // Otherwise, use the Zones API
+        else
+        {
+            sdk.getAdService().loadNextAdForZoneId( zoneId, listener );
+        }
     }
 
     //
@@ -180,10 +430,12 @@ public class AppLovinCustomEventBanner
 
     private static void log(final int priority, final String message)
     {
-        if ( LOGGING_ENABLED )
-        {
-            Log.println( priority, "AppLovinBanner", message );
-        }
+        AppLovinAdapterLogger.log( priority, TAG, message );
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
     }
 
     private static int toAdMobErrorCode(final int applovinErrorCode)
@@ -201,4 +453,314 @@ public class AppLovinCustomEventBanner
             return AdRequest.ERROR_CODE_INTERNAL_ERROR;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * An `AppLovinAdView` along with the listeners bound to it when created. Reusing the view only rebinds the AdMob listener they forward to.
+     */
+    private static final class PooledAdView
+            implements AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdClickListener
+    {
+        private final AppLovinAdView adView;
+        private final String         zoneId;
+        private final Context        context;
+
+        private volatile CustomEventBannerListener listener;
+        private volatile BannerPrefetch            bannerPrefetch;
+        private volatile boolean                   loading;
+        private volatile AppLovinAd                loadedAd;
+        private volatile int                       loadErrorCode;
+        private volatile long                      loadStartMillis;
+        private volatile boolean                   loadServedFromPrefetch;
+        private volatile boolean                   prefetchEnabled;
+        private volatile AppLovinCircuitBreaker    circuitBreaker;
+
+        // Listener callbacks, delivered on the main thread
+        private final AppLovinMainThreadDispatcher.Event adLoadedEvent = new AppLovinMainThreadDispatcher.Event()
+        {
+            @Override
+            public void run()
+            {
+                loading = false;
+
+                final AppLovinAd ad = loadedAd;
+                loadedAd = null;
+
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( ad == null || listener == null ) return;
+
+                adView.renderAd( ad );
+
+                log( DEBUG, "Successfully loaded banner ad" );
+                listener.onAdLoaded( adView );
+
+                // Fetch the next ad while this one is displayed
+                final BannerPrefetch bannerPrefetch = PooledAdView.this.bannerPrefetch;
+                if ( bannerPrefetch != null && prefetchEnabled ) bannerPrefetch.prefetch();
+            }
+        };
+
+        private final AppLovinMainThreadDispatcher.Event adFailedEvent = new AppLovinMainThreadDispatcher.Event()
+        {
+            @Override
+            public void run()
+            {
+                loading = false;
+
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( listener == null ) return;
+
+                log( ERROR, "Failed to load banner ad with code: {}", loadErrorCode );
+                listener.onAdFailedToLoad( toAdMobErrorCode( loadErrorCode ) );
+            }
+        };
+
+        // Fails the current request back to the mediation waterfall once its load deadline passes. The view stays loading until the late ad
+        // arrives, and that ad is kept for the next refresh.
+        private final AppLovinLoadDeadline loadDeadline = new AppLovinLoadDeadline( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.FETCH_AD_TIMEOUT );
+                recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED );
+
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( listener == null ) return;
+
+                log( ERROR, "Banner load timed out" );
+                listener.onAdFailedToLoad( toAdMobErrorCode( AppLovinErrorCodes.FETCH_AD_TIMEOUT ) );
+            }
+        } );
+
+        private final AppLovinMainThreadDispatcher.Event adClickedEvent = new AppLovinMainThreadDispatcher.Event()
+        {
+            @Override
+            public void run()
+            {
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( listener != null )
+                {
+                    listener.onAdOpened();
+                    listener.onAdLeftApplication();
+                }
+            }
+        };
+
+        private PooledAdView(final AppLovinAdView adView, final String zoneId, final Context context)
+        {
+            this.adView = adView;
+            this.zoneId = zoneId;
+            this.context = context;
+
+            adView.setAdDisplayListener( this );
+            adView.setAdClickListener( this );
+        }
+
+        private void load(final AppLovinSdk sdk, final BannerPrefetch bannerPrefetch, final boolean prefetchEnabled, final CustomEventBannerListener listener)
+        {
+            this.listener = listener;
+            this.bannerPrefetch = bannerPrefetch;
+            this.prefetchEnabled = prefetchEnabled;
+
+            loadStartMillis = SystemClock.elapsedRealtime();
+
+            circuitBreaker = AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_BANNER, sdk, zoneId );
+
+            final AppLovinAd prefetchedAd = ( bannerPrefetch != null ) ? bannerPrefetch.poll() : null;
+            loadServedFromPrefetch = ( prefetchedAd != null );
+
+            if ( prefetchedAd != null )
+            {
+                log( DEBUG, "Rendering prefetched banner ad" );
+                adReceived( prefetchedAd );
+            }
+            else if ( !circuitBreaker.allowRequest() )
+            {
+                // Fail right away, without a network round trip, while the zone keeps failing
+                loadErrorCode = circuitBreaker.getErrorCode();
+                AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, loadErrorCode );
+                AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+            }
+            else
+            {
+                loading = true;
+                loadDeadline.start( AppLovinLoadDeadline.getDeadline( AppLovinLatencyStats.FORMAT_BANNER, zoneId ) );
+                loadNextAd( sdk, zoneId, adView.getSize(), this );
+            }
+        }
+
+        private void recordLatency(final int phase)
+        {
+            AppLovinLatencyStats.record( AppLovinLatencyStats.FORMAT_BANNER, zoneId, phase, SystemClock.elapsedRealtime() - loadStartMillis );
+        }
+
+        @Override
+        public void adReceived(final AppLovinAd ad)
+        {
+            // A prefetched ad was already recorded by the prefetch that loaded it
+            if ( !loadServedFromPrefetch ) circuitBreaker.onSuccess();
+
+            if ( !loadDeadline.finish() )
+            {
+                log( DEBUG, "Banner ad loaded after its deadline, keeping it for the next refresh" );
+                loading = false;
+
+                final BannerPrefetch bannerPrefetch = this.bannerPrefetch;
+                if ( bannerPrefetch != null ) bannerPrefetch.offer( ad );
+
+                return;
+            }
+
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOADED, ad.getAdIdNumber() );
+            recordLatency( loadServedFromPrefetch ? AppLovinLatencyStats.PHASE_LOAD_CACHE_HIT : AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS );
+
+            loadedAd = ad;
+            AppLovinMainThreadDispatcher.dispatch( adLoadedEvent );
+        }
+
+        @Override
+        public void failedToReceiveAd(final int errorCode)
+        {
+            circuitBreaker.onFailure( errorCode );
+
+            // The request already failed when its deadline passed
+            if ( !loadDeadline.finish() )
+            {
+                loading = false;
+                return;
+            }
+
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, errorCode );
+            recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED );
+
+            loadErrorCode = errorCode;
+            AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+        }
+
+        @Override
+        public void adDisplayed(final AppLovinAd ad)
+        {
+            log( DEBUG, "Banner displayed" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_DISPLAYED, ad.getAdIdNumber() );
+        }
+
+        @Override
+        public void adHidden(final AppLovinAd ad)
+        {
+            log( DEBUG, "Banner dismissed" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_HIDDEN, ad.getAdIdNumber() );
+        }
+
+        @Override
+        public void adClicked(final AppLovinAd ad)
+        {
+            log( DEBUG, "Banner clicked" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_CLICKED, ad.getAdIdNumber() );
+            AppLovinMainThreadDispatcher.dispatch( adClickedEvent );
+        }
+    }
+
+    /**
+     * The next banner ad for a zone and size, fetched in the background while the current one is displayed so a refresh only has to render it.
+     */
+    private static final class BannerPrefetch
+            implements AppLovinAdLoadListener
+    {
+        private final AppLovinSdk            sdk;
+        private final String                 zoneId;
+        private final AppLovinAdSize         adSize;
+        private final AppLovinCircuitBreaker circuitBreaker;
+
+        private AppLovinAd prefetchedAd;       // Guarded by this
+        private long       prefetchTimeMillis; // Guarded by this
+        private boolean    fetching;           // Guarded by this
+
+        private BannerPrefetch(final AppLovinSdk sdk, final String zoneId, final AppLovinAdSize adSize)
+        {
+            this.sdk = sdk;
+            this.zoneId = zoneId;
+            this.adSize = adSize;
+            this.circuitBreaker = AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_BANNER, sdk, zoneId );
+        }
+
+        /**
+         * Takes the prefetched ad, if there is one and it has not gone stale.
+         */
+        private synchronized AppLovinAd poll()
+        {
+            final AppLovinAd ad = prefetchedAd;
+            prefetchedAd = null;
+
+            if ( ad != null && SystemClock.elapsedRealtime() - prefetchTimeMillis > PREFETCHED_AD_TTL_MILLIS )
+            {
+                log( DEBUG, "Discarding stale prefetched banner ad" );
+                return null;
+            }
+
+            return ad;
+        }
+
+        /**
+         * Keeps an ad that arrived after its request's deadline for the next refresh, unless an ad is already prefetched.
+         */
+        private synchronized void offer(final AppLovinAd ad)
+        {
+            if ( prefetchedAd != null ) return;
+
+            prefetchedAd = ad;
+            prefetchTimeMillis = SystemClock.elapsedRealtime();
+        }
+
+        /**
+         * Starts fetching the next ad, unless one is already prefetched or being fetched.
+         */
+        private void prefetch()
+        {
+            synchronized ( this )
+            {
+                if ( fetching || prefetchedAd != null ) return;
+
+                fetching = true;
+            }
+
+            // Saves the round trip while the zone keeps failing, or while conditions do not allow prefetching; the next refresh loads on its own
+            if ( AppLovinPrefetchScheduler.getPrefetchLimit() == 0 || !circuitBreaker.allowRequest() )
+            {
+                synchronized ( this )
+                {
+                    fetching = false;
+                }
+
+                return;
+            }
+
+            log( DEBUG, "Prefetching next banner ad" );
+            loadNextAd( sdk, zoneId, adSize, this );
+        }
+
+        @Override
+        public void adReceived(final AppLovinAd ad)
+        {
+            circuitBreaker.onSuccess();
+
+            synchronized ( this )
+            {
+                prefetchedAd = ad;
+                prefetchTimeMillis = SystemClock.elapsedRealtime();
+                fetching = false;
+            }
+        }
+
+        @Override
+        public void failedToReceiveAd(final int errorCode)
+        {
+            log( ERROR, "Failed to prefetch banner ad with code: {}", errorCode );
+            circuitBreaker.onFailure( errorCode );
+
+            synchronized ( this )
+            {
+                fetching = false;
+            }
+        }
+    }
+}
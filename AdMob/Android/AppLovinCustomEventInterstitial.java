@@ -3,9 +3,7 @@ package YOUR_PACKAGE_NAME;
 import android.app.Activity;
 import android.content.Context;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
+import android.os.SystemClock;
 
 import com.applovin.adview.AppLovinInterstitialAd;
 import com.applovin.adview.AppLovinInterstitialAdDialog;
@@ -13,19 +11,22 @@ import com.applovin.sdk.AppLovinAd;
 import com.applovin.sdk.AppLovinAdClickListener;
 import com.applovin.sdk.AppLovinAdDisplayListener;
 import com.applovin.sdk.AppLovinAdLoadListener;
-import com.applovin.sdk.AppLovinAdSize;
 import com.applovin.sdk.AppLovinAdVideoPlaybackListener;
 import com.applovin.sdk.AppLovinErrorCodes;
 import com.applovin.sdk.AppLovinSdk;
+import com.applovin.mediation.AppLovinAdapterLogger;
+import com.applovin.mediation.AppLovinLatencyStats;
+import com.applovin.mediation.AppLovinLoadDeadline;
+import com.applovin.mediation.AppLovinMainThreadDispatcher;
+import com.applovin.mediation.AppLovinSdkRegistry;
 import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.mediation.MediationAdRequest;
 import com.google.android.gms.ads.mediation.customevent.CustomEventInterstitial;
 import com.google.android.gms.ads.mediation.customevent.CustomEventInterstitialListener;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static android.util.Log.DEBUG;
 import static android.util.Log.ERROR;
@@ -42,20 +43,87 @@ import static android.util.Log.ERROR;
 public class AppLovinCustomEventInterstitial
         implements CustomEventInterstitial, AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdClickListener, AppLovinAdVideoPlaybackListener
 {
-    private static final boolean LOGGING_ENABLED = true;
-    private static final Handler UI_HANDLER      = new Handler( Looper.getMainLooper() );
-    private static final String  DEFAULT_ZONE    = "";
-
-    // A map of Zone -> Queue of `AppLovinAd`s to be shared by instances of the custom event.
-    // This prevents skipping of ads as this adapter will be re-created and preloaded
-    // on every ad load regardless if ad was actually displayed or not.
-    private static final Map<String, Queue<AppLovinAd>> GLOBAL_INTERSTITIAL_ADS      = new HashMap<String, Queue<AppLovinAd>>();
-    private static final Object                         GLOBAL_INTERSTITIAL_ADS_LOCK = new Object();
+    private static final String TAG          = "AppLovinInterstitial";
+    private static final String DEFAULT_ZONE = "";
 
     private Context                         context;
     private CustomEventInterstitialListener listener;
 
-    private String zoneId; // The zone identifier this instance of the custom event is loading for
+    private String       zoneId;  // The zone identifier this instance of the custom event is loading for
+    private List<String> zoneIds; // The zones to load from, in order, with `zoneId` first
+    private boolean      parallelZoneLoading;
+
+    private volatile AppLovinInterstitialAdCache.MultiZoneLoad multiZoneLoad;
+    private volatile AppLovinInterstitialAdCache.ReservedAd    reservedAd; // The ad loaded for this request, kept out of the pool until shown
+
+    private volatile long loadStartMillis; // When the current mediation request was made
+    private volatile long showStartMillis; // When the current show call was made
+    private volatile int  loadErrorCode;
+
+    // Fails the current request back to the mediation waterfall once its load deadline passes
+    private final AppLovinLoadDeadline loadDeadline = new AppLovinLoadDeadline( new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            log( ERROR, "Interstitial load timed out for zone: {{}}", zoneId );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.FETCH_AD_TIMEOUT );
+            recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED, loadStartMillis );
+
+            // The loads keep going, and their ads are added to their zone's pool for the next request
+            final AppLovinInterstitialAdCache.MultiZoneLoad multiZoneLoad = AppLovinCustomEventInterstitial.this.multiZoneLoad;
+            if ( multiZoneLoad != null ) multiZoneLoad.abandon();
+
+            loadErrorCode = AppLovinErrorCodes.FETCH_AD_TIMEOUT;
+            AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+        }
+    } );
+
+    // Listener callbacks, delivered on the main thread
+    private final AppLovinMainThreadDispatcher.Event adLoadedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdLoaded();
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adFailedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdFailedToLoad( toAdMobErrorCode( loadErrorCode ) );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adOpenedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdOpened();
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adClosedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdClosed();
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adClickedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdLeftApplication();
+        }
+    };
 
     //
     // AdMob Custom Event Methods
@@ -65,6 +133,8 @@ public class AppLovinCustomEventInterstitial
     public void requestInterstitialAd(final Context context, final CustomEventInterstitialListener listener, final String serverParameter, final MediationAdRequest mediationAdRequest, final Bundle customEventExtras)
     {
         log( DEBUG, "Requesting AppLovin interstitial..." );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_LOAD_REQUESTED, 0 );
+        loadStartMillis = SystemClock.elapsedRealtime();
 
         // SDK versions BELOW 7.2.0 require a instance of an Activity to be passed in as the context
         if ( AppLovinSdk.VERSION_CODE < 720 && !( context instanceof Activity ) )
@@ -79,54 +149,107 @@ public class AppLovinCustomEventInterstitial
         this.listener = listener;
         this.context = context;
 
-        final AppLovinSdk sdk = AppLovinSdk.getInstance( context );
-        sdk.setPluginVersion( "AdMob-2.2.1" );
+        // Zones to load from, in order. Settings below apply to the first one.
+        zoneIds = parseZoneIds( customEventExtras );
+        zoneId = zoneIds.get( 0 );
+        parallelZoneLoading = customEventExtras != null && customEventExtras.getBoolean( "parallel_zone_loading", false );
 
-        // Zones support is available on AppLovin SDK 7.5.0 and higher
-        if ( AppLovinSdk.VERSION_CODE >= 750 && customEventExtras != null && customEventExtras.containsKey( "zone_id" ) )
+        // Number of ads to keep preloaded for the zone
+        if ( customEventExtras != null && customEventExtras.containsKey( "preload_depth" ) )
         {
-            zoneId = customEventExtras.getString( "zone_id" );
+            AppLovinInterstitialAdCache.setPreloadDepth( zoneId, customEventExtras.getInt( "preload_depth", AppLovinInterstitialAdCache.DEFAULT_PRELOAD_DEPTH ) );
         }
-        else
+
+        // Number of concurrent loads allowed for the zone
+        if ( customEventExtras != null && customEventExtras.containsKey( "load_fan_out" ) )
         {
-            zoneId = DEFAULT_ZONE;
+            AppLovinInterstitialAdCache.setLoadFanOut( zoneId, customEventExtras.getInt( "load_fan_out", AppLovinInterstitialAdCache.DEFAULT_LOAD_FAN_OUT ) );
         }
 
-        // Check if we already have a preloaded ad for the given zone
-        final AppLovinAd preloadedAd = dequeueAd( zoneId );
-        if ( preloadedAd != null )
+        // How long ads cached for the zone stay valid
+        if ( customEventExtras != null && customEventExtras.containsKey( "ad_ttl_seconds" ) )
         {
-            log( DEBUG, "Found preloaded ad for zone: {" + zoneId + "}" );
-            adReceived( preloadedAd );
+            AppLovinInterstitialAdCache.setAdTtl( zoneId, TimeUnit.SECONDS.toMillis( customEventExtras.getLong( "ad_ttl_seconds", 0 ) ) );
         }
-        else
+
+        // How long a load for the zone may take before failing back to the waterfall
+        if ( customEventExtras != null && customEventExtras.containsKey( "load_deadline_millis" ) )
+        {
+            AppLovinLoadDeadline.setDeadline( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId, customEventExtras.getLong( "load_deadline_millis", 0 ) );
+        }
+
+        // Requests made while the SDK is still warming up continue once it is ready
+        AppLovinSdkRegistry.whenReady( null, context, new AppLovinSdkRegistry.SdkReadyListener()
         {
-            // If this is a default Zone, load the interstitial ad normally
-            if ( DEFAULT_ZONE.equals( zoneId ) )
+            @Override
+            public void onSdkReady(final AppLovinSdk sdk)
             {
-                sdk.getAdService().loadNextAd( AppLovinAdSize.INTERSTITIAL, this );
+                // Check if we already have an unexpired preloaded ad for one of the zones, in order. It is reserved for this request, with its original load time.
+                for ( final String preloadedZoneId : zoneIds )
+                {
+                    final AppLovinInterstitialAdCache.ReservedAd preloadedAd = AppLovinInterstitialAdCache.reserveAd( preloadedZoneId );
+                    if ( preloadedAd != null )
+                    {
+                        reservedAd = preloadedAd;
+                        zoneId = preloadedZoneId;
+
+                        // A single request, and hit, is recorded for the mediation request however many zones it probed
+                        AppLovinInterstitialAdCache.recordRequest( zoneIds.get( 0 ), true );
+
+                        log( DEBUG, "Found preloaded ad for zone: {{}}", zoneId );
+                        recordLatency( AppLovinLatencyStats.PHASE_LOAD_CACHE_HIT, loadStartMillis );
+                        notifyAdLoaded();
+
+                        return;
+                    }
+                }
+
+                AppLovinInterstitialAdCache.recordRequest( zoneIds.get( 0 ), false );
+
+                loadDeadline.start( AppLovinLoadDeadline.getDeadline( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId ) );
+
+                multiZoneLoad = new AppLovinInterstitialAdCache.MultiZoneLoad( sdk, zoneIds, parallelZoneLoading, AppLovinCustomEventInterstitial.this );
+                multiZoneLoad.load();
             }
-            // Otherwise, use the Zones API
-            else
+
+            @Override
+            public void onSdkFailed()
             {
-                sdk.getAdService().loadNextAdForZoneId( zoneId, this );
+                log( ERROR, "Unable to request AppLovin interstitial. SDK failed to initialize." );
+                AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.UNSPECIFIED_ERROR );
+
+                listener.onAdFailedToLoad( AdRequest.ERROR_CODE_INTERNAL_ERROR );
             }
-        }
+        } );
     }
 
     @Override
     public void showInterstitial()
     {
-        final AppLovinAd preloadedAd = dequeueAd( zoneId );
-        if ( preloadedAd != null )
+        final AppLovinInterstitialAdCache.ReservedAd reservedAd = this.reservedAd;
+        this.reservedAd = null;
+
+        if ( reservedAd != null && !reservedAd.isExpired( SystemClock.elapsedRealtime() ) )
         {
-            final AppLovinSdk sdk = AppLovinSdk.getInstance( context );
+            final AppLovinSdk sdk = AppLovinSdkRegistry.getSdk( context );
+
+            AppLovinInterstitialAdCache.recordShow( zoneId );
+
+            // Refill the zone's pool while this ad is being shown
+            AppLovinInterstitialAdCache.replenish( sdk, zoneId );
 
             final AppLovinInterstitialAdDialog interstitialAd = AppLovinInterstitialAd.create( sdk, context );
             interstitialAd.setAdDisplayListener( this );
             interstitialAd.setAdClickListener( this );
             interstitialAd.setAdVideoPlaybackListener( this );
-            interstitialAd.showAndRender( preloadedAd );
+
+            showStartMillis = SystemClock.elapsedRealtime();
+            interstitialAd.showAndRender( reservedAd.getAd() );
+        }
+        else if ( reservedAd != null )
+        {
+            log( ERROR, "Failed to show AppLovin interstitial: {} after its TTL elapsed", reservedAd.getAd().getAdIdNumber() );
+            listener.onAdFailedToLoad( AdRequest.ERROR_CODE_INTERNAL_ERROR );
         }
         else
         {
@@ -142,7 +265,14 @@ public class AppLovinCustomEventInterstitial
     public void onResume() {}
 
     @Override
-    public void onDestroy() {}
+    public void onDestroy()
+    {
+        // An ad that was never shown goes back to the pool for the next request
+        final AppLovinInterstitialAdCache.ReservedAd reservedAd = this.reservedAd;
+        this.reservedAd = null;
+
+        if ( reservedAd != null ) AppLovinInterstitialAdCache.releaseAd( reservedAd );
+    }
 
     //
     // Ad Load Listener
@@ -151,33 +281,45 @@ public class AppLovinCustomEventInterstitial
     @Override
     public void adReceived(final AppLovinAd ad)
     {
-        log( DEBUG, "Interstitial did load ad: " + ad.getAdIdNumber() );
-
-        enqueueAd( ad, zoneId );
+        // Show the ad from whichever zone filled first
+        final String filledZoneId = multiZoneLoad.getFilledZoneId();
 
-        runOnUiThread( new Runnable()
+        if ( !loadDeadline.finish() )
         {
-            @Override
-            public void run()
-            {
-                listener.onAdLoaded();
-            }
-        } );
+            log( DEBUG, "Interstitial loaded ad: {} after its deadline, keeping it for the next request", ad.getAdIdNumber() );
+            AppLovinInterstitialAdCache.enqueueAd( ad, ( filledZoneId != null ) ? filledZoneId : zoneId );
+
+            return;
+        }
+
+        if ( filledZoneId != null ) zoneId = filledZoneId;
+
+        log( DEBUG, "Interstitial did load ad: {} for zone: {{}}", ad.getAdIdNumber(), zoneId );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_LOADED, ad.getAdIdNumber() );
+        recordLatency( AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, loadStartMillis );
+
+        // Keep the ad for this request until it is shown
+        reservedAd = AppLovinInterstitialAdCache.reserveAd( zoneId, ad );
+        notifyAdLoaded();
+    }
+
+    private void notifyAdLoaded()
+    {
+        AppLovinMainThreadDispatcher.dispatch( adLoadedEvent );
     }
 
     @Override
     public void failedToReceiveAd(final int errorCode)
     {
-        log( ERROR, "Interstitial failed to load with error: " + errorCode );
+        // The request already failed when its deadline passed
+        if ( !loadDeadline.finish() ) return;
 
-        runOnUiThread( new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                listener.onAdFailedToLoad( toAdMobErrorCode( errorCode ) );
-            }
-        } );
+        log( ERROR, "Interstitial failed to load with error: {}", errorCode );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, errorCode );
+        recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED, loadStartMillis );
+
+        loadErrorCode = errorCode;
+        AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
     }
 
     //
@@ -188,14 +330,21 @@ public class AppLovinCustomEventInterstitial
     public void adDisplayed(final AppLovinAd appLovinAd)
     {
         log( DEBUG, "Interstitial displayed" );
-        listener.onAdOpened();
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_DISPLAYED, appLovinAd.getAdIdNumber() );
+        recordLatency( AppLovinLatencyStats.PHASE_SHOW, showStartMillis );
+        AppLovinMainThreadDispatcher.dispatch( adOpenedEvent );
     }
 
     @Override
     public void adHidden(final AppLovinAd appLovinAd)
     {
         log( DEBUG, "Interstitial dismissed" );
-        listener.onAdClosed();
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_HIDDEN, appLovinAd.getAdIdNumber() );
+
+        // Top up the pool in case a preload failed while the ad was showing
+        AppLovinInterstitialAdCache.replenish( AppLovinSdkRegistry.getSdk( context ), zoneId );
+
+        AppLovinMainThreadDispatcher.dispatch( adClosedEvent );
     }
 
     //
@@ -206,7 +355,8 @@ public class AppLovinCustomEventInterstitial
     public void adClicked(final AppLovinAd appLovinAd)
     {
         log( DEBUG, "Interstitial clicked" );
-        listener.onAdLeftApplication();
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_CLICKED, appLovinAd.getAdIdNumber() );
+        AppLovinMainThreadDispatcher.dispatch( adClickedEvent );
     }
 
     //
@@ -222,50 +372,72 @@ public class AppLovinCustomEventInterstitial
     @Override
     public void videoPlaybackEnded(final AppLovinAd ad, final double percentViewed, final boolean fullyWatched)
     {
-        log( DEBUG, "Interstitial video playback ended at playback percent: " + percentViewed );
+        log( DEBUG, "Interstitial video playback ended at playback percent: {}", percentViewed );
     }
 
     //
     // Utility Methods
     //
 
-    private static AppLovinAd dequeueAd(final String zoneId)
+    private void recordLatency(final int phase, final long startMillis)
     {
-        synchronized ( GLOBAL_INTERSTITIAL_ADS_LOCK )
-        {
-            AppLovinAd preloadedAd = null;
+        AppLovinLatencyStats.record( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId, phase, SystemClock.elapsedRealtime() - startMillis );
+    }
 
-            final Queue<AppLovinAd> preloadedAds = GLOBAL_INTERSTITIAL_ADS.get( zoneId );
-            if ( preloadedAds != null && !preloadedAds.isEmpty() )
-            {
-                preloadedAd = preloadedAds.poll();
-            }
+    private static void log(final int priority, final String message)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message );
+    }
 
-            return preloadedAd;
-        }
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
     }
 
-    private static void enqueueAd(final AppLovinAd ad, final String zoneId)
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
+    }
+
+    /**
+     * @return The zones to load from, in order: those of the `zone_ids` extra, or else the `zone_id` one, followed by the default zone if the
+     * `fallback_to_default_zone` extra is set. Never empty.
+     */
+    private static List<String> parseZoneIds(final Bundle customEventExtras)
     {
-        synchronized ( GLOBAL_INTERSTITIAL_ADS_LOCK )
+        final List<String> zoneIds = new ArrayList<String>( 2 );
+
+        // Zones support is available on AppLovin SDK 7.5.0 and higher
+        if ( customEventExtras != null && AppLovinSdk.VERSION_CODE >= 750 )
         {
-            Queue<AppLovinAd> preloadedAds = GLOBAL_INTERSTITIAL_ADS.get( zoneId );
-            if ( preloadedAds == null )
+            final List<String> customEventExtrasZoneIds = customEventExtras.getStringArrayList( "zone_ids" );
+            if ( customEventExtrasZoneIds != null )
             {
-                preloadedAds = new LinkedList<AppLovinAd>();
-                GLOBAL_INTERSTITIAL_ADS.put( zoneId, preloadedAds );
+                for ( final String customEventExtrasZoneId : customEventExtrasZoneIds )
+                {
+                    if ( customEventExtrasZoneId != null && !zoneIds.contains( customEventExtrasZoneId ) )
+                    {
+                        zoneIds.add( customEventExtrasZoneId );
+                    }
+                }
+            }
+            else if ( customEventExtras.getString( "zone_id" ) != null )
+            {
+                zoneIds.add( customEventExtras.getString( "zone_id" ) );
             }
 
-            preloadedAds.offer( ad );
+            if ( customEventExtras.getBoolean( "fallback_to_default_zone", false ) && !zoneIds.isEmpty() && !zoneIds.contains( DEFAULT_ZONE ) )
+            {
+                zoneIds.add( DEFAULT_ZONE );
+            }
         }
-    }
 
-    private static void log(final int priority, final String message)
-    {
-        if ( LOGGING_ENABLED )
+        if ( zoneIds.isEmpty() )
         {
-            Log.println( priority, "AppLovinInterstitial", message );
+            zoneIds.add( DEFAULT_ZONE );
         }
+
+        return zoneIds;
     }
 
     private static int toAdMobErrorCode(final int applovinErrorCode)
@@ -283,19 +455,4 @@ public class AppLovinCustomEventInterstitial
             return AdRequest.ERROR_CODE_INTERNAL_ERROR;
         }
     }
-
-    /**
-     * Performs the given runnable on the main thread.
-     */
-    public static void runOnUiThread(final Runnable runnable)
-    {
-        if ( Looper.myLooper() == Looper.getMainLooper() )
-        {
-            runnable.run();
-        }
-        else
-        {
-            UI_HANDLER.post( runnable );
-        }
-    }
 }
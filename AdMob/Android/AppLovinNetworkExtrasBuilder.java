@@ -2,6 +2,9 @@ package YOUR_PACKAGE_NAME;
 
 import android.os.Bundle;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by joshgleeson on 11/15/17.
  * <p>
@@ -9,24 +12,177 @@ import android.os.Bundle;
  */
 public final class AppLovinNetworkExtrasBuilder
 {
-    private static final String KEY_ZONE_ID = "zone_id";
+    private static final String KEY_ZONE_ID               = "zone_id";
+    private static final String KEY_ZONE_IDS              = "zone_ids";
+    private static final String KEY_DEFAULT_ZONE_FALLBACK = "fallback_to_default_zone";
+    private static final String KEY_PARALLEL_ZONE_LOADING = "parallel_zone_loading";
+    private static final String KEY_PRELOAD_DEPTH         = "preload_depth";
+    private static final String KEY_LOAD_FAN_OUT          = "load_fan_out";
+    private static final String KEY_AD_TTL_SECONDS        = "ad_ttl_seconds";
+    private static final String KEY_POOL_SIZE             = "pool_size";
+    private static final String KEY_PREFETCH              = "prefetch";
+    private static final String KEY_LOAD_DEADLINE         = "load_deadline_millis";
 
     /**
      * The AppLovin Zone ID to be used for the ad requests.
      */
     private String zoneId;
 
+    /**
+     * The AppLovin Zone IDs interstitials are loaded from, in order, in place of the single zone ID.
+     */
+    private List<String> zoneIds;
+
+    /**
+     * Whether interstitials should also try the default zone after the given ones.
+     */
+    private boolean defaultZoneFallbackEnabled;
+
+    /**
+     * Whether interstitials should load from all zones at once rather than one after another.
+     */
+    private boolean parallelZoneLoadingEnabled;
+
+    /**
+     * The number of interstitial ads to keep preloaded for the zone, or -1 to use the default.
+     */
+    private int preloadDepth = -1;
+
+    /**
+     * The number of concurrent interstitial loads allowed for the zone, or 0 to use the default.
+     */
+    private int loadFanOut;
+
+    /**
+     * How long, in seconds, interstitial ads cached for the zone stay valid, or 0 to use the default.
+     */
+    private long adTtlSeconds;
+
+    /**
+     * The number of rewarded videos that can be ready or showing at once for the zone, or 0 to use the default.
+     */
+    private int rewardedPoolSize;
+
+    /**
+     * Whether banners should fetch the next ad in the background while the current one is displayed.
+     */
+    private boolean bannerPrefetchEnabled;
+
+    /**
+     * How long, in milliseconds, a load for the zone may take before failing back to the mediation waterfall, or -1 to use the default.
+     */
+    private long loadDeadlineMillis = -1;
+
     public AppLovinNetworkExtrasBuilder setZoneId(final String zoneId)
     {
         this.zoneId = zoneId;
         return this;
     }
 
+    public AppLovinNetworkExtrasBuilder setZoneIds(final List<String> zoneIds)
+    {
+        this.zoneIds = zoneIds;
+        return this;
+    }
+
+    public AppLovinNetworkExtrasBuilder setDefaultZoneFallbackEnabled(final boolean defaultZoneFallbackEnabled)
+    {
+        this.defaultZoneFallbackEnabled = defaultZoneFallbackEnabled;
+        return this;
+    }
+
+    public AppLovinNetworkExtrasBuilder setParallelZoneLoadingEnabled(final boolean parallelZoneLoadingEnabled)
+    {
+        this.parallelZoneLoadingEnabled = parallelZoneLoadingEnabled;
+        return this;
+    }
+
+    public AppLovinNetworkExtrasBuilder setPreloadDepth(final int preloadDepth)
+    {
+        this.preloadDepth = preloadDepth;
+        return this;
+    }
+
+    public AppLovinNetworkExtrasBuilder setLoadFanOut(final int loadFanOut)
+    {
+        this.loadFanOut = loadFanOut;
+        return this;
+    }
+
+    public AppLovinNetworkExtrasBuilder setAdTtlSeconds(final long adTtlSeconds)
+    {
+        this.adTtlSeconds = adTtlSeconds;
+        return this;
+    }
+
+    public AppLovinNetworkExtrasBuilder setRewardedPoolSize(final int rewardedPoolSize)
+    {
+        this.rewardedPoolSize = rewardedPoolSize;
+        return this;
+    }
+
+    public AppLovinNetworkExtrasBuilder setBannerPrefetchEnabled(final boolean bannerPrefetchEnabled)
+    {
+        this.bannerPrefetchEnabled = bannerPrefetchEnabled;
+        return this;
+    }
+
+    public AppLovinNetworkExtrasBuilder setLoadDeadlineMillis(final long loadDeadlineMillis)
+    {
+        this.loadDeadlineMillis = loadDeadlineMillis;
+        return this;
+    }
+
     public Bundle build()
     {
         final Bundle bundle = new Bundle();
         bundle.putString( KEY_ZONE_ID, zoneId );
 
+        if ( zoneIds != null && !zoneIds.isEmpty() )
+        {
+            bundle.putStringArrayList( KEY_ZONE_IDS, new ArrayList<String>( zoneIds ) );
+        }
+
+        if ( defaultZoneFallbackEnabled )
+        {
+            bundle.putBoolean( KEY_DEFAULT_ZONE_FALLBACK, true );
+        }
+
+        if ( parallelZoneLoadingEnabled )
+        {
+            bundle.putBoolean( KEY_PARALLEL_ZONE_LOADING, true );
+        }
+
+        if ( preloadDepth >= 0 )
+        {
+            bundle.putInt( KEY_PRELOAD_DEPTH, preloadDepth );
+        }
+
+        if ( loadFanOut > 0 )
+        {
+            bundle.putInt( KEY_LOAD_FAN_OUT, loadFanOut );
+        }
+
+        if ( adTtlSeconds > 0 )
+        {
+            bundle.putLong( KEY_AD_TTL_SECONDS, adTtlSeconds );
+        }
+
+        if ( rewardedPoolSize > 0 )
+        {
+            bundle.putInt( KEY_POOL_SIZE, rewardedPoolSize );
+        }
+
+        if ( bannerPrefetchEnabled )
+        {
+            bundle.putBoolean( KEY_PREFETCH, true );
+        }
+
+        if ( loadDeadlineMillis >= 0 )
+        {
+            bundle.putLong( KEY_LOAD_DEADLINE, loadDeadlineMillis );
+        }
+
         return bundle;
     }
 }
@@ -0,0 +1,360 @@
+package com.applovin.mediation;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.BatteryManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static android.util.Log.DEBUG;
+import static android.util.Log.ERROR;
+
+/**
+ * Decides how much background prefetching the adapters' caches may do, based on the device's connectivity and battery, shared by all adapters.
+ * <p>
+ * Prefetching is unrestricted on an unmetered network. On a metered network it is limited to {@link #DEFAULT_METERED_PREFETCH_LIMIT} ad at a
+ * time, and it stops entirely while offline or while the battery is low and not charging. Refill work that is not allowed right away is
+ * deferred with {@link #defer(String, Runnable)}, and runs on the main thread once conditions allow more prefetching than when it was deferred.
+ * <p>
+ * The device's state is read through {@link DeviceState}, so a different implementation can be installed with {@link #setDeviceState(DeviceState)},
+ * e.g. to drive the scheduler from fakes. The default implementation caches the connectivity and battery state, kept up to date by a broadcast
+ * receiver, so checking the prefetch limit on the request and show paths does not call into system services.
+ */
+public final class AppLovinPrefetchScheduler
+{
+    private static final String TAG = "AppLovinPrefetchScheduler";
+
+    /**
+     * The number of ads caches may prefetch at a time on a metered network, unless overridden via {@link #setMeteredPrefetchLimit(int)}.
+     */
+    public static final int DEFAULT_METERED_PREFETCH_LIMIT = 1;
+
+    /**
+     * The battery level, in percent, below which prefetching stops unless the device is charging, unless overridden via
+     * {@link #setLowBatteryPercent(int)}.
+     */
+    public static final int DEFAULT_LOW_BATTERY_PERCENT = 15;
+
+    /**
+     * The prefetch limit when nothing restricts prefetching.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    // How often deferred refills check whether conditions improved
+    private static final long RECHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis( 30 );
+
+    // Deferred refills by key, so each cache zone has at most one, in deferral order
+    private static final Map<String, DeferredPrefetch> DEFERRED_PREFETCHES = new LinkedHashMap<String, DeferredPrefetch>(); // Guarded by itself
+
+    private static final AtomicBoolean RECHECK_SCHEDULED = new AtomicBoolean();
+
+    private static final Runnable RECHECK_TASK = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            recheck();
+        }
+    };
+
+    private static volatile DeviceState deviceState;
+    private static volatile int         meteredPrefetchLimit = DEFAULT_METERED_PREFETCH_LIMIT;
+    private static volatile int         lowBatteryPercent    = DEFAULT_LOW_BATTERY_PERCENT;
+
+    /**
+     * The device conditions prefetching depends on.
+     */
+    public interface DeviceState
+    {
+        boolean isConnected();
+
+        boolean isMetered();
+
+        boolean isCharging();
+
+        /**
+         * @return The battery level, in percent, or -1 if unknown.
+         */
+        int getBatteryPercent();
+    }
+
+    private AppLovinPrefetchScheduler() {}
+
+    /**
+     * Reads the device's state from the given context, unless a device state was already installed. Called when an SDK is initialized; until
+     * then, prefetching is unrestricted.
+     */
+    public static void initialize(final Context context)
+    {
+        if ( deviceState == null )
+        {
+            deviceState = new AndroidDeviceState( context.getApplicationContext() );
+        }
+    }
+
+    /**
+     * Installs the source of the device's state, e.g. a fake in tests, and checks right away for deferred refills that it now allows.
+     */
+    public static void setDeviceState(final DeviceState deviceState)
+    {
+        AppLovinPrefetchScheduler.deviceState = deviceState;
+        recheckNow();
+    }
+
+    private static void recheckNow()
+    {
+        AppLovinMainThreadDispatcher.cancel( RECHECK_TASK );
+        RECHECK_SCHEDULED.set( true );
+        AppLovinMainThreadDispatcher.dispatchDelayed( RECHECK_TASK, 0 );
+    }
+
+    /**
+     * Sets how many ads caches may prefetch at a time on a metered network. A limit of 0 defers all prefetching until the device is back on an
+     * unmetered network.
+     */
+    public static void setMeteredPrefetchLimit(final int limit)
+    {
+        meteredPrefetchLimit = Math.max( 0, limit );
+    }
+
+    /**
+     * Sets the battery level, in percent, below which prefetching stops unless the device is charging. A level of 0 ignores the battery.
+     */
+    public static void setLowBatteryPercent(final int percent)
+    {
+        lowBatteryPercent = Math.max( 0, Math.min( percent, 100 ) );
+    }
+
+    /**
+     * @return How many ads caches may prefetch right now, counting those already cached or loading: 0 to defer prefetching, or {@link #UNLIMITED}.
+     */
+    public static int getPrefetchLimit()
+    {
+        final DeviceState deviceState = AppLovinPrefetchScheduler.deviceState;
+        if ( deviceState == null ) return UNLIMITED;
+
+        if ( !deviceState.isConnected() ) return 0;
+
+        final int batteryPercent = deviceState.getBatteryPercent();
+        if ( batteryPercent >= 0 && batteryPercent < lowBatteryPercent && !deviceState.isCharging() ) return 0;
+
+        return deviceState.isMetered() ? meteredPrefetchLimit : UNLIMITED;
+    }
+
+    /**
+     * Defers a refill that the current conditions do not fully allow. It runs on the main thread once the prefetch limit rises above the current
+     * one, replacing any refill already deferred under the same key.
+     */
+    public static void defer(final String key, final Runnable refill)
+    {
+        final int prefetchLimit = getPrefetchLimit();
+        if ( prefetchLimit == UNLIMITED )
+        {
+            refill.run();
+            return;
+        }
+
+        synchronized ( DEFERRED_PREFETCHES )
+        {
+            DEFERRED_PREFETCHES.remove( key );
+            DEFERRED_PREFETCHES.put( key, new DeferredPrefetch( refill, prefetchLimit ) );
+        }
+
+        log( DEBUG, "Deferred prefetch: {} at prefetch limit: {}", key, prefetchLimit );
+        scheduleRecheck();
+    }
+
+    private static void scheduleRecheck()
+    {
+        if ( RECHECK_SCHEDULED.compareAndSet( false, true ) )
+        {
+            AppLovinMainThreadDispatcher.dispatchDelayed( RECHECK_TASK, RECHECK_INTERVAL_MILLIS );
+        }
+    }
+
+    /**
+     * Runs the deferred refills that the current conditions allow, and keeps checking for as long as any are left.
+     */
+    private static void recheck()
+    {
+        RECHECK_SCHEDULED.set( false );
+
+        final int prefetchLimit = getPrefetchLimit();
+        final List<Runnable> refills = new ArrayList<Runnable>();
+        final boolean hasDeferredPrefetches;
+
+        synchronized ( DEFERRED_PREFETCHES )
+        {
+            final Iterator<DeferredPrefetch> iterator = DEFERRED_PREFETCHES.values().iterator();
+            while ( iterator.hasNext() )
+            {
+                final DeferredPrefetch deferredPrefetch = iterator.next();
+                if ( prefetchLimit > deferredPrefetch.prefetchLimit )
+                {
+                    refills.add( deferredPrefetch.refill );
+                    iterator.remove();
+                }
+            }
+
+            hasDeferredPrefetches = !DEFERRED_PREFETCHES.isEmpty();
+        }
+
+        if ( !refills.isEmpty() )
+        {
+            log( DEBUG, "Running {} deferred prefetch(es)", refills.size() );
+
+            for ( final Runnable refill : refills )
+            {
+                refill.run();
+            }
+        }
+
+        if ( hasDeferredPrefetches )
+        {
+            scheduleRecheck();
+        }
+    }
+
+    private static void log(final int priority, final String message, final Throwable th)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, th );
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
+    }
+
+    private static final class DeferredPrefetch
+    {
+        private final Runnable refill;
+        private final int      prefetchLimit; // The limit when the refill was deferred
+
+        private DeferredPrefetch(final Runnable refill, final int prefetchLimit)
+        {
+            this.refill = refill;
+            this.prefetchLimit = prefetchLimit;
+        }
+    }
+
+    /**
+     * Caches the device's state, read from the Android system services once, then updated from the connectivity and battery broadcasts on the
+     * main thread. Until it is known, the device is assumed connected to an unmetered network, with an unknown battery level.
+     */
+    private static final class AndroidDeviceState
+            extends BroadcastReceiver
+            implements DeviceState
+    {
+        private final Context applicationContext;
+
+        private volatile boolean connected      = true;
+        private volatile boolean metered;
+        private volatile boolean charging;
+        private volatile int     batteryPercent = -1;
+
+        private AndroidDeviceState(final Context applicationContext)
+        {
+            this.applicationContext = applicationContext;
+
+            updateConnectivity();
+
+            final IntentFilter intentFilter = new IntentFilter();
+            intentFilter.addAction( ConnectivityManager.CONNECTIVITY_ACTION );
+            intentFilter.addAction( Intent.ACTION_BATTERY_CHANGED );
+
+            try
+            {
+                // The battery status is a sticky broadcast, so registering returns the current one
+                final Intent batteryStatus = applicationContext.registerReceiver( this, intentFilter );
+                if ( batteryStatus != null ) updateBattery( batteryStatus );
+            }
+            catch ( Throwable th )
+            {
+                log( ERROR, "Unable to watch connectivity and battery status", th );
+            }
+        }
+
+        @Override
+        public void onReceive(final Context context, final Intent intent)
+        {
+            if ( Intent.ACTION_BATTERY_CHANGED.equals( intent.getAction() ) )
+            {
+                updateBattery( intent );
+            }
+            else
+            {
+                updateConnectivity();
+            }
+
+            // Deferred refills may run right away if conditions improved
+            recheckNow();
+        }
+
+        @Override
+        public boolean isConnected()
+        {
+            return connected;
+        }
+
+        @Override
+        public boolean isMetered()
+        {
+            return metered;
+        }
+
+        @Override
+        public boolean isCharging()
+        {
+            return charging;
+        }
+
+        @Override
+        public int getBatteryPercent()
+        {
+            return batteryPercent;
+        }
+
+        private void updateConnectivity()
+        {
+            try
+            {
+                final ConnectivityManager connectivityManager = (ConnectivityManager) applicationContext.getSystemService( Context.CONNECTIVITY_SERVICE );
+                if ( connectivityManager == null ) return;
+
+                final NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+                connected = networkInfo != null && networkInfo.isConnected();
+                metered = connectivityManager.isActiveNetworkMetered();
+            }
+            catch ( Throwable th )
+            {
+                // E.g. without the `ACCESS_NETWORK_STATE` permission, prefetching is left unrestricted by connectivity
+                log( ERROR, "Unable to read connectivity status", th );
+            }
+        }
+
+        private void updateBattery(final Intent batteryStatus)
+        {
+            final int status = batteryStatus.getIntExtra( BatteryManager.EXTRA_STATUS, -1 );
+            charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+
+            final int level = batteryStatus.getIntExtra( BatteryManager.EXTRA_LEVEL, -1 );
+            final int scale = batteryStatus.getIntExtra( BatteryManager.EXTRA_SCALE, -1 );
+            batteryPercent = ( level >= 0 && scale > 0 ) ? ( 100 * level / scale ) : -1;
+        }
+    }
+}
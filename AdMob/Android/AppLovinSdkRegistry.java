@@ -0,0 +1,456 @@
+package com.applovin.mediation;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import com.applovin.sdk.AppLovinSdk;
+import com.applovin.sdk.AppLovinSdkSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static android.util.Log.DEBUG;
+import static android.util.Log.ERROR;
+
+/**
+ * The AppLovin SDK instances used by the adapters, one per SDK key for the whole process.
+ * <p>
+ * Each instance is resolved, initialized and tagged with the adapters' plugin version the first time its SDK key is requested. Later requests get
+ * the cached instance back with a single map lookup, without creating settings or writing to the SDK.
+ * <p>
+ * Apps can call {@link #warmUp(Context, String...)} at startup to initialize their SDK keys in parallel on background threads, so neither the
+ * startup nor the first ad request pays for it. Ad requests use {@link #whenReady(String, Context, SdkReadyListener)}: a request made while its
+ * SDK is still initializing is queued and continued on the main thread once it is ready, instead of blocking. If the background initialization
+ * fails, the queued requests are failed on the main thread, and the next request retries it.
+ */
+public final class AppLovinSdkRegistry
+{
+    private static final String TAG = "AppLovinSdkRegistry";
+
+    private static final String PLUGIN_VERSION = "AdMob-2.2.1";
+
+    /**
+     * {@link #warmUp(Context, String...)} starts initializing the SDK keys right away. This is the default.
+     */
+    public static final int WARM_UP_POLICY_EAGER = 0;
+
+    /**
+     * {@link #warmUp(Context, String...)} only registers the SDK keys, and they are all initialized in parallel when the first ad is requested, so
+     * no adapter work competes with the app's startup.
+     */
+    public static final int WARM_UP_POLICY_LAZY = 1;
+
+    // The key of the SDK instance configured in the Android Manifest
+    private static final String MANIFEST_SDK_KEY = "";
+
+    private static final int WARM_UP_THREAD_COUNT = 4;
+
+    // A map of SDK key -> SDK instance and its pending requests
+    private static final ConcurrentMap<String, SdkEntry> SDKS = new ConcurrentHashMap<String, SdkEntry>();
+
+    private static final ThreadPoolExecutor WARM_UP_EXECUTOR = new ThreadPoolExecutor( WARM_UP_THREAD_COUNT, WARM_UP_THREAD_COUNT, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+    {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            final Thread thread = new Thread( runnable, "AppLovinSdkWarmUp-" + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
+
+    static
+    {
+        // The threads are only kept around while SDKs are initializing
+        WARM_UP_EXECUTOR.allowCoreThreadTimeOut( true );
+    }
+
+    private static volatile int warmUpPolicy = WARM_UP_POLICY_EAGER;
+
+    private static final AtomicBoolean ADAPTERS_INITIALIZED = new AtomicBoolean();
+
+    // SDK keys registered by a lazy warm-up, initialized by the first ad request
+    private static final List<String> PENDING_WARM_UP_KEYS = new ArrayList<String>(); // Guarded by itself
+
+    private static          Context pendingWarmUpContext; // Guarded by PENDING_WARM_UP_KEYS
+    private static volatile boolean hasPendingWarmUp;
+
+    private AppLovinSdkRegistry() {}
+
+    /**
+     * Called with the SDK instance of a request once it is ready.
+     */
+    public interface SdkReadyListener
+    {
+        void onSdkReady(AppLovinSdk sdk);
+
+        /**
+         * Called on the main thread if the request was queued and the SDK failed to initialize in the background.
+         */
+        void onSdkFailed();
+    }
+
+    /**
+     * Sets how {@link #warmUp(Context, String...)} initializes the SDK keys, {@link #WARM_UP_POLICY_EAGER} or {@link #WARM_UP_POLICY_LAZY}. Call it
+     * before warming up.
+     */
+    public static void setWarmUpPolicy(final int policy)
+    {
+        warmUpPolicy = policy;
+    }
+
+    public static int getWarmUpPolicy()
+    {
+        return warmUpPolicy;
+    }
+
+    /**
+     * Initializes the SDK instances for the given SDK keys in parallel on background threads, according to the warm-up policy. Returns right away.
+     *
+     * @param sdkKeys The SDK keys the app's ad units use. None, {@code null} or empty for the SDK key configured in the Android Manifest.
+     */
+    public static void warmUp(final Context context, final String... sdkKeys)
+    {
+        // SDK versions BELOW 7.2.0 require a instance of an Activity, so they are initialized by the first ad request instead
+        if ( AppLovinSdk.VERSION_CODE < 720 )
+        {
+            log( ERROR, "Unable to warm up AppLovin SDK {}. SDK versions below 7.2.0 are initialized by the first ad request.", AppLovinSdk.VERSION );
+            return;
+        }
+
+        final Context applicationContext = context.getApplicationContext();
+        final String[] keys = ( sdkKeys != null && sdkKeys.length > 0 ) ? sdkKeys : new String[] { MANIFEST_SDK_KEY };
+
+        if ( warmUpPolicy == WARM_UP_POLICY_LAZY )
+        {
+            synchronized ( PENDING_WARM_UP_KEYS )
+            {
+                for ( final String sdkKey : keys )
+                {
+                    PENDING_WARM_UP_KEYS.add( normalize( sdkKey ) );
+                }
+
+                pendingWarmUpContext = applicationContext;
+                hasPendingWarmUp = true;
+            }
+
+            log( DEBUG, "Deferred warm-up of {} SDK key(s) to the first ad request", keys.length );
+        }
+        else
+        {
+            for ( final String sdkKey : keys )
+            {
+                initializeInBackground( getEntry( normalize( sdkKey ) ), applicationContext );
+            }
+        }
+    }
+
+    /**
+     * Starts initializing the SDK instance for the given SDK key in the background, unless it is ready or already initializing. Returns right away.
+     *
+     * @param sdkKey The SDK key, or {@code null} or empty for the SDK key configured in the Android Manifest.
+     */
+    public static void startInitializing(final String sdkKey, final Context context)
+    {
+        startPendingWarmUp();
+
+        // SDK versions BELOW 7.2.0 require the Activity of the request, so they are initialized by the request itself
+        if ( AppLovinSdk.VERSION_CODE < 720 ) return;
+
+        initializeInBackground( getEntry( normalize( sdkKey ) ), context.getApplicationContext() );
+    }
+
+    /**
+     * @return Whether the SDK instance for the given SDK key is initialized, so requests for it continue right away.
+     */
+    public static boolean isReady(final String sdkKey)
+    {
+        final SdkEntry entry = SDKS.get( normalize( sdkKey ) );
+        return entry != null && entry.sdk != null;
+    }
+
+    /**
+     * Calls the listener with the SDK instance for the given SDK key. If it is ready, the listener is called right away on this thread. Otherwise the
+     * SDK is initialized in the background, without blocking this thread, and the listener is called on the main thread once it is ready.
+     *
+     * @param sdkKey The SDK key, or {@code null} or empty for the SDK key configured in the Android Manifest.
+     */
+    public static void whenReady(final String sdkKey, final Context context, final SdkReadyListener listener)
+    {
+        startPendingWarmUp();
+
+        final SdkEntry entry = getEntry( normalize( sdkKey ) );
+
+        AppLovinSdk sdk = entry.sdk;
+        if ( sdk == null )
+        {
+            // SDK versions BELOW 7.2.0 require the Activity of the request, so they cannot be initialized in the background
+            if ( AppLovinSdk.VERSION_CODE < 720 )
+            {
+                sdk = initialize( entry, context );
+            }
+            else
+            {
+                synchronized ( entry )
+                {
+                    sdk = entry.sdk;
+                    if ( sdk == null )
+                    {
+                        entry.listeners.add( listener );
+                    }
+                }
+
+                if ( sdk == null )
+                {
+                    log( DEBUG, "Queued request until SDK is ready: {{}}", entry.sdkKey );
+                    initializeInBackground( entry, context.getApplicationContext() );
+
+                    return;
+                }
+            }
+        }
+
+        listener.onSdkReady( sdk );
+    }
+
+    /**
+     * @return The SDK instance configured in the Android Manifest.
+     */
+    public static AppLovinSdk getSdk(final Context context)
+    {
+        return getSdk( null, context );
+    }
+
+    /**
+     * Returns the SDK instance for the given SDK key, initializing it on this thread, or waiting for its warm-up, if it is not ready yet. Prefer
+     * {@link #whenReady(String, Context, SdkReadyListener)} where the caller can continue later.
+     *
+     * @param sdkKey The SDK key, or {@code null} or empty for the SDK key configured in the Android Manifest.
+     *
+     * @return The SDK instance for the given SDK key.
+     */
+    public static AppLovinSdk getSdk(final String sdkKey, final Context context)
+    {
+        final SdkEntry entry = getEntry( normalize( sdkKey ) );
+
+        final AppLovinSdk sdk = entry.sdk;
+        if ( sdk != null ) return sdk;
+
+        startPendingWarmUp();
+
+        return initialize( entry, context );
+    }
+
+    private static String normalize(final String sdkKey)
+    {
+        return TextUtils.isEmpty( sdkKey ) ? MANIFEST_SDK_KEY : sdkKey;
+    }
+
+    private static SdkEntry getEntry(final String key)
+    {
+        SdkEntry entry = SDKS.get( key );
+        if ( entry == null )
+        {
+            final SdkEntry newEntry = new SdkEntry( key );
+            entry = SDKS.putIfAbsent( key, newEntry );
+            if ( entry == null )
+            {
+                entry = newEntry;
+            }
+        }
+
+        return entry;
+    }
+
+    private static void startPendingWarmUp()
+    {
+        if ( !hasPendingWarmUp ) return;
+
+        final List<String> keys;
+        final Context context;
+        synchronized ( PENDING_WARM_UP_KEYS )
+        {
+            keys = new ArrayList<String>( PENDING_WARM_UP_KEYS );
+            context = pendingWarmUpContext;
+
+            PENDING_WARM_UP_KEYS.clear();
+            pendingWarmUpContext = null;
+            hasPendingWarmUp = false;
+        }
+
+        for ( final String key : keys )
+        {
+            initializeInBackground( getEntry( key ), context );
+        }
+    }
+
+    private static void initializeInBackground(final SdkEntry entry, final Context applicationContext)
+    {
+        synchronized ( entry )
+        {
+            if ( entry.sdk != null || entry.initializing ) return;
+
+            entry.initializing = true;
+        }
+
+        WARM_UP_EXECUTOR.execute( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    initialize( entry, applicationContext );
+                }
+                catch ( Throwable th )
+                {
+                    log( ERROR, "Unable to initialize SDK: {{}}", entry.sdkKey, th );
+
+                    // Fail the queued requests back to the mediation waterfall, and let the next request retry
+                    final List<SdkReadyListener> listeners;
+                    synchronized ( entry )
+                    {
+                        entry.initializing = false;
+
+                        listeners = new ArrayList<SdkReadyListener>( entry.listeners );
+                        entry.listeners.clear();
+                    }
+
+                    if ( !listeners.isEmpty() )
+                    {
+                        AppLovinMainThreadDispatcher.dispatch( new AppLovinMainThreadDispatcher.Event()
+                        {
+                            @Override
+                            public void run()
+                            {
+                                for ( final SdkReadyListener listener : listeners )
+                                {
+                                    listener.onSdkFailed();
+                                }
+                            }
+                        } );
+                    }
+                }
+            }
+        } );
+    }
+
+    /**
+     * Initializes the SDK instance of the entry, unless another thread already did, and continues the requests queued for it on the main thread.
+     */
+    private static AppLovinSdk initialize(final SdkEntry entry, final Context context)
+    {
+        synchronized ( entry.initializationLock )
+        {
+            final AppLovinSdk existingSdk = entry.sdk;
+            if ( existingSdk != null ) return existingSdk;
+
+            final long startMillis = SystemClock.elapsedRealtime();
+
+            final AppLovinSdk sdk;
+            if ( MANIFEST_SDK_KEY.equals( entry.sdkKey ) )
+            {
+                AppLovinSdk.initializeSdk( context );
+                sdk = AppLovinSdk.getInstance( context );
+            }
+            else
+            {
+                sdk = AppLovinSdk.getInstance( entry.sdkKey, new AppLovinSdkSettings(), context );
+            }
+
+            sdk.setPluginVersion( PLUGIN_VERSION );
+
+            // This may run on the thread of a request, so the adapters' own setup, which reads system services and disk, is left to the background
+            if ( !ADAPTERS_INITIALIZED.getAndSet( true ) )
+            {
+                final Context applicationContext = context.getApplicationContext();
+                WARM_UP_EXECUTOR.execute( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        // Background prefetching follows the device's connectivity and battery from now on
+                        AppLovinPrefetchScheduler.initialize( applicationContext );
+
+                        // Seeds the adapters with the zone stats of previous sessions
+                        AppLovinZoneStatsStore.initialize( applicationContext );
+                    }
+                } );
+            }
+
+            final List<SdkReadyListener> listeners;
+            synchronized ( entry )
+            {
+                entry.sdk = sdk;
+                entry.initializing = false;
+
+                listeners = new ArrayList<SdkReadyListener>( entry.listeners );
+                entry.listeners.clear();
+            }
+
+            log( DEBUG, "Initialized SDK in {}ms: {{}}", SystemClock.elapsedRealtime() - startMillis, entry.sdkKey );
+
+            if ( !listeners.isEmpty() )
+            {
+                AppLovinMainThreadDispatcher.dispatch( new AppLovinMainThreadDispatcher.Event()
+                {
+                    @Override
+                    public void run()
+                    {
+                        for ( final SdkReadyListener listener : listeners )
+                        {
+                            listener.onSdkReady( sdk );
+                        }
+                    }
+                } );
+            }
+
+            return sdk;
+        }
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg, final Throwable th)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg, th );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
+    }
+
+    /**
+     * The SDK instance for an SDK key, and the requests waiting for it.
+     */
+    private static final class SdkEntry
+    {
+        private final String sdkKey;
+        private final Object initializationLock = new Object();
+
+        private volatile AppLovinSdk sdk;
+
+        private       boolean                initializing;                                       // Guarded by this
+        private final List<SdkReadyListener> listeners    = new ArrayList<SdkReadyListener>( 2 ); // Guarded by this
+
+        private SdkEntry(final String sdkKey)
+        {
+            this.sdkKey = sdkKey;
+        }
+    }
+}
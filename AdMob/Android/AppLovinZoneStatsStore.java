@@ -0,0 +1,689 @@
+package com.applovin.mediation;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static android.util.Log.DEBUG;
+import static android.util.Log.ERROR;
+
+/**
+ * Per-zone performance stats persisted across app launches, so the adapters start a session tuned from the last one instead of re-learning it.
+ * <p>
+ * For each ad format and zone, the store keeps the fill rate, the deciles and p99 of network load latencies, and the request and show rates. For
+ * each ad format, SDK key and zone, it keeps the state of a circuit breaker that opened on no fills. On startup these seed the latency histograms,
+ * and through them the preload depth and hedging, as well as load deadlines and circuit breakers.
+ * <p>
+ * Stats are written incrementally to an append-only file: changes are batched for a few seconds, then the records of the zones that changed are
+ * appended on a background thread. The latest record of a zone wins when the file is read, and the file is compacted to one record per zone once
+ * it grows past {@link #MAX_FILE_BYTES}. A truncated record at the end of the file, e.g. from the process being killed mid-write, is ignored.
+ */
+public final class AppLovinZoneStatsStore
+{
+    private static final String TAG = "AppLovinZoneStatsStore";
+
+    private static final String FILE_NAME = "applovin_zone_stats";
+
+    /**
+     * The size past which the file is compacted.
+     */
+    public static final int MAX_FILE_BYTES = 64 * 1024;
+
+    // The first byte of each record, identifying its type and version
+    private static final int ZONE_RECORD_V1    = 1; // Also held the zone's circuit breaker, without its SDK key. The breaker is dropped when read.
+    private static final int ZONE_RECORD_V2    = 2;
+    private static final int BREAKER_RECORD_V1 = 3;
+
+    private static final long FLUSH_DELAY_MILLIS = TimeUnit.SECONDS.toMillis( 10 );
+
+    // The network load latency percentiles persisted per zone: its deciles and p99
+    private static final double[] LATENCY_PERCENTILES = { 10, 20, 30, 40, 50, 60, 70, 80, 90, 99 };
+
+    // Fill counts are halved past this, so the fill rate follows recent loads
+    private static final int MAX_LOAD_COUNT = 1000;
+
+    // Seeded deadlines leave room for twice the zone's p99 latency, but no less than this
+    private static final long MIN_SEEDED_DEADLINE_MILLIS = TimeUnit.SECONDS.toMillis( 3 );
+
+    // A map of format + zone -> its stats
+    private static final Map<String, ZoneRecord> RECORDS = new HashMap<String, ZoneRecord>(); // Guarded by itself
+
+    // A map of format + SDK key + zone -> its circuit breaker
+    private static final Map<String, BreakerRecord> BREAKER_RECORDS = new HashMap<String, BreakerRecord>(); // Guarded by `RECORDS`
+
+    private static final ScheduledExecutorService FLUSH_EXECUTOR = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            final Thread thread = new Thread( runnable, "AppLovinZoneStatsStore" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
+
+    private static final Runnable FLUSH_TASK = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            flush();
+        }
+    };
+
+    private static final AtomicBoolean INITIALIZED     = new AtomicBoolean();
+    private static final AtomicBoolean FLUSH_SCHEDULED = new AtomicBoolean();
+
+    private static volatile File file;
+
+    private AppLovinZoneStatsStore() {}
+
+    /**
+     * Loads the stats persisted by previous sessions and seeds the adapters with them. Called when an SDK is initialized; only the first call
+     * reads the file.
+     */
+    public static void initialize(final Context context)
+    {
+        if ( !INITIALIZED.compareAndSet( false, true ) ) return;
+
+        final File filesDirectory = context.getApplicationContext().getFilesDir();
+        if ( filesDirectory == null ) return;
+
+        file = new File( filesDirectory, FILE_NAME );
+
+        final List<ZoneRecord> records = new ArrayList<ZoneRecord>();
+        final List<BreakerRecord> breakerRecords = new ArrayList<BreakerRecord>();
+        read( file, records, breakerRecords );
+
+        synchronized ( RECORDS )
+        {
+            // Stats recorded this session, before the file was read, are newer
+            for ( final ZoneRecord record : records )
+            {
+                final String key = getKey( record.format, record.zoneId );
+                if ( !RECORDS.containsKey( key ) ) RECORDS.put( key, record );
+            }
+
+            for ( final BreakerRecord breakerRecord : breakerRecords )
+            {
+                final String key = getBreakerKey( breakerRecord.format, breakerRecord.sdkKey, breakerRecord.zoneId );
+                if ( !BREAKER_RECORDS.containsKey( key ) ) BREAKER_RECORDS.put( key, breakerRecord );
+            }
+        }
+
+        for ( final ZoneRecord record : records )
+        {
+            seed( record );
+        }
+
+        log( DEBUG, "Loaded stats for {} zone(s)", records.size() );
+    }
+
+    /**
+     * @param format One of the {@code AppLovinLatencyStats.FORMAT_*} constants.
+     *
+     * @return The share of the zone's network loads that filled, from 0 to 1, or -1 if none were recorded.
+     */
+    public static double getFillRate(final int format, final String zoneId)
+    {
+        synchronized ( RECORDS )
+        {
+            final ZoneRecord record = RECORDS.get( getKey( format, zoneId ) );
+            return ( record != null && record.loadCount > 0 ) ? (double) record.fillCount / record.loadCount : -1;
+        }
+    }
+
+    /**
+     * Records the outcome of a network load for the zone.
+     */
+    static void recordLoad(final int format, final String zoneId, final boolean filled)
+    {
+        synchronized ( RECORDS )
+        {
+            final ZoneRecord record = getRecord( format, zoneId );
+
+            if ( record.loadCount >= MAX_LOAD_COUNT )
+            {
+                record.loadCount /= 2;
+                record.fillCount /= 2;
+            }
+
+            record.loadCount++;
+            if ( filled ) record.fillCount++;
+
+            // The latencies are read from the histograms when the record is written
+            record.dirty = true;
+        }
+
+        scheduleFlush();
+    }
+
+    /**
+     * Records the zone's decayed request and show rates, in events per millisecond.
+     */
+    public static void recordRates(final int format, final String zoneId, final double requestRate, final double showRate)
+    {
+        synchronized ( RECORDS )
+        {
+            final ZoneRecord record = getRecord( format, zoneId );
+            record.requestRate = requestRate;
+            record.showRate = showRate;
+            record.dirty = true;
+        }
+
+        scheduleFlush();
+    }
+
+    /**
+     * @return The zone's request rate, in requests per millisecond, as of the end of the last session, or -1 if unknown.
+     */
+    public static double getRequestRate(final int format, final String zoneId)
+    {
+        synchronized ( RECORDS )
+        {
+            final ZoneRecord record = RECORDS.get( getKey( format, zoneId ) );
+            return ( record != null ) ? record.requestRate : -1;
+        }
+    }
+
+    /**
+     * @return The zone's show rate, in shows per millisecond, as of the end of the last session, or -1 if unknown.
+     */
+    public static double getShowRate(final int format, final String zoneId)
+    {
+        synchronized ( RECORDS )
+        {
+            final ZoneRecord record = RECORDS.get( getKey( format, zoneId ) );
+            return ( record != null ) ? record.showRate : -1;
+        }
+    }
+
+    /**
+     * Records that the circuit breaker of the given SDK key and zone opened with the given error and backoff, or closed if the backoff is 0.
+     */
+    static void recordCircuitBreaker(final int format, final String sdkKey, final String zoneId, final int errorCode, final long backoffMillis)
+    {
+        synchronized ( RECORDS )
+        {
+            final String key = getBreakerKey( format, sdkKey, zoneId );
+
+            BreakerRecord breakerRecord = BREAKER_RECORDS.get( key );
+            if ( breakerRecord == null )
+            {
+                // Nothing to persist for a breaker that was never open
+                if ( backoffMillis <= 0 ) return;
+
+                breakerRecord = new BreakerRecord( format, ( sdkKey != null ) ? sdkKey : "", ( zoneId != null ) ? zoneId : "" );
+                BREAKER_RECORDS.put( key, breakerRecord );
+            }
+
+            breakerRecord.errorCode = errorCode;
+            breakerRecord.backoffMillis = backoffMillis;
+            breakerRecord.openUntilMillis = ( backoffMillis > 0 ) ? System.currentTimeMillis() + backoffMillis : 0;
+            breakerRecord.dirty = true;
+        }
+
+        scheduleFlush();
+    }
+
+    /**
+     * @return The state of the circuit breaker of the given SDK key and zone as {error code, backoff, remaining open time in milliseconds} if it
+     * is still open from a previous session, otherwise {@code null}.
+     */
+    static long[] getOpenCircuitBreaker(final int format, final String sdkKey, final String zoneId)
+    {
+        synchronized ( RECORDS )
+        {
+            final BreakerRecord breakerRecord = BREAKER_RECORDS.get( getBreakerKey( format, sdkKey, zoneId ) );
+            if ( breakerRecord == null ) return null;
+
+            final long remainingMillis = breakerRecord.openUntilMillis - System.currentTimeMillis();
+            if ( remainingMillis <= 0 ) return null;
+
+            // A clock change can leave the breaker open for longer than its backoff
+            return new long[] { breakerRecord.errorCode, breakerRecord.backoffMillis, Math.min( remainingMillis, breakerRecord.backoffMillis ) };
+        }
+    }
+
+    //
+    // Utility Methods
+    //
+
+    private static String getKey(final int format, final String zoneId)
+    {
+        return format + ":" + ( ( zoneId != null ) ? zoneId : "" );
+    }
+
+    private static String getBreakerKey(final int format, final String sdkKey, final String zoneId)
+    {
+        return format + ":" + ( ( sdkKey != null ) ? sdkKey : "" ) + ":" + ( ( zoneId != null ) ? zoneId : "" );
+    }
+
+    // Must be called while holding RECORDS
+    private static ZoneRecord getRecord(final int format, final String zoneId)
+    {
+        final String key = getKey( format, zoneId );
+
+        ZoneRecord record = RECORDS.get( key );
+        if ( record == null )
+        {
+            record = new ZoneRecord( format, ( zoneId != null ) ? zoneId : "" );
+            RECORDS.put( key, record );
+        }
+
+        return record;
+    }
+
+    /**
+     * Seeds the zone's latency histogram, unless it already has latencies this session, and its load deadline.
+     */
+    private static void seed(final ZoneRecord record)
+    {
+        final long[] latenciesMillis = record.latenciesMillis;
+        if ( latenciesMillis == null ) return;
+
+        if ( AppLovinLatencyStats.getValueAtPercentile( record.format, record.zoneId, AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, 50 ) < 0 )
+        {
+            for ( final long latencyMillis : latenciesMillis )
+            {
+                AppLovinLatencyStats.record( record.format, record.zoneId, AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, latencyMillis );
+            }
+        }
+
+        final long p99Millis = latenciesMillis[latenciesMillis.length - 1];
+        AppLovinLoadDeadline.seedDeadline( record.format, record.zoneId, Math.max( MIN_SEEDED_DEADLINE_MILLIS, 2 * p99Millis ) );
+    }
+
+    private static void scheduleFlush()
+    {
+        if ( file != null && FLUSH_SCHEDULED.compareAndSet( false, true ) )
+        {
+            FLUSH_EXECUTOR.schedule( FLUSH_TASK, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    /**
+     * Appends the records of the zones that changed since the last flush, compacting the file if it grew too large.
+     */
+    private static void flush()
+    {
+        FLUSH_SCHEDULED.set( false );
+
+        final File file = AppLovinZoneStatsStore.file;
+        if ( file == null ) return;
+
+        final List<ZoneRecord> dirtyRecords = new ArrayList<ZoneRecord>();
+        final List<BreakerRecord> dirtyBreakerRecords = new ArrayList<BreakerRecord>();
+        synchronized ( RECORDS )
+        {
+            for ( final ZoneRecord record : RECORDS.values() )
+            {
+                if ( record.dirty )
+                {
+                    record.dirty = false;
+                    dirtyRecords.add( record.copy() );
+                }
+            }
+
+            for ( final BreakerRecord breakerRecord : BREAKER_RECORDS.values() )
+            {
+                if ( breakerRecord.dirty )
+                {
+                    breakerRecord.dirty = false;
+                    dirtyBreakerRecords.add( breakerRecord.copy() );
+                }
+            }
+        }
+
+        if ( dirtyRecords.isEmpty() && dirtyBreakerRecords.isEmpty() ) return;
+
+        for ( final ZoneRecord record : dirtyRecords )
+        {
+            record.readLatencies();
+        }
+
+        write( file, dirtyRecords, dirtyBreakerRecords, true );
+
+        if ( file.length() > MAX_FILE_BYTES )
+        {
+            compact( file );
+        }
+    }
+
+    /**
+     * Rewrites the file with the latest record of each zone, and of each circuit breaker that is still open.
+     */
+    private static void compact(final File file)
+    {
+        final List<ZoneRecord> records = new ArrayList<ZoneRecord>();
+        final List<BreakerRecord> breakerRecords = new ArrayList<BreakerRecord>();
+        synchronized ( RECORDS )
+        {
+            for ( final ZoneRecord record : RECORDS.values() )
+            {
+                records.add( record.copy() );
+            }
+
+            final long nowMillis = System.currentTimeMillis();
+            for ( final BreakerRecord breakerRecord : BREAKER_RECORDS.values() )
+            {
+                if ( breakerRecord.openUntilMillis > nowMillis ) breakerRecords.add( breakerRecord.copy() );
+            }
+        }
+
+        for ( final ZoneRecord record : records )
+        {
+            record.readLatencies();
+        }
+
+        final File compactedFile = new File( file.getPath() + ".tmp" );
+        if ( write( compactedFile, records, breakerRecords, false ) && compactedFile.renameTo( file ) )
+        {
+            log( DEBUG, "Compacted stats to {} zone(s)", records.size() );
+        }
+        else
+        {
+            log( ERROR, "Unable to compact zone stats file" );
+        }
+    }
+
+    private static boolean write(final File file, final List<ZoneRecord> records, final List<BreakerRecord> breakerRecords, final boolean append)
+    {
+        DataOutputStream out = null;
+        try
+        {
+            out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file, append ) ) );
+            for ( final ZoneRecord record : records )
+            {
+                record.writeTo( out );
+            }
+
+            for ( final BreakerRecord breakerRecord : breakerRecords )
+            {
+                breakerRecord.writeTo( out );
+            }
+
+            return true;
+        }
+        catch ( IOException ex )
+        {
+            log( ERROR, "Unable to write zone stats", ex );
+            return false;
+        }
+        finally
+        {
+            closeQuietly( out );
+        }
+    }
+
+    /**
+     * Reads the latest record of each zone and circuit breaker in the file into the given lists, stopping at the first record that cannot be read.
+     */
+    private static void read(final File file, final List<ZoneRecord> zoneRecords, final List<BreakerRecord> breakerRecords)
+    {
+        if ( !file.isFile() ) return;
+
+        final Map<String, ZoneRecord> records = new HashMap<String, ZoneRecord>();
+        final Map<String, BreakerRecord> breakers = new HashMap<String, BreakerRecord>();
+
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+            while ( true )
+            {
+                final int recordType = in.readByte();
+                if ( recordType == ZONE_RECORD_V1 || recordType == ZONE_RECORD_V2 )
+                {
+                    final ZoneRecord record = ZoneRecord.readFrom( in, recordType );
+                    if ( record == null ) break;
+
+                    records.put( getKey( record.format, record.zoneId ), record );
+                }
+                else if ( recordType == BREAKER_RECORD_V1 )
+                {
+                    final BreakerRecord breakerRecord = BreakerRecord.readFrom( in );
+                    if ( breakerRecord == null ) break;
+
+                    breakers.put( getBreakerKey( breakerRecord.format, breakerRecord.sdkKey, breakerRecord.zoneId ), breakerRecord );
+                }
+                else
+                {
+                    break;
+                }
+            }
+        }
+        catch ( EOFException ignored )
+        {
+            // The end of the file, or a record truncated by the process being killed mid-write
+        }
+        catch ( IOException ex )
+        {
+            log( ERROR, "Unable to read zone stats", ex );
+        }
+        finally
+        {
+            closeQuietly( in );
+        }
+
+        zoneRecords.addAll( records.values() );
+        breakerRecords.addAll( breakers.values() );
+    }
+
+    private static void closeQuietly(final Closeable closeable)
+    {
+        if ( closeable == null ) return;
+
+        try
+        {
+            closeable.close();
+        }
+        catch ( IOException ignored ) {}
+    }
+
+    private static void log(final int priority, final String message)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message );
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Throwable th)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, th );
+    }
+
+    /**
+     * The stats of a single zone, as kept in memory and written to the file.
+     */
+    private static final class ZoneRecord
+    {
+        private final int    format;
+        private final String zoneId;
+
+        private int     loadCount;
+        private int     fillCount;
+        private long[]  latenciesMillis; // At `LATENCY_PERCENTILES`, or null if none were recorded
+        private double  requestRate;     // Per millisecond
+        private double  showRate;        // Per millisecond
+        private boolean dirty;
+
+        private ZoneRecord(final int format, final String zoneId)
+        {
+            this.format = format;
+            this.zoneId = zoneId;
+        }
+
+        private ZoneRecord copy()
+        {
+            final ZoneRecord copy = new ZoneRecord( format, zoneId );
+            copy.loadCount = loadCount;
+            copy.fillCount = fillCount;
+            copy.latenciesMillis = latenciesMillis;
+            copy.requestRate = requestRate;
+            copy.showRate = showRate;
+
+            return copy;
+        }
+
+        /**
+         * Reads the latest latency percentiles from the zone's histogram, keeping the persisted ones if it is empty.
+         */
+        private void readLatencies()
+        {
+            final long[] latenciesMillis = new long[LATENCY_PERCENTILES.length];
+            for ( int i = 0; i < LATENCY_PERCENTILES.length; i++ )
+            {
+                latenciesMillis[i] = AppLovinLatencyStats.getValueAtPercentile( format, zoneId, AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, LATENCY_PERCENTILES[i] );
+                if ( latenciesMillis[i] < 0 ) return;
+            }
+
+            this.latenciesMillis = latenciesMillis;
+        }
+
+        private void writeTo(final DataOutputStream out)
+                throws IOException
+        {
+            out.writeByte( ZONE_RECORD_V2 );
+            out.writeByte( format );
+            out.writeUTF( zoneId );
+            out.writeInt( loadCount );
+            out.writeInt( fillCount );
+
+            out.writeByte( ( latenciesMillis != null ) ? latenciesMillis.length : 0 );
+            if ( latenciesMillis != null )
+            {
+                for ( final long latencyMillis : latenciesMillis )
+                {
+                    out.writeInt( (int) Math.min( latencyMillis, Integer.MAX_VALUE ) );
+                }
+            }
+
+            out.writeDouble( requestRate );
+            out.writeDouble( showRate );
+        }
+
+        /**
+         * Reads the rest of a record, after its first byte.
+         *
+         * @return The record, or {@code null} if it is invalid.
+         */
+        private static ZoneRecord readFrom(final DataInputStream in, final int recordType)
+                throws IOException
+        {
+            final int format = in.readByte();
+            if ( format < AppLovinLatencyStats.FORMAT_INTERSTITIAL || format > AppLovinLatencyStats.FORMAT_NATIVE ) return null;
+
+            final ZoneRecord record = new ZoneRecord( format, in.readUTF() );
+            record.loadCount = in.readInt();
+            record.fillCount = in.readInt();
+
+            final int latencyCount = in.readByte();
+            if ( latencyCount > 0 )
+            {
+                record.latenciesMillis = new long[latencyCount];
+                for ( int i = 0; i < latencyCount; i++ )
+                {
+                    record.latenciesMillis[i] = in.readInt();
+                }
+            }
+
+            record.requestRate = in.readDouble();
+            record.showRate = in.readDouble();
+
+            // Skips the breaker of the old format: it may have opened on network errors, and it is not known which SDK key it belonged to
+            if ( recordType == ZONE_RECORD_V1 )
+            {
+                in.readInt();
+                in.readLong();
+                in.readLong();
+            }
+
+            return record;
+        }
+    }
+
+    /**
+     * The state of a single circuit breaker, as kept in memory and written to the file.
+     */
+    private static final class BreakerRecord
+    {
+        private final int    format;
+        private final String sdkKey;
+        private final String zoneId;
+
+        private int     errorCode;
+        private long    backoffMillis;
+        private long    openUntilMillis; // Wall clock time, as elapsed time does not carry over reboots
+        private boolean dirty;
+
+        private BreakerRecord(final int format, final String sdkKey, final String zoneId)
+        {
+            this.format = format;
+            this.sdkKey = sdkKey;
+            this.zoneId = zoneId;
+        }
+
+        private BreakerRecord copy()
+        {
+            final BreakerRecord copy = new BreakerRecord( format, sdkKey, zoneId );
+            copy.errorCode = errorCode;
+            copy.backoffMillis = backoffMillis;
+            copy.openUntilMillis = openUntilMillis;
+
+            return copy;
+        }
+
+        private void writeTo(final DataOutputStream out)
+                throws IOException
+        {
+            out.writeByte( BREAKER_RECORD_V1 );
+            out.writeByte( format );
+            out.writeUTF( sdkKey );
+            out.writeUTF( zoneId );
+            out.writeInt( errorCode );
+            out.writeLong( backoffMillis );
+            out.writeLong( openUntilMillis );
+        }
+
+        /**
+         * Reads the rest of a record, after its first byte.
+         *
+         * @return The record, or {@code null} if it is invalid.
+         */
+        private static BreakerRecord readFrom(final DataInputStream in)
+                throws IOException
+        {
+            final int format = in.readByte();
+            if ( format < AppLovinLatencyStats.FORMAT_INTERSTITIAL || format > AppLovinLatencyStats.FORMAT_NATIVE ) return null;
+
+            final BreakerRecord breakerRecord = new BreakerRecord( format, in.readUTF(), in.readUTF() );
+            breakerRecord.errorCode = in.readInt();
+            breakerRecord.backoffMillis = in.readLong();
+            breakerRecord.openUntilMillis = in.readLong();
+
+            return breakerRecord;
+        }
+    }
+}
@@ -3,9 +3,7 @@ package com.applovin.mediation;
 import android.app.Activity;
 import android.content.Context;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
+import android.os.SystemClock;
 
 import com.applovin.adview.AppLovinIncentivizedInterstitial;
 import com.applovin.sdk.AppLovinAd;
@@ -23,8 +21,11 @@ import com.google.android.gms.ads.reward.RewardItem;
 import com.google.android.gms.ads.reward.mediation.MediationRewardedVideoAdAdapter;
 import com.google.android.gms.ads.reward.mediation.MediationRewardedVideoAdListener;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static android.util.Log.DEBUG;
 import static android.util.Log.ERROR;
@@ -39,24 +40,116 @@ public class ApplovinAdapter
         implements MediationRewardedVideoAdAdapter, OnContextChangedListener,
         AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdClickListener, AppLovinAdVideoPlaybackListener, AppLovinAdRewardListener
 {
-    private static final boolean LOGGING_ENABLED = true;
-    private static final Handler UI_HANDLER      = new Handler( Looper.getMainLooper() );
-    private static final String  DEFAULT_ZONE    = "";
+    private static final String TAG          = "AppLovinRewardedVideo";
+    private static final String DEFAULT_ZONE = "";
 
     // A map of Zone -> `AppLovinIncentivizedInterstitial` to be shared by instances of the custom event.
     // This prevents skipping of ads as this adapter will be re-created and preloaded (along with underlying `AppLovinIncentivizedInterstitial`)
     // on every ad load regardless if ad was actually displayed or not.
-    private static final Map<String, AppLovinIncentivizedInterstitial> GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS = new HashMap<String, AppLovinIncentivizedInterstitial>();
+    private static final ConcurrentMap<String, IncentivizedInterstitialPool> GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS = new ConcurrentHashMap<String, IncentivizedInterstitialPool>();
+
+    // The number of `AppLovinIncentivizedInterstitial`s per zone, so the next rewarded video can preload while the current one is showing
+    private static final int DEFAULT_POOL_SIZE = 2;
+    private static final int MAX_POOL_SIZE     = 4;
+
+    // The states of a rewarded video slot
+    private static final int SLOT_IDLE       = 0;
+    private static final int SLOT_PRELOADING = 1;
+    private static final int SLOT_READY      = 2;
+    private static final int SLOT_SHOWING    = 3;
 
     private boolean initialized;
 
-    private AppLovinIncentivizedInterstitial incentivizedInterstitial;
+    private IncentivizedInterstitialPool     incentivizedInterstitialPool;
     private Context                          context;
     private MediationRewardedVideoAdListener listener;
 
     private boolean    fullyWatched;
     private RewardItem reward;
 
+    private volatile long    loadStartMillis;    // When the current mediation request was made
+    private volatile long    showStartMillis;    // When the current show call was made
+    private volatile boolean loadServedFromPool; // Whether the zone's pool had a ready video when the current request was made
+    private volatile int     loadErrorCode;
+
+    // Fails the current request back to the mediation waterfall once its load deadline passes
+    private final AppLovinLoadDeadline loadDeadline = new AppLovinLoadDeadline( new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            log( ERROR, "Rewarded video load timed out" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.FETCH_AD_TIMEOUT );
+            recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED, loadStartMillis );
+
+            // The video keeps loading into its slot of the zone's pool, ready for the next request
+            loadErrorCode = AppLovinErrorCodes.FETCH_AD_TIMEOUT;
+            AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+        }
+    } );
+
+    // Listener callbacks, delivered on the main thread
+    private final AppLovinMainThreadDispatcher.Event adLoadedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdLoaded( ApplovinAdapter.this );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adFailedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdFailedToLoad( ApplovinAdapter.this, toAdMobErrorCode( loadErrorCode ) );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adOpenedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdOpened( ApplovinAdapter.this );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adClosedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            if ( fullyWatched && reward != null )
+            {
+                log( DEBUG, "Rewarded {} {}", reward.getAmount(), reward.getType() );
+                listener.onRewarded( ApplovinAdapter.this, reward );
+            }
+
+            listener.onAdClosed( ApplovinAdapter.this );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adClickedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onAdClicked( ApplovinAdapter.this );
+            listener.onAdLeftApplication( ApplovinAdapter.this );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event videoStartedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onVideoStarted( ApplovinAdapter.this );
+        }
+    };
+
     //
     // AdMob Custom Event Methods
     //
@@ -78,15 +171,29 @@ public class ApplovinAdapter
         this.context = context;
         this.listener = listener;
 
-        if ( !initialized )
+        if ( initialized )
         {
-            AppLovinSdk.initializeSdk( context );
-            AppLovinSdk.getInstance( context ).setPluginVersion( "AdMob-2.2.1" );
-
-            initialized = true;
+            listener.onInitializationSucceeded( this );
+            return;
         }
 
-        listener.onInitializationSucceeded( this );
+        // The SDK is initialized and tagged once per process, in the background unless it was warmed up, so this does not block the main thread
+        AppLovinSdkRegistry.whenReady( null, context, new AppLovinSdkRegistry.SdkReadyListener()
+        {
+            @Override
+            public void onSdkReady(final AppLovinSdk sdk)
+            {
+                initialized = true;
+                listener.onInitializationSucceeded( ApplovinAdapter.this );
+            }
+
+            @Override
+            public void onSdkFailed()
+            {
+                log( ERROR, "Unable to initialize AppLovin rewarded video. SDK failed to initialize." );
+                listener.onInitializationFailed( ApplovinAdapter.this, AdRequest.ERROR_CODE_INTERNAL_ERROR );
+            }
+        } );
     }
 
     @Override
@@ -98,7 +205,9 @@ public class ApplovinAdapter
     @Override
     public void loadAd(final MediationAdRequest adRequest, final Bundle serverParameters, final Bundle networkExtras)
     {
-        log( DEBUG, "Requesting AppLovin rewarded video with networkExtras: " + networkExtras );
+        log( DEBUG, "Requesting AppLovin rewarded video with networkExtras: {}", networkExtras );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_LOAD_REQUESTED, 0 );
+        loadStartMillis = SystemClock.elapsedRealtime();
 
         // Zones support is available on AppLovin SDK 7.5.0 and higher
         final String zoneId;
@@ -111,39 +220,41 @@ public class ApplovinAdapter
             zoneId = DEFAULT_ZONE;
         }
 
-        // Check if incentivized ad for zone already exists
-        if ( GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.containsKey( zoneId ) )
+        // Number of rewarded videos that can be ready or showing at once for the zone
+        final int poolSize = ( networkExtras != null ) ? networkExtras.getInt( "pool_size", DEFAULT_POOL_SIZE ) : DEFAULT_POOL_SIZE;
+
+        // How long a load for the zone may take before failing back to the waterfall
+        if ( networkExtras != null && networkExtras.containsKey( "load_deadline_millis" ) )
         {
-            incentivizedInterstitial = GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.get( zoneId );
+            AppLovinLoadDeadline.setDeadline( AppLovinLatencyStats.FORMAT_REWARDED, zoneId, networkExtras.getLong( "load_deadline_millis", 0 ) );
         }
-        else
+
+        // Check if incentivized ads for zone already exist. The pool size is fixed by the first request for the zone.
+        incentivizedInterstitialPool = GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.get( zoneId );
+        if ( incentivizedInterstitialPool == null )
         {
-            // If this is a default Zone, create the incentivized ad normally
-            if ( DEFAULT_ZONE.equals( zoneId ) )
-            {
-                incentivizedInterstitial = AppLovinIncentivizedInterstitial.create( this.context );
-            }
-            // Otherwise, use the Zones API
-            else
+            final IncentivizedInterstitialPool newPool = new IncentivizedInterstitialPool( zoneId, AppLovinSdkRegistry.getSdk( this.context ), Math.max( 1, Math.min( poolSize, MAX_POOL_SIZE ) ) );
+            incentivizedInterstitialPool = GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.putIfAbsent( zoneId, newPool );
+            if ( incentivizedInterstitialPool == null )
             {
-                incentivizedInterstitial = AppLovinIncentivizedInterstitial.create( zoneId, AppLovinSdk.getInstance( this.context ) );
+                incentivizedInterstitialPool = newPool;
             }
-
-            GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.put( zoneId, incentivizedInterstitial );
         }
 
-        incentivizedInterstitial.preload( this );
+        loadDeadline.start( AppLovinLoadDeadline.getDeadline( AppLovinLatencyStats.FORMAT_REWARDED, zoneId ) );
+        incentivizedInterstitialPool.load( this );
     }
 
     @Override
     public void showVideo()
     {
-        if ( incentivizedInterstitial.isAdReadyToDisplay() )
-        {
-            fullyWatched = false;
-            reward = null;
+        fullyWatched = false;
+        reward = null;
+        showStartMillis = SystemClock.elapsedRealtime();
 
-            incentivizedInterstitial.show( context, null, this, this, this, this );
+        if ( incentivizedInterstitialPool != null && incentivizedInterstitialPool.show( this, context ) )
+        {
+            log( DEBUG, "Showing rewarded video" );
         }
         else
         {
@@ -166,7 +277,7 @@ public class ApplovinAdapter
     {
         if ( context != null )
         {
-            log( DEBUG, "Context changed: " + context );
+            log( DEBUG, "Context changed: {}", context );
             this.context = context;
         }
     }
@@ -178,31 +289,30 @@ public class ApplovinAdapter
     @Override
     public void adReceived(final AppLovinAd ad)
     {
-        log( DEBUG, "Rewarded video did load ad: " + ad.getAdIdNumber() );
-
-        runOnUiThread( new Runnable()
+        if ( !loadDeadline.finish() )
         {
-            @Override
-            public void run()
-            {
-                listener.onAdLoaded( ApplovinAdapter.this );
-            }
-        } );
+            log( DEBUG, "Rewarded video loaded ad: {} after its deadline, keeping it for the next request", ad.getAdIdNumber() );
+            return;
+        }
+
+        log( DEBUG, "Rewarded video did load ad: {}", ad.getAdIdNumber() );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_LOADED, ad.getAdIdNumber() );
+        recordLatency( loadServedFromPool ? AppLovinLatencyStats.PHASE_LOAD_CACHE_HIT : AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, loadStartMillis );
+        AppLovinMainThreadDispatcher.dispatch( adLoadedEvent );
     }
 
     @Override
     public void failedToReceiveAd(final int errorCode)
     {
-        log( DEBUG, "Rewarded video failed to load with error: " + errorCode );
+        // The request already failed when its deadline passed
+        if ( !loadDeadline.finish() ) return;
 
-        runOnUiThread( new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                listener.onAdFailedToLoad( ApplovinAdapter.this, toAdMobErrorCode( errorCode ) );
-            }
-        } );
+        log( DEBUG, "Rewarded video failed to load with error: {}", errorCode );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, errorCode );
+        recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED, loadStartMillis );
+
+        loadErrorCode = errorCode;
+        AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
     }
 
     //
@@ -213,21 +323,17 @@ public class ApplovinAdapter
     public void adDisplayed(final AppLovinAd ad)
     {
         log( DEBUG, "Rewarded video displayed" );
-        listener.onAdOpened( this );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_DISPLAYED, ad.getAdIdNumber() );
+        recordLatency( AppLovinLatencyStats.PHASE_SHOW, showStartMillis );
+        AppLovinMainThreadDispatcher.dispatch( adOpenedEvent );
     }
 
     @Override
     public void adHidden(final AppLovinAd ad)
     {
         log( DEBUG, "Rewarded video dismissed" );
-
-        if ( fullyWatched && reward != null )
-        {
-            log( DEBUG, "Rewarded " + reward.getAmount() + " " + reward.getType() );
-            listener.onRewarded( this, reward );
-        }
-
-        listener.onAdClosed( this );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_HIDDEN, ad.getAdIdNumber() );
+        AppLovinMainThreadDispatcher.dispatch( adClosedEvent );
     }
 
     //
@@ -238,9 +344,8 @@ public class ApplovinAdapter
     public void adClicked(final AppLovinAd ad)
     {
         log( DEBUG, "Rewarded video clicked" );
-
-        listener.onAdClicked( this );
-        listener.onAdLeftApplication( this );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_CLICKED, ad.getAdIdNumber() );
+        AppLovinMainThreadDispatcher.dispatch( adClickedEvent );
     }
 
     //
@@ -251,13 +356,13 @@ public class ApplovinAdapter
     public void videoPlaybackBegan(AppLovinAd ad)
     {
         log( DEBUG, "Rewarded video playback began" );
-        listener.onVideoStarted( this );
+        AppLovinMainThreadDispatcher.dispatch( videoStartedEvent );
     }
 
     @Override
     public void videoPlaybackEnded(AppLovinAd ad, double percentViewed, boolean fullyWatched)
     {
-        log( DEBUG, "Rewarded video playback ended at playback percent: " + percentViewed );
+        log( DEBUG, "Rewarded video playback ended at playback percent: {}", percentViewed );
         this.fullyWatched = fullyWatched;
     }
 
@@ -268,19 +373,19 @@ public class ApplovinAdapter
     @Override
     public void userOverQuota(final AppLovinAd appLovinAd, final Map map)
     {
-        log( ERROR, "Rewarded video validation request for ad did exceed quota with response: " + map );
+        log( ERROR, "Rewarded video validation request for ad did exceed quota with response: {}", map );
     }
 
     @Override
     public void validationRequestFailed(final AppLovinAd appLovinAd, final int errorCode)
     {
-        log( ERROR, "Rewarded video validation request for ad failed with error code: " + errorCode );
+        log( ERROR, "Rewarded video validation request for ad failed with error code: {}", errorCode );
     }
 
     @Override
     public void userRewardRejected(final AppLovinAd appLovinAd, final Map map)
     {
-        log( ERROR, "Rewarded video validation request was rejected with response: " + map );
+        log( ERROR, "Rewarded video validation request was rejected with response: {}", map );
     }
 
     @Override
@@ -296,7 +401,7 @@ public class ApplovinAdapter
         final String amountStr = (String) map.get( "amount" );
         final int amount = (int) Double.parseDouble( amountStr ); // AppLovin returns amount as double
 
-        log( DEBUG, "Verified " + amount + " " + currency );
+        log( DEBUG, "Verified {} {}", amount, currency );
 
         reward = new AppLovinRewardItem( amount, currency );
     }
@@ -305,12 +410,25 @@ public class ApplovinAdapter
     // Utility Methods
     //
 
+    private void recordLatency(final int phase, final long startMillis)
+    {
+        final String zoneId = ( incentivizedInterstitialPool != null ) ? incentivizedInterstitialPool.zoneId : DEFAULT_ZONE;
+        AppLovinLatencyStats.record( AppLovinLatencyStats.FORMAT_REWARDED, zoneId, phase, SystemClock.elapsedRealtime() - startMillis );
+    }
+
     private static void log(final int priority, final String message)
     {
-        if ( LOGGING_ENABLED )
-        {
-            Log.println( priority, "AppLovinRewardedVideo", message );
-        }
+        AppLovinAdapterLogger.log( priority, TAG, message );
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
     }
 
     private static int toAdMobErrorCode(final int applovinErrorCode)
@@ -329,6 +447,367 @@ public class ApplovinAdapter
         }
     }
 
+    /**
+     * A zone's pool of `AppLovinIncentivizedInterstitial`s, shared by all instances of the adapter.
+     * <p>
+     * Each slot holds at most one ad. As soon as a slot's video starts playing, the next idle slot starts preloading, so another rewarded video
+     * is ready by the time the current one is dismissed.
+     */
+    private static final class IncentivizedInterstitialPool
+    {
+        private final String                         zoneId;
+        private final AppLovinSdk                    sdk;
+        private final IncentivizedInterstitialSlot[] slots; // Lazily populated, guarded by this
+        private final AppLovinCircuitBreaker         circuitBreaker;
+
+        private IncentivizedInterstitialPool(final String zoneId, final AppLovinSdk sdk, final int size)
+        {
+            this.zoneId = zoneId;
+            this.sdk = sdk;
+            this.slots = new IncentivizedInterstitialSlot[size];
+            this.circuitBreaker = AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_REWARDED, sdk, zoneId );
+        }
+
+        private boolean hasReadySlot()
+        {
+            return findSlot( SLOT_READY ) != null;
+        }
+
+        /**
+         * Notifies the adapter right away if any slot has an ad ready, otherwise has it wait on a slot that is preloading, starting one if needed.
+         */
+        private void load(final ApplovinAdapter adapter)
+        {
+            IncentivizedInterstitialSlot slot = findSlot( SLOT_READY );
+            adapter.loadServedFromPool = ( slot != null );
+
+            if ( slot == null ) slot = findSlot( SLOT_PRELOADING );
+            if ( slot == null )
+            {
+                slot = findSlot( SLOT_IDLE );
+
+                // Only an idle slot goes to the network, which is skipped while the zone keeps failing
+                if ( slot != null && !circuitBreaker.allowRequest() )
+                {
+                    log( DEBUG, "Circuit breaker for zone: {{}} is open", zoneId );
+                    adapter.failedToReceiveAd( circuitBreaker.getErrorCode() );
+
+                    return;
+                }
+            }
+
+            if ( slot != null )
+            {
+                slot.load( adapter );
+            }
+            else
+            {
+                log( ERROR, "All rewarded video slots for zone: {{}} are showing", zoneId );
+                adapter.failedToReceiveAd( AppLovinErrorCodes.UNSPECIFIED_ERROR );
+            }
+        }
+
+        /**
+         * Shows the ad of the first ready slot.
+         *
+         * @return Whether an ad was ready to be shown.
+         */
+        private boolean show(final ApplovinAdapter adapter, final Context context)
+        {
+            final IncentivizedInterstitialSlot slot = findSlot( SLOT_READY );
+            if ( slot == null ) return false;
+
+            slot.show( adapter, context );
+            return true;
+        }
+
+        /**
+         * Starts preloading an idle slot while the given slot is showing, unless another slot is already ready or preloading.
+         */
+        private void preloadNext(final IncentivizedInterstitialSlot showingSlot)
+        {
+            if ( findSlot( SLOT_READY ) != null || findSlot( SLOT_PRELOADING ) != null ) return;
+
+            // Preloads once conditions allow, e.g. back online or charging
+            if ( AppLovinPrefetchScheduler.getPrefetchLimit() == 0 )
+            {
+                AppLovinPrefetchScheduler.defer( "rewarded/" + sdk.getSdkKey() + "/" + zoneId, new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        preloadNext( null );
+                    }
+                } );
+
+                return;
+            }
+
+            final IncentivizedInterstitialSlot slot = findSlot( SLOT_IDLE );
+            if ( slot != null && slot != showingSlot && circuitBreaker.allowRequest() )
+            {
+                log( DEBUG, "Preloading next rewarded video for zone: {{}}", zoneId );
+                slot.preload();
+            }
+        }
+
+        private IncentivizedInterstitialSlot findSlot(final int state)
+        {
+            for ( int i = 0; i < slots.length; i++ )
+            {
+                final IncentivizedInterstitialSlot slot = getSlot( i, state == SLOT_IDLE );
+                if ( slot != null && slot.getState() == state )
+                {
+                    return slot;
+                }
+            }
+
+            return null;
+        }
+
+        private synchronized IncentivizedInterstitialSlot getSlot(final int index, final boolean create)
+        {
+            if ( slots[index] == null && create )
+            {
+                final AppLovinIncentivizedInterstitial incentivizedInterstitial;
+
+                // If this is a default Zone, create the incentivized ad normally
+                if ( DEFAULT_ZONE.equals( zoneId ) )
+                {
+                    incentivizedInterstitial = AppLovinIncentivizedInterstitial.create( sdk );
+                }
+                // Otherwise, use the Zones API
+                else
+                {
+                    incentivizedInterstitial = AppLovinIncentivizedInterstitial.create( zoneId, sdk );
+                }
+
+                slots[index] = new IncentivizedInterstitialSlot( this, incentivizedInterstitial );
+            }
+
+            return slots[index];
+        }
+    }
+
+    /**
+     * A single `AppLovinIncentivizedInterstitial` of a zone's pool, along with the adapters waiting on it.
+     * <p>
+     * The slot is the only listener ever registered with the underlying instance. Load events are fanned out to every adapter waiting for the
+     * ad to load, while display, click, playback and reward events are routed to the adapter that showed the ad they refer to.
+     */
+    private static final class IncentivizedInterstitialSlot
+            implements AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdClickListener, AppLovinAdVideoPlaybackListener, AppLovinAdRewardListener
+    {
+        private final IncentivizedInterstitialPool     pool;
+        private final AppLovinIncentivizedInterstitial incentivizedInterstitial;
+
+        private final List<ApplovinAdapter>                loadWaiters = new ArrayList<ApplovinAdapter>(); // Guarded by this
+        private final ConcurrentMap<Long, ApplovinAdapter> adOwners    = new ConcurrentHashMap<Long, ApplovinAdapter>();
+
+        private          boolean         preloading; // Guarded by this
+        private volatile boolean         showing;
+        private volatile AppLovinAd      loadedAd;
+        private volatile ApplovinAdapter lastShowingAdapter;
+
+        private IncentivizedInterstitialSlot(final IncentivizedInterstitialPool pool, final AppLovinIncentivizedInterstitial incentivizedInterstitial)
+        {
+            this.pool = pool;
+            this.incentivizedInterstitial = incentivizedInterstitial;
+        }
+
+        private synchronized int getState()
+        {
+            if ( showing ) return SLOT_SHOWING;
+            if ( preloading ) return SLOT_PRELOADING;
+            if ( loadedAd != null && incentivizedInterstitial.isAdReadyToDisplay() ) return SLOT_READY;
+
+            return SLOT_IDLE;
+        }
+
+        /**
+         * Notifies the adapter right away if an ad is ready, otherwise waits on the in-flight preload, starting one if needed.
+         */
+        private void load(final ApplovinAdapter adapter)
+        {
+            final AppLovinAd readyAd;
+            boolean shouldPreload = false;
+
+            synchronized ( this )
+            {
+                readyAd = ( !showing && loadedAd != null && incentivizedInterstitial.isAdReadyToDisplay() ) ? loadedAd : null;
+                if ( readyAd == null )
+                {
+                    loadWaiters.add( adapter );
+
+                    if ( !preloading )
+                    {
+                        preloading = true;
+                        shouldPreload = true;
+                    }
+                }
+            }
+
+            if ( readyAd != null )
+            {
+                adapter.adReceived( readyAd );
+            }
+            else if ( shouldPreload )
+            {
+                incentivizedInterstitial.preload( this );
+            }
+        }
+
+        /**
+         * Preloads an ad without any adapter waiting on it.
+         */
+        private void preload()
+        {
+            synchronized ( this )
+            {
+                if ( preloading || showing ) return;
+
+                preloading = true;
+            }
+
+            incentivizedInterstitial.preload( this );
+        }
+
+        private void show(final ApplovinAdapter adapter, final Context context)
+        {
+            final AppLovinAd ad = loadedAd;
+            if ( ad != null )
+            {
+                adOwners.put( ad.getAdIdNumber(), adapter );
+            }
+            lastShowingAdapter = adapter;
+            showing = true;
+
+            incentivizedInterstitial.show( context, null, this, this, this, this );
+        }
+
+        private ApplovinAdapter getOwner(final AppLovinAd ad)
+        {
+            final ApplovinAdapter owner = ( ad != null ) ? adOwners.get( ad.getAdIdNumber() ) : null;
+            return ( owner != null ) ? owner : lastShowingAdapter;
+        }
+
+        private List<ApplovinAdapter> takeLoadWaiters()
+        {
+            synchronized ( this )
+            {
+                preloading = false;
+
+                final List<ApplovinAdapter> waiters = new ArrayList<ApplovinAdapter>( loadWaiters );
+                loadWaiters.clear();
+
+                return waiters;
+            }
+        }
+
+        @Override
+        public void adReceived(final AppLovinAd ad)
+        {
+            pool.circuitBreaker.onSuccess();
+            loadedAd = ad;
+
+            for ( final ApplovinAdapter waiter : takeLoadWaiters() )
+            {
+                waiter.adReceived( ad );
+            }
+        }
+
+        @Override
+        public void failedToReceiveAd(final int errorCode)
+        {
+            pool.circuitBreaker.onFailure( errorCode );
+
+            for ( final ApplovinAdapter waiter : takeLoadWaiters() )
+            {
+                waiter.failedToReceiveAd( errorCode );
+            }
+        }
+
+        @Override
+        public void adDisplayed(final AppLovinAd ad)
+        {
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.adDisplayed( ad );
+        }
+
+        @Override
+        public void adHidden(final AppLovinAd ad)
+        {
+            final ApplovinAdapter owner = getOwner( ad );
+
+            if ( ad != null ) adOwners.remove( ad.getAdIdNumber() );
+            loadedAd = null;
+            showing = false;
+
+            if ( owner != null ) owner.adHidden( ad );
+        }
+
+        @Override
+        public void adClicked(final AppLovinAd ad)
+        {
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.adClicked( ad );
+        }
+
+        @Override
+        public void videoPlaybackBegan(final AppLovinAd ad)
+        {
+            // Get the next rewarded video ready while this one plays
+            pool.preloadNext( this );
+
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.videoPlaybackBegan( ad );
+        }
+
+        @Override
+        public void videoPlaybackEnded(final AppLovinAd ad, final double percentViewed, final boolean fullyWatched)
+        {
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.videoPlaybackEnded( ad, percentViewed, fullyWatched );
+        }
+
+        @Override
+        public void userRewardVerified(final AppLovinAd ad, final Map map)
+        {
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.userRewardVerified( ad, map );
+        }
+
+        @Override
+        public void userOverQuota(final AppLovinAd ad, final Map map)
+        {
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.userOverQuota( ad, map );
+        }
+
+        @Override
+        public void userRewardRejected(final AppLovinAd ad, final Map map)
+        {
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.userRewardRejected( ad, map );
+        }
+
+        @Override
+        public void validationRequestFailed(final AppLovinAd ad, final int errorCode)
+        {
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.validationRequestFailed( ad, errorCode );
+        }
+
+        @Override
+        public void userDeclinedToViewAd(final AppLovinAd ad)
+        {
+            showing = false;
+
+            final ApplovinAdapter owner = getOwner( ad );
+            if ( owner != null ) owner.userDeclinedToViewAd( ad );
+        }
+    }
+
     /**
      * Reward item wrapper class.
      */
@@ -356,19 +835,4 @@ public class ApplovinAdapter
             return amount;
         }
     }
-
-    /**
-     * Performs the given runnable on the main thread.
-     */
-    public static void runOnUiThread(final Runnable runnable)
-    {
-        if ( Looper.myLooper() == Looper.getMainLooper() )
-        {
-            runnable.run();
-        }
-        else
-        {
-            UI_HANDLER.post( runnable );
-        }
-    }
 }
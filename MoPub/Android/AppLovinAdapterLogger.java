@@ -0,0 +1,192 @@
+package YOUR_PACKAGE_NAME;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Logging shared by all AppLovin adapters.
+ * <p>
+ * Messages below the runtime level set with {@link #setLevel(int)} are dropped before any formatting is done. Messages are templates, where each
+ * {@code {}} is replaced by the next argument, so arguments such as server extras are only converted to strings when the message is logged.
+ * <p>
+ * Independently of the level, the last {@link #MAX_RECORDED_EVENTS} adapter events are kept in a fixed-size binary ring buffer, with no strings
+ * or allocations involved, and can be pulled for support with {@link #dumpRecentEvents()}.
+ */
+public final class AppLovinAdapterLogger
+{
+    private static final int DEFAULT_LEVEL = Log.INFO;
+
+    private static volatile int level = DEFAULT_LEVEL;
+
+    // Sources and types of the events recorded in the ring buffer
+    public static final int SOURCE_INTERSTITIAL = 1;
+    public static final int SOURCE_REWARDED     = 2;
+    public static final int SOURCE_BANNER       = 3;
+    public static final int SOURCE_NATIVE       = 4;
+
+    public static final int EVENT_LOAD_REQUESTED = 1;
+    public static final int EVENT_AD_LOADED      = 2; // Value is the ad id
+    public static final int EVENT_AD_LOAD_FAILED = 3; // Value is the AppLovin error code
+    public static final int EVENT_AD_DISPLAYED   = 4; // Value is the ad id
+    public static final int EVENT_AD_CLICKED     = 5; // Value is the ad id
+    public static final int EVENT_AD_HIDDEN      = 6; // Value is the ad id
+
+    private static final String[] SOURCE_NAMES = { "unknown", "interstitial", "rewarded", "banner", "native" };
+    private static final String[] EVENT_NAMES  = { "unknown", "load_requested", "ad_loaded", "ad_load_failed", "ad_displayed", "ad_clicked", "ad_hidden" };
+
+    public static final int MAX_RECORDED_EVENTS = 256;
+
+    // Each event takes one slot in each array: its time, its source and type packed as `source << 16 | event`, and its value
+    private static final long[] EVENT_TIMES  = new long[ MAX_RECORDED_EVENTS ]; // Guarded by itself
+    private static final int[]  EVENT_CODES  = new int[ MAX_RECORDED_EVENTS ];  // Guarded by EVENT_TIMES
+    private static final long[] EVENT_VALUES = new long[ MAX_RECORDED_EVENTS ]; // Guarded by EVENT_TIMES
+
+    private static long recordedEventCount; // Guarded by EVENT_TIMES
+
+    private AppLovinAdapterLogger() {}
+
+    /**
+     * Sets the lowest priority logged by the adapters, e.g. {@link Log#DEBUG} for verbose logs. Defaults to {@link Log#INFO}, so only errors are logged.
+     */
+    public static void setLevel(final int priority)
+    {
+        level = priority;
+    }
+
+    public static int getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * Whether messages of the given priority are logged. Use it to skip building arguments that are expensive on their own.
+     */
+    public static boolean isLoggable(final int priority)
+    {
+        return priority >= level;
+    }
+
+    public static void log(final int priority, final String tag, final String message)
+    {
+        if ( priority < level ) return;
+
+        Log.println( priority, tag, message );
+    }
+
+    public static void log(final int priority, final String tag, final String message, final Throwable th)
+    {
+        if ( priority < level ) return;
+
+        Log.println( priority, tag, message + Log.getStackTraceString( th ) );
+    }
+
+    public static void log(final int priority, final String tag, final String template, final Object arg)
+    {
+        if ( priority < level ) return;
+
+        Log.println( priority, tag, format( template, 1, arg, null ) );
+    }
+
+    public static void log(final int priority, final String tag, final String template, final Object arg, final Throwable th)
+    {
+        if ( priority < level ) return;
+
+        Log.println( priority, tag, format( template, 1, arg, null ) + Log.getStackTraceString( th ) );
+    }
+
+    public static void log(final int priority, final String tag, final String template, final Object arg1, final Object arg2)
+    {
+        if ( priority < level ) return;
+
+        Log.println( priority, tag, format( template, 2, arg1, arg2 ) );
+    }
+
+    /**
+     * Replaces the first {@code {}} of the template with the first argument and, if there are two arguments, the second one with the second argument.
+     */
+    private static String format(final String template, final int argCount, final Object arg1, final Object arg2)
+    {
+        final int firstIndex = template.indexOf( "{}" );
+        if ( firstIndex < 0 ) return template;
+
+        final StringBuilder builder = new StringBuilder( template.length() + 64 );
+        builder.append( template, 0, firstIndex ).append( arg1 );
+
+        final int secondIndex = ( argCount > 1 ) ? template.indexOf( "{}", firstIndex + 2 ) : -1;
+        if ( secondIndex < 0 )
+        {
+            builder.append( template, firstIndex + 2, template.length() );
+        }
+        else
+        {
+            builder.append( template, firstIndex + 2, secondIndex ).append( arg2 ).append( template, secondIndex + 2, template.length() );
+        }
+
+        return builder.toString();
+    }
+
+    //
+    // Recorded Events
+    //
+
+    /**
+     * Records an adapter event in the ring buffer, overwriting the oldest one once it is full. This is cheap enough to call on every ad callback.
+     */
+    public static void recordEvent(final int source, final int event, final long value)
+    {
+        final long timeMillis = SystemClock.elapsedRealtime();
+
+        synchronized ( EVENT_TIMES )
+        {
+            final int index = (int) ( recordedEventCount % MAX_RECORDED_EVENTS );
+            EVENT_TIMES[index] = timeMillis;
+            EVENT_CODES[index] = ( source << 16 ) | event;
+            EVENT_VALUES[index] = value;
+
+            recordedEventCount++;
+        }
+    }
+
+    /**
+     * Returns the recorded adapter events, oldest first, one per line, e.g. for attaching to a support request.
+     */
+    public static String dumpRecentEvents()
+    {
+        final long[] times = new long[ MAX_RECORDED_EVENTS ];
+        final int[] codes = new int[ MAX_RECORDED_EVENTS ];
+        final long[] values = new long[ MAX_RECORDED_EVENTS ];
+        final long count;
+
+        // Copy the buffer out, so the lock is not held while formatting
+        synchronized ( EVENT_TIMES )
+        {
+            System.arraycopy( EVENT_TIMES, 0, times, 0, MAX_RECORDED_EVENTS );
+            System.arraycopy( EVENT_CODES, 0, codes, 0, MAX_RECORDED_EVENTS );
+            System.arraycopy( EVENT_VALUES, 0, values, 0, MAX_RECORDED_EVENTS );
+            count = recordedEventCount;
+        }
+
+        final long nowMillis = SystemClock.elapsedRealtime();
+        final int size = (int) Math.min( count, MAX_RECORDED_EVENTS );
+        final StringBuilder builder = new StringBuilder( size * 48 );
+
+        for ( long i = count - size; i < count; i++ )
+        {
+            final int index = (int) ( i % MAX_RECORDED_EVENTS );
+            final int source = codes[index] >>> 16;
+            final int event = codes[index] & 0xFFFF;
+
+            builder.append( '-' ).append( nowMillis - times[index] ).append( "ms " )
+                    .append( nameOf( SOURCE_NAMES, source ) ).append( ' ' )
+                    .append( nameOf( EVENT_NAMES, event ) ).append( ' ' )
+                    .append( values[index] ).append( '\n' );
+        }
+
+        return builder.toString();
+    }
+
+    private static String nameOf(final String[] names, final int index)
+    {
+        return ( index > 0 && index < names.length ) ? names[index] : names[0];
+    }
+}
@@ -0,0 +1,258 @@
+package YOUR_PACKAGE_NAME;
+
+import android.os.SystemClock;
+
+import com.applovin.sdk.AppLovinErrorCodes;
+import com.applovin.sdk.AppLovinSdk;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static android.util.Log.DEBUG;
+
+/**
+ * A circuit breaker per ad format, SDK key and zone, so a zone that keeps failing with {@link AppLovinErrorCodes#NO_FILL} or
+ * {@link AppLovinErrorCodes#NO_NETWORK} fails mediation requests right away instead of doing a network round trip for each of them.
+ * <p>
+ * A breaker opens after a run of consecutive failures with the same error code, {@link #DEFAULT_NO_FILL_THRESHOLD} no fills or
+ * {@link #DEFAULT_NO_NETWORK_THRESHOLD} network errors by default. While open, {@link #allowRequest()} refuses requests, which fail with the error
+ * that opened the breaker. Once its backoff passes, the breaker lets a single probe request through: a fill closes it, and a failure opens it again
+ * for twice as long, up to the maximum backoff.
+ */
+public final class AppLovinCircuitBreaker
+{
+    private static final String TAG = "AppLovinCircuitBreaker";
+
+    public static final int  DEFAULT_NO_FILL_THRESHOLD      = 5;
+    public static final int  DEFAULT_NO_NETWORK_THRESHOLD   = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis( 30 );
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS     = TimeUnit.MINUTES.toMillis( 10 );
+
+    private static final int STATE_CLOSED    = 0;
+    private static final int STATE_OPEN      = 1;
+    private static final int STATE_HALF_OPEN = 2;
+
+    // Breakers keyed by format, SDK key and zone
+    private static final ConcurrentMap<String, AppLovinCircuitBreaker> BREAKERS = new ConcurrentHashMap<String, AppLovinCircuitBreaker>();
+
+    private static volatile int  noFillThreshold      = DEFAULT_NO_FILL_THRESHOLD;
+    private static volatile int  noNetworkThreshold   = DEFAULT_NO_NETWORK_THRESHOLD;
+    private static volatile long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+    private static volatile long maxBackoffMillis     = DEFAULT_MAX_BACKOFF_MILLIS;
+
+    private final String name;
+    private final int    format;
+    private final String sdkKey;
+    private final String zoneId;
+
+    // Guarded by this
+    private int  state = STATE_CLOSED;
+    private int  failureErrorCode;     // The error code of the current run of failures
+    private int  failureCount;         // The length of the current run of failures
+    private long backoffMillis;        // How long the breaker stays open this time
+    private long nextProbeMillis;      // When the breaker lets the next probe through, while open or half-open
+
+    private AppLovinCircuitBreaker(final String name, final int format, final String sdkKey, final String zoneId)
+    {
+        this.name = name;
+        this.format = format;
+        this.sdkKey = sdkKey;
+        this.zoneId = zoneId;
+
+        // Picks up where the previous session left off if the zone's breaker was still open on no fills, so it does not have to fail its way there again
+        final long[] openCircuitBreaker = AppLovinZoneStatsStore.getOpenCircuitBreaker( format, sdkKey, zoneId );
+        if ( openCircuitBreaker != null && openCircuitBreaker[0] == AppLovinErrorCodes.NO_FILL )
+        {
+            state = STATE_OPEN;
+            failureErrorCode = (int) openCircuitBreaker[0];
+            backoffMillis = openCircuitBreaker[1];
+            nextProbeMillis = SystemClock.elapsedRealtime() + openCircuitBreaker[2];
+        }
+    }
+
+    /**
+     * Sets how many consecutive failures with the given error code open a breaker. A threshold of 0 never opens it for that error.
+     *
+     * @param errorCode Either {@link AppLovinErrorCodes#NO_FILL} or {@link AppLovinErrorCodes#NO_NETWORK}.
+     */
+    public static void setFailureThreshold(final int errorCode, final int threshold)
+    {
+        if ( errorCode == AppLovinErrorCodes.NO_FILL )
+        {
+            noFillThreshold = Math.max( 0, threshold );
+        }
+        else if ( errorCode == AppLovinErrorCodes.NO_NETWORK )
+        {
+            noNetworkThreshold = Math.max( 0, threshold );
+        }
+    }
+
+    /**
+     * Sets how long, in milliseconds, a breaker stays open the first time, and the most it stays open after failed probes.
+     */
+    public static void setBackoff(final long initialBackoffMillis, final long maxBackoffMillis)
+    {
+        AppLovinCircuitBreaker.initialBackoffMillis = Math.max( 0, initialBackoffMillis );
+        AppLovinCircuitBreaker.maxBackoffMillis = Math.max( AppLovinCircuitBreaker.initialBackoffMillis, maxBackoffMillis );
+    }
+
+    /**
+     * @param format One of the {@code AppLovinLatencyStats.FORMAT_*} constants.
+     *
+     * @return The breaker of the given ad format, SDK and zone.
+     */
+    public static AppLovinCircuitBreaker get(final int format, final AppLovinSdk sdk, final String zoneId)
+    {
+        final String sdkKey = ( sdk != null && sdk.getSdkKey() != null ) ? sdk.getSdkKey() : "";
+        final String zone = ( zoneId != null ) ? zoneId : "";
+        final String name = format + ":" + sdkKey + ":" + zone;
+
+        AppLovinCircuitBreaker breaker = BREAKERS.get( name );
+        if ( breaker == null )
+        {
+            final AppLovinCircuitBreaker newBreaker = new AppLovinCircuitBreaker( name, format, sdkKey, zone );
+            breaker = BREAKERS.putIfAbsent( name, newBreaker );
+            if ( breaker == null )
+            {
+                breaker = newBreaker;
+            }
+        }
+
+        return breaker;
+    }
+
+    /**
+     * @return Whether a request may load from the network. If the breaker is open, the request should fail with {@link #getErrorCode()}.
+     */
+    public synchronized boolean allowRequest()
+    {
+        if ( state == STATE_CLOSED ) return true;
+
+        // Also lets another probe through if the last one never reported back, e.g. as its request was abandoned
+        final long nowMillis = SystemClock.elapsedRealtime();
+        if ( nowMillis < nextProbeMillis ) return false;
+
+        log( DEBUG, "Probing zone: {}", name );
+
+        state = STATE_HALF_OPEN;
+        nextProbeMillis = nowMillis + backoffMillis;
+
+        return true;
+    }
+
+    /**
+     * @return Whether the breaker is closed, so requests go to the network without probing.
+     */
+    public synchronized boolean isClosed()
+    {
+        return state == STATE_CLOSED;
+    }
+
+    /**
+     * @return The error code that opened the breaker.
+     */
+    public synchronized int getErrorCode()
+    {
+        return failureErrorCode;
+    }
+
+    /**
+     * Records a load that filled, closing the breaker.
+     */
+    public synchronized void onSuccess()
+    {
+        AppLovinZoneStatsStore.recordLoad( format, zoneId, true );
+
+        if ( state != STATE_CLOSED )
+        {
+            log( DEBUG, "Closed circuit breaker for zone: {}", name );
+            AppLovinZoneStatsStore.recordCircuitBreaker( format, sdkKey, zoneId, 0, 0 );
+        }
+
+        state = STATE_CLOSED;
+        failureCount = 0;
+        backoffMillis = 0;
+    }
+
+    /**
+     * Records a failed load, opening the breaker if it completes a run of failures or if it was a probe.
+     */
+    public synchronized void onFailure(final int errorCode)
+    {
+        AppLovinZoneStatsStore.recordLoad( format, zoneId, false );
+
+        if ( state == STATE_HALF_OPEN )
+        {
+            // Only the error codes the breaker opens on keep it open; anything else is left for the next probe to settle
+            if ( getThreshold( errorCode ) > 0 )
+            {
+                failureErrorCode = errorCode;
+                open( Math.min( backoffMillis * 2, maxBackoffMillis ) );
+            }
+
+            return;
+        }
+
+        if ( state == STATE_OPEN ) return;
+
+        if ( errorCode != failureErrorCode )
+        {
+            failureErrorCode = errorCode;
+            failureCount = 0;
+        }
+
+        failureCount++;
+
+        final int threshold = getThreshold( errorCode );
+        if ( threshold > 0 && failureCount >= threshold )
+        {
+            open( initialBackoffMillis );
+        }
+    }
+
+    private void open(final long backoffMillis)
+    {
+        log( DEBUG, "Opened circuit breaker for zone: {} after error: {}", name, failureErrorCode );
+
+        state = STATE_OPEN;
+        this.backoffMillis = backoffMillis;
+        nextProbeMillis = SystemClock.elapsedRealtime() + backoffMillis;
+
+        // Only no fills carry over to the next session. A network error says nothing about the network at the next launch, so it clears what was persisted.
+        if ( failureErrorCode == AppLovinErrorCodes.NO_FILL )
+        {
+            AppLovinZoneStatsStore.recordCircuitBreaker( format, sdkKey, zoneId, failureErrorCode, backoffMillis );
+        }
+        else
+        {
+            AppLovinZoneStatsStore.recordCircuitBreaker( format, sdkKey, zoneId, 0, 0 );
+        }
+    }
+
+    private static int getThreshold(final int errorCode)
+    {
+        if ( errorCode == AppLovinErrorCodes.NO_FILL )
+        {
+            return noFillThreshold;
+        }
+        else if ( errorCode == AppLovinErrorCodes.NO_NETWORK )
+        {
+            return noNetworkThreshold;
+        }
+        else
+        {
+            return 0;
+        }
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
+    }
+}
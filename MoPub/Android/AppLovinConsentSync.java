@@ -0,0 +1,188 @@
+package YOUR_PACKAGE_NAME;
+
+import android.content.Context;
+
+import com.applovin.sdk.AppLovinPrivacySettings;
+import com.applovin.sdk.AppLovinSdk;
+import com.mopub.common.MoPub;
+import com.mopub.common.privacy.ConsentStatus;
+import com.mopub.common.privacy.ConsentStatusChangeListener;
+import com.mopub.common.privacy.PersonalInfoManager;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static android.util.Log.DEBUG;
+
+/**
+ * Passes the user consent from the MoPub SDK to the AppLovin SDK as per GDPR, shared by all AppLovin adapters.
+ * <p>
+ * The consent last passed to AppLovin is cached, so it is only written again when it changes, either when MoPub reports a consent status change
+ * or when an ad request finds a different consent. Writes are persisted by the AppLovin SDK, so they are done on a background thread, in order.
+ * Ad requests wait for a pending write with {@link #afterPendingWrites(AppLovinSdkRegistry.SdkReadyListener)}, so they never load with a stale consent.
+ */
+public final class AppLovinConsentSync
+{
+    private static final String TAG = "AppLovinConsentSync";
+
+    // The consent last passed to AppLovin
+    private static final int CONSENT_UNKNOWN = 0;
+    private static final int CONSENT_GRANTED = 1;
+    private static final int CONSENT_DENIED  = 2;
+
+    private static final AtomicInteger PROPAGATED_CONSENT  = new AtomicInteger( CONSENT_UNKNOWN );
+    private static final AtomicInteger PENDING_WRITE_COUNT = new AtomicInteger();
+    private static final AtomicBoolean SUBSCRIBED          = new AtomicBoolean();
+
+    private static volatile Context applicationContext;
+
+    // A single thread, so consent writes land in the order the consent changed
+    private static final ThreadPoolExecutor CONSENT_EXECUTOR = new ThreadPoolExecutor( 1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            final Thread thread = new Thread( runnable, "AppLovinConsentSync" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
+
+    static
+    {
+        CONSENT_EXECUTOR.allowCoreThreadTimeOut( true );
+    }
+
+    private static final ConsentStatusChangeListener CONSENT_STATUS_CHANGE_LISTENER = new ConsentStatusChangeListener()
+    {
+        @Override
+        public void onConsentStateChange(final ConsentStatus oldConsentStatus, final ConsentStatus newConsentStatus, final boolean canCollectPersonalInformation)
+        {
+            log( DEBUG, "MoPub consent status changed to: {}", newConsentStatus );
+
+            final PersonalInfoManager personalInfoManager = MoPub.getPersonalInformationManager();
+            if ( personalInfoManager != null && personalInfoManager.gdprApplies() )
+            {
+                propagate( canCollectPersonalInformation );
+            }
+        }
+    };
+
+    // Writes the latest consent, so a write queued behind a newer change does not revert it
+    private static final Runnable WRITE_CONSENT = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            try
+            {
+                final boolean hasUserConsent = PROPAGATED_CONSENT.get() == CONSENT_GRANTED;
+                AppLovinPrivacySettings.setHasUserConsent( hasUserConsent, applicationContext );
+
+                log( DEBUG, "Passed user consent to AppLovin: {}", hasUserConsent );
+            }
+            finally
+            {
+                PENDING_WRITE_COUNT.decrementAndGet();
+            }
+        }
+    };
+
+    private AppLovinConsentSync() {}
+
+    /**
+     * Passes the current user consent from the MoPub SDK to AppLovin, if GDPR applies and it changed. Called on every ad request; it only reads
+     * MoPub's in-memory consent state unless the consent changed.
+     */
+    public static void sync(final Context context)
+    {
+        if ( applicationContext == null )
+        {
+            applicationContext = context.getApplicationContext();
+        }
+
+        final PersonalInfoManager personalInfoManager = MoPub.getPersonalInformationManager();
+        if ( personalInfoManager == null ) return;
+
+        // Listen for consent changes made between ad requests, e.g. from the app's consent dialog
+        if ( !SUBSCRIBED.get() && SUBSCRIBED.compareAndSet( false, true ) )
+        {
+            personalInfoManager.subscribeConsentStatusChangeListener( CONSENT_STATUS_CHANGE_LISTENER );
+        }
+
+        if ( personalInfoManager.gdprApplies() )
+        {
+            propagate( personalInfoManager.canCollectPersonalInformation() );
+        }
+    }
+
+    /**
+     * Wraps the listener of an ad request, so the request only continues once the consent writes queued before the SDK was ready have landed.
+     * Without a pending write, the listener is called right away.
+     */
+    public static AppLovinSdkRegistry.SdkReadyListener afterPendingWrites(final AppLovinSdkRegistry.SdkReadyListener listener)
+    {
+        return new AppLovinSdkRegistry.SdkReadyListener()
+        {
+            @Override
+            public void onSdkReady(final AppLovinSdk sdk)
+            {
+                if ( PENDING_WRITE_COUNT.get() == 0 )
+                {
+                    listener.onSdkReady( sdk );
+                    return;
+                }
+
+                log( DEBUG, "Waiting for the pending consent write before loading" );
+
+                final AppLovinMainThreadDispatcher.Event sdkReadyEvent = new AppLovinMainThreadDispatcher.Event()
+                {
+                    @Override
+                    public void run()
+                    {
+                        listener.onSdkReady( sdk );
+                    }
+                };
+
+                // The executor runs in order, so this runs once the pending writes are done. The request continues on the main thread.
+                CONSENT_EXECUTOR.execute( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        AppLovinMainThreadDispatcher.dispatch( sdkReadyEvent );
+                    }
+                } );
+            }
+
+            @Override
+            public void onSdkFailed()
+            {
+                listener.onSdkFailed();
+            }
+        };
+    }
+
+    private static void propagate(final boolean hasUserConsent)
+    {
+        final int consent = hasUserConsent ? CONSENT_GRANTED : CONSENT_DENIED;
+        if ( PROPAGATED_CONSENT.getAndSet( consent ) == consent ) return;
+
+        PENDING_WRITE_COUNT.incrementAndGet();
+        CONSENT_EXECUTOR.execute( WRITE_CONSENT );
+    }
+
+    private static void log(final int priority, final String message)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message );
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+}
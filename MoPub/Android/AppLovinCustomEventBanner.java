@@ -1,11 +1,14 @@
 package YOUR_PACKAGE_NAME;
 
 import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
 import android.text.TextUtils;
-import android.util.Log;
+import android.view.ViewGroup;
+import android.view.ViewParent;
 
 import com.applovin.adview.AppLovinAdView;
 import com.applovin.adview.AppLovinAdViewDisplayErrorCode;
@@ -16,15 +19,18 @@ import com.applovin.sdk.AppLovinAdDisplayListener;
 import com.applovin.sdk.AppLovinAdLoadListener;
 import com.applovin.sdk.AppLovinAdSize;
 import com.applovin.sdk.AppLovinErrorCodes;
-import com.applovin.sdk.AppLovinPrivacySettings;
 import com.applovin.sdk.AppLovinSdk;
-import com.applovin.sdk.AppLovinSdkSettings;
-import com.mopub.common.MoPub;
-import com.mopub.common.privacy.PersonalInfoManager;
 import com.mopub.mobileads.CustomEventBanner;
 import com.mopub.mobileads.MoPubErrorCode;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import static android.util.Log.DEBUG;
 import static android.util.Log.ERROR;
@@ -41,8 +47,7 @@ import static android.util.Log.ERROR;
 public class AppLovinCustomEventBanner
         extends CustomEventBanner
 {
-    private static final boolean LOGGING_ENABLED = true;
-    private static final Handler UI_HANDLER      = new Handler( Looper.getMainLooper() );
+    private static final String TAG = "AppLovinBanner";
 
     private static final int BANNER_STANDARD_HEIGHT         = 50;
     private static final int BANNER_HEIGHT_OFFSET_TOLERANCE = 10;
@@ -52,7 +57,18 @@ public class AppLovinCustomEventBanner
     private static final String AD_WIDTH_KEY  = "com_mopub_ad_width";
     private static final String AD_HEIGHT_KEY = "com_mopub_ad_height";
 
-    private AppLovinSdk sdk;
+    // Released `AppLovinAdView`s per size, reused by later requests instead of allocating a new WebView-backed view on every refresh
+    private static final Map<AppLovinAdSize, List<PooledAdView>> POOLED_AD_VIEWS              = new HashMap<AppLovinAdSize, List<PooledAdView>>(); // Guarded by itself
+    private static final int                                     MAX_POOLED_AD_VIEWS_PER_SIZE = 2;
+    private static       boolean                                 lifecycleCallbacksRegistered; // Guarded by POOLED_AD_VIEWS
+
+    // A map of "SDK Key/Zone/Size" -> the next banner ad, fetched while the current one is displayed when prefetching is enabled
+    private static final ConcurrentMap<String, BannerPrefetch> BANNER_PREFETCHES       = new ConcurrentHashMap<String, BannerPrefetch>();
+    private static final long                                  PREFETCHED_AD_TTL_MILLIS = TimeUnit.MINUTES.toMillis( 30 );
+
+    private AppLovinSdk  sdk;
+    private PooledAdView pooledAdView;
+    private boolean      invalidated;
 
     //
     // MoPub Custom Event Methods
@@ -61,6 +77,7 @@ public class AppLovinCustomEventBanner
     @Override
     protected void loadBanner(final Context context, final CustomEventBannerListener customEventBannerListener, final Map<String, Object> localExtras, final Map<String, String> serverExtras)
     {
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_LOAD_REQUESTED, 0 );
         // SDK versions BELOW 7.1.0 require a instance of an Activity to be passed in as the context
         if ( AppLovinSdk.VERSION_CODE < 710 && !( context instanceof Activity ) )
         {
@@ -70,157 +87,315 @@ public class AppLovinCustomEventBanner
             return;
         }
 
-        log( DEBUG, "Requesting AppLovin banner with serverExtras: " + serverExtras + " and localExtras: " + localExtras );
+        log( DEBUG, "Requesting AppLovin banner with serverExtras: {} and localExtras: {}", serverExtras, localExtras );
 
-        // Pass the user consent from the MoPub SDK as per GDPR
-        PersonalInfoManager personalInfoManager = MoPub.getPersonalInformationManager();
-        if ( personalInfoManager != null && personalInfoManager.gdprApplies() )
-        {
-            boolean canCollectPersonalInfo = personalInfoManager.canCollectPersonalInformation();
-            AppLovinPrivacySettings.setHasUserConsent( canCollectPersonalInfo, context );
-        }
+        // Pass the user consent from the MoPub SDK as per GDPR, only when it changed
+        AppLovinConsentSync.sync( context );
 
         final AppLovinAdSize adSize = appLovinAdSizeFromLocalExtras( localExtras );
         if ( adSize != null )
         {
-            sdk = retrieveSdk( serverExtras, context );
-            sdk.setPluginVersion( "MoPub-3.0.0" );
-
-            final AppLovinAdView adView = new AppLovinAdView( sdk, adSize, context );
-            adView.setAdDisplayListener( new AppLovinAdDisplayListener()
+            // Requests made while the SDK is still warming up continue once it is ready
+            retrieveSdk( serverExtras, context, new AppLovinSdkRegistry.SdkReadyListener()
             {
                 @Override
-                public void adDisplayed(final AppLovinAd ad)
+                public void onSdkReady(final AppLovinSdk sdk)
                 {
-                    log( DEBUG, "Banner displayed" );
+                    if ( invalidated ) return;
+
+                    AppLovinCustomEventBanner.this.sdk = sdk;
+
+                    // Return the view from a previous request before taking one for this request
+                    if ( pooledAdView != null ) releaseAdView( pooledAdView );
+
+                    pooledAdView = acquireAdView( sdk, adSize, context );
+
+                    // Zones support is available on AppLovin SDK 7.5.0 and higher
+                    final String zoneId;
+                    if ( AppLovinSdk.VERSION_CODE >= 750 && serverExtras != null && serverExtras.containsKey( "zone_id" ) )
+                    {
+                        zoneId = serverExtras.get( "zone_id" );
+                    }
+                    else
+                    {
+                        zoneId = null;
+                    }
+
+                    // Prefetching fetches the next ad in the background while this one is displayed, so the next refresh renders it right away
+                    final boolean prefetchEnabled = serverExtras != null && Boolean.parseBoolean( serverExtras.get( "prefetch" ) );
+                    final BannerPrefetch bannerPrefetch = getBannerPrefetch( sdk, zoneId, adSize );
+
+                    // How long a load for the zone may take before failing back to the waterfall
+                    final String serverExtrasLoadDeadline = serverExtras != null ? serverExtras.get( "load_deadline_millis" ) : null;
+                    if ( !TextUtils.isEmpty( serverExtrasLoadDeadline ) )
+                    {
+                        try
+                        {
+                            AppLovinLoadDeadline.setDeadline( AppLovinLatencyStats.FORMAT_BANNER, zoneId, Long.parseLong( serverExtrasLoadDeadline ) );
+                        }
+                        catch ( NumberFormatException ex )
+                        {
+                            log( ERROR, "Invalid load deadline provided: {}", serverExtrasLoadDeadline );
+                        }
+                    }
+
+                    pooledAdView.load( zoneId, bannerPrefetch, prefetchEnabled, customEventBannerListener );
                 }
 
                 @Override
-                public void adHidden(final AppLovinAd ad)
+                public void onSdkFailed()
                 {
-                    log( DEBUG, "Banner dismissed" );
+                    log( ERROR, "Unable to request AppLovin banner. SDK failed to initialize." );
+                    AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.UNSPECIFIED_ERROR );
+
+                    if ( !invalidated ) customEventBannerListener.onBannerFailed( MoPubErrorCode.INTERNAL_ERROR );
                 }
             } );
-            adView.setAdClickListener( new AppLovinAdClickListener()
+        }
+        else
+        {
+            log( ERROR, "Unable to request AppLovin banner" );
+
+            customEventBannerListener.onBannerFailed( MoPubErrorCode.ADAPTER_CONFIGURATION_ERROR );
+        }
+    }
+
+    @Override
+    protected void onInvalidate()
+    {
+        invalidated = true;
+
+        if ( pooledAdView != null )
+        {
+            releaseAdView( pooledAdView );
+            pooledAdView = null;
+        }
+    }
+
+    /**
+     * Destroys all pooled banner views. Views are destroyed along with their activity anyway; call this to release all of them right away.
+     */
+    public static void destroyPooledAdViews()
+    {
+        synchronized ( POOLED_AD_VIEWS )
+        {
+            for ( final List<PooledAdView> pooledAdViews : POOLED_AD_VIEWS.values() )
             {
-                @Override
-                public void adClicked(final AppLovinAd ad)
+                for ( final PooledAdView pooledAdView : pooledAdViews )
                 {
-                    log( DEBUG, "Banner clicked" );
-
-                    customEventBannerListener.onBannerClicked();
-                    customEventBannerListener.onLeaveApplication();
+                    pooledAdView.adView.destroy();
                 }
-            } );
+            }
+
+            POOLED_AD_VIEWS.clear();
+        }
+    }
+
+    //
+    // Ad View Pool
+    //
+
+    /**
+     * Takes a released view of the given size, SDK and context from the pool, or creates a new one if none is available.
+     */
+    private static PooledAdView acquireAdView(final AppLovinSdk sdk, final AppLovinAdSize adSize, final Context context)
+    {
+        synchronized ( POOLED_AD_VIEWS )
+        {
+            purgeFinishedAdViews();
 
-            adView.setAdViewEventListener( new AppLovinAdViewEventListener()
+            final List<PooledAdView> pooledAdViews = POOLED_AD_VIEWS.get( adSize );
+            if ( pooledAdViews != null )
             {
-                @Override
-                public void adOpenedFullscreen(final AppLovinAd appLovinAd, final AppLovinAdView appLovinAdView)
+                final Iterator<PooledAdView> iterator = pooledAdViews.iterator();
+                while ( iterator.hasNext() )
                 {
-                    log( DEBUG, "Banner opened fullscreen" );
-                    customEventBannerListener.onBannerExpanded();
+                    final PooledAdView pooledAdView = iterator.next();
+                    if ( pooledAdView.context == context && pooledAdView.sdk == sdk )
+                    {
+                        iterator.remove();
+
+                        log( DEBUG, "Reusing pooled banner view" );
+                        pooledAdView.adView.resume();
+
+                        return pooledAdView;
+                    }
                 }
+            }
+        }
 
-                @Override
-                public void adClosedFullscreen(final AppLovinAd appLovinAd, final AppLovinAdView appLovinAdView)
+        return new PooledAdView( sdk, new AppLovinAdView( sdk, adSize, context ), context );
+    }
+
+    /**
+     * Detaches the view from its custom event and returns it to the pool, or destroys it if the pool for its size is full, it is still loading, or its activity is finishing or destroyed.
+     */
+    private static void releaseAdView(final PooledAdView pooledAdView)
+    {
+        final AppLovinAdView adView = pooledAdView.adView;
+
+        pooledAdView.listener = null;
+
+        final ViewParent parent = adView.getParent();
+        if ( parent instanceof ViewGroup )
+        {
+            ( (ViewGroup) parent ).removeView( adView );
+        }
+
+        synchronized ( POOLED_AD_VIEWS )
+        {
+            purgeFinishedAdViews();
+
+            if ( !pooledAdView.loading && !isActivityGone( pooledAdView.context ) )
+            {
+                List<PooledAdView> pooledAdViews = POOLED_AD_VIEWS.get( adView.getSize() );
+                if ( pooledAdViews == null )
                 {
-                    log( DEBUG, "Banner closed fullscreen" );
-                    customEventBannerListener.onBannerCollapsed();
+                    pooledAdViews = new ArrayList<PooledAdView>( MAX_POOLED_AD_VIEWS_PER_SIZE );
+                    POOLED_AD_VIEWS.put( adView.getSize(), pooledAdViews );
                 }
 
-                @Override
-                public void adLeftApplication(final AppLovinAd appLovinAd, final AppLovinAdView appLovinAdView)
+                if ( pooledAdViews.size() < MAX_POOLED_AD_VIEWS_PER_SIZE )
                 {
-                    log( DEBUG, "Banner left application" );
+                    pooledAdViews.add( pooledAdView );
+                    adView.pause();
+
+                    registerLifecycleCallbacks( pooledAdView.context );
+
+                    return;
                 }
+            }
+        }
 
-                @Override
-                public void adFailedToDisplay(final AppLovinAd appLovinAd, final AppLovinAdView appLovinAdView, final AppLovinAdViewDisplayErrorCode appLovinAdViewDisplayErrorCode) {}
-            } );
+        adView.destroy();
+    }
 
-            final AppLovinAdLoadListener adLoadListener = new AppLovinAdLoadListener()
+    /**
+     * Destroys pooled views whose activity is finishing or destroyed. Must be called while holding the pool's lock.
+     */
+    private static void purgeFinishedAdViews()
+    {
+        for ( final List<PooledAdView> pooledAdViews : POOLED_AD_VIEWS.values() )
+        {
+            final Iterator<PooledAdView> iterator = pooledAdViews.iterator();
+            while ( iterator.hasNext() )
             {
-                @Override
-                public void adReceived(final AppLovinAd ad)
+                final PooledAdView pooledAdView = iterator.next();
+                if ( isActivityGone( pooledAdView.context ) )
                 {
-                    // Ensure logic is ran on main queue
-                    runOnUiThread( new Runnable()
-                    {
-                        @Override
-                        public void run()
-                        {
-                            adView.renderAd( ad );
-
-                            log( DEBUG, "Successfully loaded banner ad" );
-
-                            try
-                            {
-                                customEventBannerListener.onBannerLoaded( adView );
-                            }
-                            catch ( Throwable th )
-                            {
-                                log( ERROR, "Unable to notify listener of successful ad load.", th );
-                            }
-                        }
-                    } );
+                    iterator.remove();
+                    pooledAdView.adView.destroy();
                 }
+            }
+        }
+    }
 
-                @Override
-                public void failedToReceiveAd(final int errorCode)
+    /**
+     * Destroys the pooled views of the given activity, so they do not hold on to it once it is destroyed, including by a configuration change.
+     */
+    private static void destroyPooledAdViews(final Activity activity)
+    {
+        synchronized ( POOLED_AD_VIEWS )
+        {
+            for ( final List<PooledAdView> pooledAdViews : POOLED_AD_VIEWS.values() )
+            {
+                final Iterator<PooledAdView> iterator = pooledAdViews.iterator();
+                while ( iterator.hasNext() )
                 {
-                    // Ensure logic is ran on main queue
-                    runOnUiThread( new Runnable()
+                    final PooledAdView pooledAdView = iterator.next();
+                    if ( pooledAdView.context == activity )
                     {
-                        @Override
-                        public void run()
-                        {
-                            log( ERROR, "Failed to load banner ad with code: " + errorCode );
-
-                            try
-                            {
-                                customEventBannerListener.onBannerFailed( toMoPubErrorCode( errorCode ) );
-                            }
-                            catch ( Throwable th )
-                            {
-                                log( ERROR, "Unable to notify listener of failure to receive ad.", th );
-                            }
-                        }
-                    } );
+                        iterator.remove();
+                        pooledAdView.adView.destroy();
+                    }
                 }
-            };
-
-            // Zones support is available on AppLovin SDK 7.5.0 and higher
-            final String zoneId;
-            if ( AppLovinSdk.VERSION_CODE >= 750 && serverExtras != null && serverExtras.containsKey( "zone_id" ) )
-            {
-                zoneId = serverExtras.get( "zone_id" );
-            }
-            else
-            {
-                zoneId = null;
             }
+        }
+    }
+
+    /**
+     * Watches the activities of pooled views from the first view pooled, so their views are destroyed along with them rather than on the next
+     * request. Must be called while holding the pool's lock.
+     */
+    private static void registerLifecycleCallbacks(final Context context)
+    {
+        if ( lifecycleCallbacksRegistered || !( context instanceof Activity ) || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH ) return;
 
-            if ( !TextUtils.isEmpty( zoneId ) )
+        final Application application = ( (Activity) context ).getApplication();
+        if ( application == null ) return;
+
+        application.registerActivityLifecycleCallbacks( new Application.ActivityLifecycleCallbacks()
+        {
+            @Override
+            public void onActivityDestroyed(final Activity activity)
             {
-                sdk.getAdService().loadNextAdForZoneId( zoneId, adLoadListener );
+                destroyPooledAdViews( activity );
             }
-            else
+
+            @Override
+            public void onActivityCreated(final Activity activity, final Bundle savedInstanceState) {}
+
+            @Override
+            public void onActivityStarted(final Activity activity) {}
+
+            @Override
+            public void onActivityResumed(final Activity activity) {}
+
+            @Override
+            public void onActivityPaused(final Activity activity) {}
+
+            @Override
+            public void onActivityStopped(final Activity activity) {}
+
+            @Override
+            public void onActivitySaveInstanceState(final Activity activity, final Bundle outState) {}
+        } );
+
+        lifecycleCallbacksRegistered = true;
+    }
+
+    private static boolean isActivityGone(final Context context)
+    {
+        if ( !( context instanceof Activity ) ) return false;
+
+        final Activity activity = (Activity) context;
+        return activity.isFinishing() || ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && activity.isDestroyed() );
+    }
+
+    //
+    // Banner Prefetch
+    //
+
+    private static BannerPrefetch getBannerPrefetch(final AppLovinSdk sdk, final String zoneId, final AppLovinAdSize adSize)
+    {
+        final String key = sdk.getSdkKey() + "/" + ( TextUtils.isEmpty( zoneId ) ? "" : zoneId ) + "/" + adSize.getLabel();
+
+        BannerPrefetch bannerPrefetch = BANNER_PREFETCHES.get( key );
+        if ( bannerPrefetch == null )
+        {
+            final BannerPrefetch newBannerPrefetch = new BannerPrefetch( sdk, zoneId, adSize );
+            bannerPrefetch = BANNER_PREFETCHES.putIfAbsent( key, newBannerPrefetch );
+            if ( bannerPrefetch == null )
             {
-                sdk.getAdService().loadNextAd( adSize, adLoadListener );
+                bannerPrefetch = newBannerPrefetch;
             }
         }
+
+        return bannerPrefetch;
+    }
+
+    private static void loadNextAd(final AppLovinSdk sdk, final String zoneId, final AppLovinAdSize adSize, final AppLovinAdLoadListener listener)
+    {
+        if ( !TextUtils.isEmpty( zoneId ) )
+        {
+            sdk.getAdService().loadNextAdForZoneId( zoneId, listener );
+        }
         else
         {
-            log( ERROR, "Unable to request AppLovin banner" );
-
-            customEventBannerListener.onBannerFailed( MoPubErrorCode.ADAPTER_CONFIGURATION_ERROR );
+            sdk.getAdService().loadNextAd( adSize, listener );
         }
     }
 
-    @Override
-    protected void onInvalidate() {}
-
     //
     // Utility Methods
     //
@@ -242,7 +417,7 @@ public class AppLovinCustomEventBanner
             // We have valid dimensions
             if ( width > 0 && height > 0 )
             {
-                log( DEBUG, "Valid width (" + width + ") and height (" + height + ") provided" );
+                log( DEBUG, "Valid width ({}) and height ({}) provided", width, height );
 
                 // Assume fluid width, and check for height with offset tolerance
                 final int bannerOffset = Math.abs( BANNER_STANDARD_HEIGHT - height );
@@ -267,7 +442,7 @@ public class AppLovinCustomEventBanner
             }
             else
             {
-                log( ERROR, "Invalid width (" + width + ") and height (" + height + ") provided" );
+                log( ERROR, "Invalid width ({}) and height ({}) provided", width, height );
             }
         }
         catch ( Throwable th )
@@ -284,15 +459,22 @@ public class AppLovinCustomEventBanner
 
     private static void log(final int priority, final String message)
     {
-        log( priority, message, null );
+        AppLovinAdapterLogger.log( priority, TAG, message );
     }
 
     private static void log(final int priority, final String message, final Throwable th)
     {
-        if ( LOGGING_ENABLED )
-        {
-            Log.println( priority, "AppLovinBanner", message + ( ( th == null ) ? "" : Log.getStackTraceString( th ) ) );
-        }
+        AppLovinAdapterLogger.log( priority, TAG, message, th );
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
     }
 
     private static MoPubErrorCode toMoPubErrorCode(final int applovinErrorCode)
@@ -320,37 +502,383 @@ public class AppLovinCustomEventBanner
     }
 
     /**
-     * Retrieves the appropriate instance of AppLovin's SDK from the SDK key given in the server parameters, or Android Manifest.
+     * Retrieves the appropriate instance of AppLovin's SDK from the SDK key given in the server parameters, or Android Manifest, once it is ready and any pending consent write has landed.
      */
-    private static AppLovinSdk retrieveSdk(final Map<String, String> serverExtras, final Context context)
+    private static void retrieveSdk(final Map<String, String> serverExtras, final Context context, final AppLovinSdkRegistry.SdkReadyListener listener)
     {
         final String sdkKey = serverExtras != null ? serverExtras.get( "sdk_key" ) : null;
-        final AppLovinSdk sdk;
+        AppLovinSdkRegistry.whenReady( sdkKey, context, AppLovinConsentSync.afterPendingWrites( listener ) );
+    }
+
+    /**
+     * An `AppLovinAdView` along with the listeners bound to it when created. Reusing the view only rebinds the MoPub listener they forward to.
+     */
+    private static final class PooledAdView
+            implements AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdClickListener, AppLovinAdViewEventListener
+    {
+        private final AppLovinSdk    sdk;
+        private final AppLovinAdView adView;
+        private final Context        context;
+
+        private volatile CustomEventBannerListener listener;
+        private volatile BannerPrefetch            bannerPrefetch;
+        private volatile boolean                   loading;
+        private volatile AppLovinAd                loadedAd;
+        private volatile int                       loadErrorCode;
+        private volatile String                    zoneId;
+        private volatile long                      loadStartMillis;
+        private volatile boolean                   loadServedFromPrefetch;
+        private volatile boolean                   prefetchEnabled;
+        private volatile AppLovinCircuitBreaker    circuitBreaker;
+
+        // Listener callbacks, delivered on the main thread
+        private final AppLovinMainThreadDispatcher.Event adLoadedEvent = new AppLovinMainThreadDispatcher.Event()
+        {
+            @Override
+            public void run()
+            {
+                loading = false;
+
+                final AppLovinAd ad = loadedAd;
+                loadedAd = null;
+
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( ad == null || listener == null ) return;
+
+                adView.renderAd( ad );
+
+                log( DEBUG, "Successfully loaded banner ad" );
+                listener.onBannerLoaded( adView );
+
+                // Fetch the next ad while this one is displayed
+                final BannerPrefetch bannerPrefetch = PooledAdView.this.bannerPrefetch;
+                if ( bannerPrefetch != null && prefetchEnabled ) bannerPrefetch.prefetch();
+            }
+        };
+
+        private final AppLovinMainThreadDispatcher.Event adFailedEvent = new AppLovinMainThreadDispatcher.Event()
+        {
+            @Override
+            public void run()
+            {
+                loading = false;
+
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( listener == null ) return;
+
+                log( ERROR, "Failed to load banner ad with code: {}", loadErrorCode );
+                listener.onBannerFailed( toMoPubErrorCode( loadErrorCode ) );
+            }
+        };
+
+        // Fails the current request back to the mediation waterfall once its load deadline passes. The view stays loading until the late ad
+        // arrives, and that ad is kept for the next refresh.
+        private final AppLovinLoadDeadline loadDeadline = new AppLovinLoadDeadline( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.FETCH_AD_TIMEOUT );
+                recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED );
+
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( listener == null ) return;
+
+                log( ERROR, "Banner load timed out" );
+                listener.onBannerFailed( toMoPubErrorCode( AppLovinErrorCodes.FETCH_AD_TIMEOUT ) );
+            }
+        } );
+
+        private final AppLovinMainThreadDispatcher.Event adClickedEvent = new AppLovinMainThreadDispatcher.Event()
+        {
+            @Override
+            public void run()
+            {
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( listener != null )
+                {
+                    listener.onBannerClicked();
+                    listener.onLeaveApplication();
+                }
+            }
+        };
+
+        private final AppLovinMainThreadDispatcher.Event adExpandedEvent = new AppLovinMainThreadDispatcher.Event()
+        {
+            @Override
+            public void run()
+            {
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( listener != null ) listener.onBannerExpanded();
+            }
+        };
 
-        if ( !TextUtils.isEmpty( sdkKey ) )
+        private final AppLovinMainThreadDispatcher.Event adCollapsedEvent = new AppLovinMainThreadDispatcher.Event()
         {
-            sdk = AppLovinSdk.getInstance( sdkKey, new AppLovinSdkSettings(), context );
+            @Override
+            public void run()
+            {
+                final CustomEventBannerListener listener = PooledAdView.this.listener;
+                if ( listener != null ) listener.onBannerCollapsed();
+            }
+        };
+
+        private PooledAdView(final AppLovinSdk sdk, final AppLovinAdView adView, final Context context)
+        {
+            this.sdk = sdk;
+            this.adView = adView;
+            this.context = context;
+
+            adView.setAdDisplayListener( this );
+            adView.setAdClickListener( this );
+            adView.setAdViewEventListener( this );
         }
-        else
+
+        private void load(final String zoneId, final BannerPrefetch bannerPrefetch, final boolean prefetchEnabled, final CustomEventBannerListener listener)
+        {
+            this.listener = listener;
+            this.bannerPrefetch = bannerPrefetch;
+            this.prefetchEnabled = prefetchEnabled;
+            this.zoneId = zoneId;
+
+            loadStartMillis = SystemClock.elapsedRealtime();
+
+            circuitBreaker = AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_BANNER, sdk, zoneId );
+
+            final AppLovinAd prefetchedAd = ( bannerPrefetch != null ) ? bannerPrefetch.poll() : null;
+            loadServedFromPrefetch = ( prefetchedAd != null );
+
+            if ( prefetchedAd != null )
+            {
+                log( DEBUG, "Rendering prefetched banner ad" );
+                adReceived( prefetchedAd );
+            }
+            else if ( !circuitBreaker.allowRequest() )
+            {
+                // Fail right away, without a network round trip, while the zone keeps failing
+                loadErrorCode = circuitBreaker.getErrorCode();
+                AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, loadErrorCode );
+                AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+            }
+            else
+            {
+                loading = true;
+                loadDeadline.start( AppLovinLoadDeadline.getDeadline( AppLovinLatencyStats.FORMAT_BANNER, zoneId ) );
+                loadNextAd( sdk, zoneId, adView.getSize(), this );
+            }
+        }
+
+        private void recordLatency(final int phase)
         {
-            sdk = AppLovinSdk.getInstance( context );
+            AppLovinLatencyStats.record( AppLovinLatencyStats.FORMAT_BANNER, zoneId, phase, SystemClock.elapsedRealtime() - loadStartMillis );
         }
 
-        return sdk;
+        //
+        // Ad Load Listener
+        //
+
+        @Override
+        public void adReceived(final AppLovinAd ad)
+        {
+            // A prefetched ad was already recorded by the prefetch that loaded it
+            if ( !loadServedFromPrefetch ) circuitBreaker.onSuccess();
+
+            if ( !loadDeadline.finish() )
+            {
+                log( DEBUG, "Banner ad loaded after its deadline, keeping it for the next refresh" );
+                loading = false;
+
+                final BannerPrefetch bannerPrefetch = this.bannerPrefetch;
+                if ( bannerPrefetch != null ) bannerPrefetch.offer( ad );
+
+                return;
+            }
+
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOADED, ad.getAdIdNumber() );
+            recordLatency( loadServedFromPrefetch ? AppLovinLatencyStats.PHASE_LOAD_CACHE_HIT : AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS );
+
+            loadedAd = ad;
+            AppLovinMainThreadDispatcher.dispatch( adLoadedEvent );
+        }
+
+        @Override
+        public void failedToReceiveAd(final int errorCode)
+        {
+            circuitBreaker.onFailure( errorCode );
+
+            // The request already failed when its deadline passed
+            if ( !loadDeadline.finish() )
+            {
+                loading = false;
+                return;
+            }
+
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, errorCode );
+            recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED );
+
+            loadErrorCode = errorCode;
+            AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+        }
+
+        //
+        // Ad Display Listener
+        //
+
+        @Override
+        public void adDisplayed(final AppLovinAd ad)
+        {
+            log( DEBUG, "Banner displayed" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_DISPLAYED, ad.getAdIdNumber() );
+        }
+
+        @Override
+        public void adHidden(final AppLovinAd ad)
+        {
+            log( DEBUG, "Banner dismissed" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_HIDDEN, ad.getAdIdNumber() );
+        }
+
+        //
+        // Ad Click Listener
+        //
+
+        @Override
+        public void adClicked(final AppLovinAd ad)
+        {
+            log( DEBUG, "Banner clicked" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_BANNER, AppLovinAdapterLogger.EVENT_AD_CLICKED, ad.getAdIdNumber() );
+            AppLovinMainThreadDispatcher.dispatch( adClickedEvent );
+        }
+
+        //
+        // Ad View Event Listener
+        //
+
+        @Override
+        public void adOpenedFullscreen(final AppLovinAd appLovinAd, final AppLovinAdView appLovinAdView)
+        {
+            log( DEBUG, "Banner opened fullscreen" );
+            AppLovinMainThreadDispatcher.dispatch( adExpandedEvent );
+        }
+
+        @Override
+        public void adClosedFullscreen(final AppLovinAd appLovinAd, final AppLovinAdView appLovinAdView)
+        {
+            log( DEBUG, "Banner closed fullscreen" );
+            AppLovinMainThreadDispatcher.dispatch( adCollapsedEvent );
+        }
+
+        @Override
+        public void adLeftApplication(final AppLovinAd appLovinAd, final AppLovinAdView appLovinAdView)
+        {
+            log( DEBUG, "Banner left application" );
+        }
+
+        @Override
+        public void adFailedToDisplay(final AppLovinAd appLovinAd, final AppLovinAdView appLovinAdView, final AppLovinAdViewDisplayErrorCode appLovinAdViewDisplayErrorCode) {}
     }
 
     /**
-     * Performs the given runnable on the main thread.
+     * The next banner ad for a zone and size, fetched in the background while the current one is displayed so a refresh only has to render it.
      */
-    private static void runOnUiThread(final Runnable runnable)
+    private static final class BannerPrefetch
+            implements AppLovinAdLoadListener
     {
-        if ( Looper.myLooper() == Looper.getMainLooper() )
+        private final AppLovinSdk            sdk;
+        private final String                 zoneId;
+        private final AppLovinAdSize         adSize;
+        private final AppLovinCircuitBreaker circuitBreaker;
+
+        private AppLovinAd prefetchedAd;       // Guarded by this
+        private long       prefetchTimeMillis; // Guarded by this
+        private boolean    fetching;           // Guarded by this
+
+        private BannerPrefetch(final AppLovinSdk sdk, final String zoneId, final AppLovinAdSize adSize)
         {
-            runnable.run();
+            this.sdk = sdk;
+            this.zoneId = zoneId;
+            this.adSize = adSize;
+            this.circuitBreaker = AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_BANNER, sdk, zoneId );
         }
-        else
+
+        /**
+         * Takes the prefetched ad, if there is one and it has not gone stale.
+         */
+        private synchronized AppLovinAd poll()
+        {
+            final AppLovinAd ad = prefetchedAd;
+            prefetchedAd = null;
+
+            if ( ad != null && SystemClock.elapsedRealtime() - prefetchTimeMillis > PREFETCHED_AD_TTL_MILLIS )
+            {
+                log( DEBUG, "Discarding stale prefetched banner ad" );
+                return null;
+            }
+
+            return ad;
+        }
+
+        /**
+         * Keeps an ad that arrived after its request's deadline for the next refresh, unless an ad is already prefetched.
+         */
+        private synchronized void offer(final AppLovinAd ad)
         {
-            UI_HANDLER.post( runnable );
+            if ( prefetchedAd != null ) return;
+
+            prefetchedAd = ad;
+            prefetchTimeMillis = SystemClock.elapsedRealtime();
+        }
+
+        /**
+         * Starts fetching the next ad, unless one is already prefetched or being fetched.
+         */
+        private void prefetch()
+        {
+            synchronized ( this )
+            {
+                if ( fetching || prefetchedAd != null ) return;
+
+                fetching = true;
+            }
+
+            // Saves the round trip while the zone keeps failing, or while conditions do not allow prefetching; the next refresh loads on its own
+            if ( AppLovinPrefetchScheduler.getPrefetchLimit() == 0 || !circuitBreaker.allowRequest() )
+            {
+                synchronized ( this )
+                {
+                    fetching = false;
+                }
+
+                return;
+            }
+
+            log( DEBUG, "Prefetching next banner ad" );
+            loadNextAd( sdk, zoneId, adSize, this );
+        }
+
+        @Override
+        public void adReceived(final AppLovinAd ad)
+        {
+            circuitBreaker.onSuccess();
+
+            synchronized ( this )
+            {
+                prefetchedAd = ad;
+                prefetchTimeMillis = SystemClock.elapsedRealtime();
+                fetching = false;
+            }
+        }
+
+        @Override
+        public void failedToReceiveAd(final int errorCode)
+        {
+            log( ERROR, "Failed to prefetch banner ad with code: {}", errorCode );
+            circuitBreaker.onFailure( errorCode );
+
+            synchronized ( this )
+            {
+                fetching = false;
+            }
         }
     }
 }
@@ -2,10 +2,8 @@ package YOUR_PACKAGE_NAME;
 
 import android.app.Activity;
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
-import android.util.Log;
 
 import com.applovin.adview.AppLovinInterstitialAd;
 import com.applovin.adview.AppLovinInterstitialAdDialog;
@@ -13,21 +11,16 @@ import com.applovin.sdk.AppLovinAd;
 import com.applovin.sdk.AppLovinAdClickListener;
 import com.applovin.sdk.AppLovinAdDisplayListener;
 import com.applovin.sdk.AppLovinAdLoadListener;
-import com.applovin.sdk.AppLovinAdSize;
 import com.applovin.sdk.AppLovinAdVideoPlaybackListener;
 import com.applovin.sdk.AppLovinErrorCodes;
-import com.applovin.sdk.AppLovinPrivacySettings;
 import com.applovin.sdk.AppLovinSdk;
-import com.applovin.sdk.AppLovinSdkSettings;
-import com.mopub.common.MoPub;
-import com.mopub.common.privacy.PersonalInfoManager;
 import com.mopub.mobileads.CustomEventInterstitial;
 import com.mopub.mobileads.MoPubErrorCode;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 
 import static android.util.Log.DEBUG;
 import static android.util.Log.ERROR;
@@ -45,22 +38,88 @@ public class AppLovinCustomEventInterstitial
         extends CustomEventInterstitial
         implements AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdClickListener, AppLovinAdVideoPlaybackListener
 {
-    private static final boolean LOGGING_ENABLED = true;
-    private static final String  DEFAULT_ZONE    = "";
-
-    private static final Handler UI_HANDLER = new Handler( Looper.getMainLooper() );
+    private static final String TAG          = "AppLovinInterstitial";
+    private static final String DEFAULT_ZONE = "";
 
     private AppLovinSdk                     sdk;
     private CustomEventInterstitialListener listener;
     private Context                         context;
 
-    // A map of Zone -> Queue of `AppLovinAd`s to be shared by instances of the custom event.
-    // This prevents skipping of ads as this adapter will be re-created and preloaded
-    // on every ad load regardless if ad was actually displayed or not.
-    private static final Map<String, Queue<AppLovinAd>> GLOBAL_INTERSTITIAL_ADS      = new HashMap<String, Queue<AppLovinAd>>();
-    private static final Object                         GLOBAL_INTERSTITIAL_ADS_LOCK = new Object();
+    private String       zoneId;  // The zone identifier this instance of the custom event is loading for
+    private List<String> zoneIds; // The zones to load from, in order, with `zoneId` first
+    private boolean      parallelZoneLoading;
+
+    private volatile AppLovinInterstitialAdCache.MultiZoneLoad multiZoneLoad;
+    private volatile AppLovinInterstitialAdCache.ReservedAd    reservedAd; // The ad loaded for this request, kept out of the pool until shown
+
+    private volatile long loadStartMillis; // When the current mediation request was made
+    private volatile long showStartMillis; // When the current show call was made
+    private volatile int  loadErrorCode;
+
+    // Fails the current request back to the mediation waterfall once its load deadline passes
+    private final AppLovinLoadDeadline loadDeadline = new AppLovinLoadDeadline( new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            log( ERROR, "Interstitial load timed out for zone: {{}}", zoneId );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.FETCH_AD_TIMEOUT );
+            recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED, loadStartMillis );
+
+            // The loads keep going, and their ads are added to their zone's pool for the next request
+            final AppLovinInterstitialAdCache.MultiZoneLoad multiZoneLoad = AppLovinCustomEventInterstitial.this.multiZoneLoad;
+            if ( multiZoneLoad != null ) multiZoneLoad.abandon();
+
+            loadErrorCode = AppLovinErrorCodes.FETCH_AD_TIMEOUT;
+            AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+        }
+    } );
+
+    // Listener callbacks, delivered on the main thread
+    private final AppLovinMainThreadDispatcher.Event adLoadedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onInterstitialLoaded();
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adFailedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onInterstitialFailed( toMoPubErrorCode( loadErrorCode ) );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adShownEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onInterstitialShown();
+        }
+    };
 
-    private String zoneId; // The zone identifier this instance of the custom event is loading for
+    private final AppLovinMainThreadDispatcher.Event adDismissedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onInterstitialDismissed();
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adClickedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            listener.onLeaveApplication();
+        }
+    };
 
     //
     // MoPub Custom Event Methods
@@ -69,7 +128,9 @@ public class AppLovinCustomEventInterstitial
     @Override
     public void loadInterstitial(final Context context, final CustomEventInterstitialListener listener, final Map<String, Object> localExtras, final Map<String, String> serverExtras)
     {
-        log( DEBUG, "Requesting AppLovin interstitial with serverExtras: " + serverExtras + " and localExtras: " + localExtras );
+        log( DEBUG, "Requesting AppLovin interstitial with serverExtras: {} and localExtras: {}", serverExtras, localExtras );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_LOAD_REQUESTED, 0 );
+        loadStartMillis = SystemClock.elapsedRealtime();
 
         // SDK versions BELOW 7.2.0 require a instance of an Activity to be passed in as the context
         if ( AppLovinSdk.VERSION_CODE < 720 && !( context instanceof Activity ) )
@@ -80,58 +141,146 @@ public class AppLovinCustomEventInterstitial
             return;
         }
 
-        // Pass the user consent from the MoPub SDK as per GDPR
-        PersonalInfoManager personalInfoManager = MoPub.getPersonalInformationManager();
-        if ( personalInfoManager != null && personalInfoManager.gdprApplies() )
-        {
-            boolean canCollectPersonalInfo = personalInfoManager.canCollectPersonalInformation();
-            AppLovinPrivacySettings.setHasUserConsent( canCollectPersonalInfo, context );
-        }
+        // Pass the user consent from the MoPub SDK as per GDPR, only when it changed
+        AppLovinConsentSync.sync( context );
 
         // Store parent objects
         this.listener = listener;
         this.context = context;
 
-        sdk = retrieveSdk( serverExtras, context );
-        sdk.setPluginVersion( "MoPub-3.0.0" );
+        // Zones to load from, in order. Settings below apply to the first one.
+        zoneIds = parseZoneIds( serverExtras );
+        zoneId = zoneIds.get( 0 );
+        parallelZoneLoading = serverExtras != null && Boolean.parseBoolean( serverExtras.get( "parallel_zone_loading" ) );
 
-        // Zones support is available on AppLovin SDK 7.5.0 and higher
-        final String serverExtrasZoneId = serverExtras != null ? serverExtras.get( "zone_id" ) : null;
-        zoneId = ( !TextUtils.isEmpty( serverExtrasZoneId ) && AppLovinSdk.VERSION_CODE >= 750 ) ? serverExtrasZoneId : DEFAULT_ZONE;
+        // Number of ads to keep preloaded for the zone
+        final String serverExtrasPreloadDepth = serverExtras != null ? serverExtras.get( "preload_depth" ) : null;
+        if ( !TextUtils.isEmpty( serverExtrasPreloadDepth ) )
+        {
+            try
+            {
+                AppLovinInterstitialAdCache.setPreloadDepth( zoneId, Integer.parseInt( serverExtrasPreloadDepth ) );
+            }
+            catch ( NumberFormatException ex )
+            {
+                log( ERROR, "Invalid preload depth provided: {}", serverExtrasPreloadDepth );
+            }
+        }
 
-        // Check if we already have a preloaded ad for the given zone
-        final AppLovinAd preloadedAd = dequeueAd( zoneId );
-        if ( preloadedAd != null )
+        // Number of concurrent loads allowed for the zone
+        final String serverExtrasLoadFanOut = serverExtras != null ? serverExtras.get( "load_fan_out" ) : null;
+        if ( !TextUtils.isEmpty( serverExtrasLoadFanOut ) )
         {
-            log( DEBUG, "Found preloaded ad for zone: {" + zoneId + "}" );
-            adReceived( preloadedAd );
+            try
+            {
+                AppLovinInterstitialAdCache.setLoadFanOut( zoneId, Integer.parseInt( serverExtrasLoadFanOut ) );
+            }
+            catch ( NumberFormatException ex )
+            {
+                log( ERROR, "Invalid load fan-out provided: {}", serverExtrasLoadFanOut );
+            }
         }
-        else
+
+        // How long ads cached for the zone stay valid
+        final String serverExtrasAdTtl = serverExtras != null ? serverExtras.get( "ad_ttl_seconds" ) : null;
+        if ( !TextUtils.isEmpty( serverExtrasAdTtl ) )
+        {
+            try
+            {
+                AppLovinInterstitialAdCache.setAdTtl( zoneId, TimeUnit.SECONDS.toMillis( Long.parseLong( serverExtrasAdTtl ) ) );
+            }
+            catch ( NumberFormatException ex )
+            {
+                log( ERROR, "Invalid ad TTL provided: {}", serverExtrasAdTtl );
+            }
+        }
+
+        // How long a load for the zone may take before failing back to the waterfall
+        final String serverExtrasLoadDeadline = serverExtras != null ? serverExtras.get( "load_deadline_millis" ) : null;
+        if ( !TextUtils.isEmpty( serverExtrasLoadDeadline ) )
         {
-            // If this is a default Zone, create the incentivized ad normally
-            if ( DEFAULT_ZONE.equals( zoneId ) )
+            try
             {
-                sdk.getAdService().loadNextAd( AppLovinAdSize.INTERSTITIAL, this );
+                AppLovinLoadDeadline.setDeadline( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId, Long.parseLong( serverExtrasLoadDeadline ) );
             }
-            // Otherwise, use the Zones API
-            else
+            catch ( NumberFormatException ex )
             {
-                sdk.getAdService().loadNextAdForZoneId( zoneId, this );
+                log( ERROR, "Invalid load deadline provided: {}", serverExtrasLoadDeadline );
             }
         }
+
+        // Requests made while the SDK is still warming up continue once it is ready
+        retrieveSdk( serverExtras, context, new AppLovinSdkRegistry.SdkReadyListener()
+        {
+            @Override
+            public void onSdkReady(final AppLovinSdk sdk)
+            {
+                AppLovinCustomEventInterstitial.this.sdk = sdk;
+
+                // Check if we already have an unexpired preloaded ad for one of the zones, in order. It is reserved for this request, with its original load time.
+                for ( final String preloadedZoneId : zoneIds )
+                {
+                    final AppLovinInterstitialAdCache.ReservedAd preloadedAd = AppLovinInterstitialAdCache.reserveAd( preloadedZoneId );
+                    if ( preloadedAd != null )
+                    {
+                        reservedAd = preloadedAd;
+                        zoneId = preloadedZoneId;
+
+                        // A single request, and hit, is recorded for the mediation request however many zones it probed
+                        AppLovinInterstitialAdCache.recordRequest( zoneIds.get( 0 ), true );
+
+                        log( DEBUG, "Found preloaded ad for zone: {{}}", zoneId );
+                        recordLatency( AppLovinLatencyStats.PHASE_LOAD_CACHE_HIT, loadStartMillis );
+                        notifyAdLoaded();
+
+                        return;
+                    }
+                }
+
+                AppLovinInterstitialAdCache.recordRequest( zoneIds.get( 0 ), false );
+
+                loadDeadline.start( AppLovinLoadDeadline.getDeadline( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId ) );
+
+                multiZoneLoad = new AppLovinInterstitialAdCache.MultiZoneLoad( sdk, zoneIds, parallelZoneLoading, AppLovinCustomEventInterstitial.this );
+                multiZoneLoad.load();
+            }
+
+            @Override
+            public void onSdkFailed()
+            {
+                log( ERROR, "Unable to request AppLovin interstitial. SDK failed to initialize." );
+                AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.UNSPECIFIED_ERROR );
+
+                listener.onInterstitialFailed( MoPubErrorCode.INTERNAL_ERROR );
+            }
+        } );
     }
 
     @Override
     public void showInterstitial()
     {
-        final AppLovinAd preloadedAd = dequeueAd( zoneId );
-        if ( preloadedAd != null )
+        final AppLovinInterstitialAdCache.ReservedAd reservedAd = this.reservedAd;
+        this.reservedAd = null;
+
+        if ( reservedAd != null && !reservedAd.isExpired( SystemClock.elapsedRealtime() ) )
         {
+            AppLovinInterstitialAdCache.recordShow( zoneId );
+
+            // Refill the zone's pool while this ad is being shown
+            AppLovinInterstitialAdCache.replenish( sdk, zoneId );
+
             final AppLovinInterstitialAdDialog interstitialAd = AppLovinInterstitialAd.create( sdk, context );
             interstitialAd.setAdDisplayListener( this );
             interstitialAd.setAdClickListener( this );
             interstitialAd.setAdVideoPlaybackListener( this );
-            interstitialAd.showAndRender( preloadedAd );
+
+            showStartMillis = SystemClock.elapsedRealtime();
+            interstitialAd.showAndRender( reservedAd.getAd() );
+        }
+        else if ( reservedAd != null )
+        {
+            log( ERROR, "Failed to show AppLovin interstitial: {} after its TTL elapsed", reservedAd.getAd().getAdIdNumber() );
+            listener.onInterstitialFailed( MoPubErrorCode.NETWORK_INVALID_STATE );
         }
         else
         {
@@ -141,7 +290,14 @@ public class AppLovinCustomEventInterstitial
     }
 
     @Override
-    public void onInvalidate() {}
+    public void onInvalidate()
+    {
+        // An ad that was never shown goes back to the pool for the next request
+        final AppLovinInterstitialAdCache.ReservedAd reservedAd = this.reservedAd;
+        this.reservedAd = null;
+
+        if ( reservedAd != null ) AppLovinInterstitialAdCache.releaseAd( reservedAd );
+    }
 
     //
     // Ad Load Listener
@@ -150,47 +306,45 @@ public class AppLovinCustomEventInterstitial
     @Override
     public void adReceived(final AppLovinAd ad)
     {
-        log( DEBUG, "Interstitial did load ad: " + ad.getAdIdNumber() );
+        // Show the ad from whichever zone filled first
+        final String filledZoneId = multiZoneLoad.getFilledZoneId();
 
-        enqueueAd( ad, zoneId );
-
-        runOnUiThread( new Runnable()
+        if ( !loadDeadline.finish() )
         {
-            @Override
-            public void run()
-            {
-                try
-                {
-                    listener.onInterstitialLoaded();
-                }
-                catch ( Throwable th )
-                {
-                    log( ERROR, "Unable to notify listener of successful ad load.", th );
-                }
-            }
-        } );
+            log( DEBUG, "Interstitial loaded ad: {} after its deadline, keeping it for the next request", ad.getAdIdNumber() );
+            AppLovinInterstitialAdCache.enqueueAd( ad, ( filledZoneId != null ) ? filledZoneId : zoneId );
+
+            return;
+        }
+
+        if ( filledZoneId != null ) zoneId = filledZoneId;
+
+        log( DEBUG, "Interstitial did load ad: {} for zone: {{}}", ad.getAdIdNumber(), zoneId );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_LOADED, ad.getAdIdNumber() );
+        recordLatency( AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, loadStartMillis );
+
+        // Keep the ad for this request until it is shown
+        reservedAd = AppLovinInterstitialAdCache.reserveAd( zoneId, ad );
+        notifyAdLoaded();
+    }
+
+    private void notifyAdLoaded()
+    {
+        AppLovinMainThreadDispatcher.dispatch( adLoadedEvent );
     }
 
     @Override
     public void failedToReceiveAd(final int errorCode)
     {
-        log( ERROR, "Interstitial failed to load with error: " + errorCode );
+        // The request already failed when its deadline passed
+        if ( !loadDeadline.finish() ) return;
 
-        runOnUiThread( new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                try
-                {
-                    listener.onInterstitialFailed( toMoPubErrorCode( errorCode ) );
-                }
-                catch ( Throwable th )
-                {
-                    log( ERROR, "Unable to notify listener of failure to receive ad.", th );
-                }
-            }
-        } );
+        log( ERROR, "Interstitial failed to load with error: {}", errorCode );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, errorCode );
+        recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED, loadStartMillis );
+
+        loadErrorCode = errorCode;
+        AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
     }
 
     //
@@ -201,14 +355,21 @@ public class AppLovinCustomEventInterstitial
     public void adDisplayed(final AppLovinAd appLovinAd)
     {
         log( DEBUG, "Interstitial displayed" );
-        listener.onInterstitialShown();
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_DISPLAYED, appLovinAd.getAdIdNumber() );
+        recordLatency( AppLovinLatencyStats.PHASE_SHOW, showStartMillis );
+        AppLovinMainThreadDispatcher.dispatch( adShownEvent );
     }
 
     @Override
     public void adHidden(final AppLovinAd appLovinAd)
     {
         log( DEBUG, "Interstitial dismissed" );
-        listener.onInterstitialDismissed();
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_HIDDEN, appLovinAd.getAdIdNumber() );
+
+        // Top up the pool in case a preload failed while the ad was showing
+        AppLovinInterstitialAdCache.replenish( sdk, zoneId );
+
+        AppLovinMainThreadDispatcher.dispatch( adDismissedEvent );
     }
 
     //
@@ -219,7 +380,8 @@ public class AppLovinCustomEventInterstitial
     public void adClicked(final AppLovinAd appLovinAd)
     {
         log( DEBUG, "Interstitial clicked" );
-        listener.onLeaveApplication();
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_INTERSTITIAL, AppLovinAdapterLogger.EVENT_AD_CLICKED, appLovinAd.getAdIdNumber() );
+        AppLovinMainThreadDispatcher.dispatch( adClickedEvent );
     }
 
     //
@@ -235,55 +397,31 @@ public class AppLovinCustomEventInterstitial
     @Override
     public void videoPlaybackEnded(final AppLovinAd ad, final double percentViewed, final boolean fullyWatched)
     {
-        log( DEBUG, "Interstitial video playback ended at playback percent: " + percentViewed );
+        log( DEBUG, "Interstitial video playback ended at playback percent: {}", percentViewed );
     }
 
     //
     // Utility Methods
     //
 
-    private static AppLovinAd dequeueAd(final String zoneId)
+    private void recordLatency(final int phase, final long startMillis)
     {
-        synchronized ( GLOBAL_INTERSTITIAL_ADS_LOCK )
-        {
-            AppLovinAd preloadedAd = null;
-
-            final Queue<AppLovinAd> preloadedAds = GLOBAL_INTERSTITIAL_ADS.get( zoneId );
-            if ( preloadedAds != null && !preloadedAds.isEmpty() )
-            {
-                preloadedAd = preloadedAds.poll();
-            }
-
-            return preloadedAd;
-        }
+        AppLovinLatencyStats.record( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId, phase, SystemClock.elapsedRealtime() - startMillis );
     }
 
-    private static void enqueueAd(final AppLovinAd ad, final String zoneId)
+    private static void log(final int priority, final String message)
     {
-        synchronized ( GLOBAL_INTERSTITIAL_ADS_LOCK )
-        {
-            Queue<AppLovinAd> preloadedAds = GLOBAL_INTERSTITIAL_ADS.get( zoneId );
-            if ( preloadedAds == null )
-            {
-                preloadedAds = new LinkedList<AppLovinAd>();
-                GLOBAL_INTERSTITIAL_ADS.put( zoneId, preloadedAds );
-            }
-
-            preloadedAds.offer( ad );
-        }
+        AppLovinAdapterLogger.log( priority, TAG, message );
     }
 
-    private static void log(final int priority, final String message)
+    private static void log(final int priority, final String message, final Object arg)
     {
-        log( priority, message, null );
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
     }
 
-    private static void log(final int priority, final String message, final Throwable th)
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
     {
-        if ( LOGGING_ENABLED )
-        {
-            Log.println( priority, "AppLovinInterstitial", message + ( ( th == null ) ? "" : Log.getStackTraceString( th ) ) );
-        }
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
     }
 
     private static MoPubErrorCode toMoPubErrorCode(final int applovinErrorCode)
@@ -311,37 +449,49 @@ public class AppLovinCustomEventInterstitial
     }
 
     /**
-     * Retrieves the appropriate instance of AppLovin's SDK from the SDK key given in the server parameters, or Android Manifest.
+     * @return The zones to load from, in order: those of the comma-separated `zone_ids` server extra, or else the `zone_id` one, followed by the
+     * default zone if the `fallback_to_default_zone` server extra is set. Never empty.
      */
-    private static AppLovinSdk retrieveSdk(final Map<String, String> serverExtras, final Context context)
+    private static List<String> parseZoneIds(final Map<String, String> serverExtras)
     {
-        final String sdkKey = serverExtras != null ? serverExtras.get( "sdk_key" ) : null;
-        final AppLovinSdk sdk;
+        final List<String> zoneIds = new ArrayList<String>( 2 );
 
-        if ( !TextUtils.isEmpty( sdkKey ) )
+        // Zones support is available on AppLovin SDK 7.5.0 and higher
+        if ( serverExtras != null && AppLovinSdk.VERSION_CODE >= 750 )
         {
-            sdk = AppLovinSdk.getInstance( sdkKey, new AppLovinSdkSettings(), context );
+            final String serverExtrasZoneIds = serverExtras.containsKey( "zone_ids" ) ? serverExtras.get( "zone_ids" ) : serverExtras.get( "zone_id" );
+            if ( !TextUtils.isEmpty( serverExtrasZoneIds ) )
+            {
+                for ( final String serverExtrasZoneId : serverExtrasZoneIds.split( "," ) )
+                {
+                    final String trimmedZoneId = serverExtrasZoneId.trim();
+                    if ( !TextUtils.isEmpty( trimmedZoneId ) && !zoneIds.contains( trimmedZoneId ) )
+                    {
+                        zoneIds.add( trimmedZoneId );
+                    }
+                }
+            }
+
+            if ( Boolean.parseBoolean( serverExtras.get( "fallback_to_default_zone" ) ) && !zoneIds.isEmpty() )
+            {
+                zoneIds.add( DEFAULT_ZONE );
+            }
         }
-        else
+
+        if ( zoneIds.isEmpty() )
         {
-            sdk = AppLovinSdk.getInstance( context );
+            zoneIds.add( DEFAULT_ZONE );
         }
 
-        return sdk;
+        return zoneIds;
     }
 
     /**
-     * Performs the given runnable on the main thread.
+     * Retrieves the appropriate instance of AppLovin's SDK from the SDK key given in the server parameters, or Android Manifest, once it is ready and any pending consent write has landed.
      */
-    private static void runOnUiThread(final Runnable runnable)
+    private static void retrieveSdk(final Map<String, String> serverExtras, final Context context, final AppLovinSdkRegistry.SdkReadyListener listener)
     {
-        if ( Looper.myLooper() == Looper.getMainLooper() )
-        {
-            runnable.run();
-        }
-        else
-        {
-            UI_HANDLER.post( runnable );
-        }
+        final String sdkKey = serverExtras != null ? serverExtras.get( "sdk_key" ) : null;
+        AppLovinSdkRegistry.whenReady( sdkKey, context, AppLovinConsentSync.afterPendingWrites( listener ) );
     }
 }
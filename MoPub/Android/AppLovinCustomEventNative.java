@@ -1,30 +1,31 @@
 package YOUR_PACKAGE_NAME;
 
 import android.content.Context;
-import android.os.Handler;
-import android.os.Looper;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.View;
+import android.widget.ImageView;
 
 import com.applovin.nativeAds.AppLovinNativeAd;
 import com.applovin.nativeAds.AppLovinNativeAdLoadListener;
 import com.applovin.sdk.AppLovinErrorCodes;
 import com.applovin.sdk.AppLovinPostbackListener;
-import com.applovin.sdk.AppLovinPrivacySettings;
 import com.applovin.sdk.AppLovinSdk;
-import com.applovin.sdk.AppLovinSdkSettings;
-import com.mopub.common.MoPub;
-import com.mopub.common.privacy.PersonalInfoManager;
 import com.mopub.nativeads.CustomEventNative;
 import com.mopub.nativeads.NativeErrorCode;
-import com.mopub.nativeads.NativeImageHelper;
 import com.mopub.nativeads.StaticNativeAd;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import static android.util.Log.DEBUG;
 import static android.util.Log.ERROR;
@@ -42,13 +43,87 @@ public class AppLovinCustomEventNative
         extends CustomEventNative
         implements AppLovinNativeAdLoadListener
 {
-    private static final boolean LOGGING_ENABLED = true;
-    private static final Handler UI_HANDLER      = new Handler( Looper.getMainLooper() );
+    private static final String TAG = "AppLovinNative";
+
+    /**
+     * Key of the `StaticNativeAd` extra holding the decoded icon image `Bitmap`, for custom renderers.
+     */
+    public static final String ICON_IMAGE_BITMAP_EXTRA = "icon_image_bitmap";
+
+    /**
+     * Key of the `StaticNativeAd` extra holding the decoded main image `Bitmap`, for custom renderers.
+     */
+    public static final String MAIN_IMAGE_BITMAP_EXTRA = "main_image_bitmap";
+
+    // Number of native ads loaded per network request. Surplus ads are cached for later requests.
+    private static final int DEFAULT_BATCH_SIZE = 1;
+    private static final int MAX_BATCH_SIZE     = 10;
+
+    // A map of SDK Key -> native ads loaded in a batch but not yet served, oldest first
+    private static final ConcurrentMap<String, ArrayDeque<CachedNativeAd>> CACHED_NATIVE_ADS            = new ConcurrentHashMap<String, ArrayDeque<CachedNativeAd>>();
+    private static final int                                               MAX_CACHED_NATIVE_ADS        = MAX_BATCH_SIZE;
+    private static final long                                              DEFAULT_NATIVE_AD_TTL_MILLIS = TimeUnit.HOURS.toMillis( 1 );
+
+    // How long the ad waits on each image before being delivered without it
+    private static final long DEFAULT_ICON_DEADLINE_MILLIS       = TimeUnit.SECONDS.toMillis( 2 );
+    private static final long DEFAULT_MAIN_IMAGE_DEADLINE_MILLIS = TimeUnit.SECONDS.toMillis( 5 );
+
+    /**
+     * Key of the local extra holding the resource id of the `ImageView` the main image is set into once it is loaded, e.g. in progressive mode.
+     */
+    public static final String MAIN_IMAGE_VIEW_ID_EXTRA = "main_image_view_id";
+
+    /**
+     * Keys of the local extras holding the size, in pixels, the icon and main image are displayed at. Images are decoded no larger than needed for it.
+     * The main image defaults to the screen's width, and the icon to its source size.
+     */
+    public static final String ICON_IMAGE_SIZE_EXTRA   = "icon_image_size";
+    public static final String MAIN_IMAGE_WIDTH_EXTRA  = "main_image_width";
+    public static final String MAIN_IMAGE_HEIGHT_EXTRA = "main_image_height";
 
     private AppLovinSdk               sdk;
     private CustomEventNativeListener nativeListener;
     private Context                   context;
 
+    private int     batchSize               = DEFAULT_BATCH_SIZE;
+    private long    nativeAdTtlMillis       = DEFAULT_NATIVE_AD_TTL_MILLIS;
+    private boolean progressive;
+    private long    iconDeadlineMillis      = DEFAULT_ICON_DEADLINE_MILLIS;
+    private long    mainImageDeadlineMillis = DEFAULT_MAIN_IMAGE_DEADLINE_MILLIS;
+    private int     mainImageViewId;
+    private int     iconImageSize;
+    private int     mainImageWidth;
+    private int     mainImageHeight;
+
+    private volatile long loadStartMillis; // When the current mediation request was made
+    private volatile int  loadErrorCode;
+
+    // Fails the current request back to the mediation waterfall once its load deadline passes
+    private final AppLovinLoadDeadline loadDeadline = new AppLovinLoadDeadline( new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            log( ERROR, "Native ad load timed out" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_NATIVE, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.FETCH_AD_TIMEOUT );
+            recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED );
+
+            loadErrorCode = AppLovinErrorCodes.FETCH_AD_TIMEOUT;
+            AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+        }
+    } );
+
+    // Listener callbacks, delivered on the main thread
+    private final AppLovinMainThreadDispatcher.Event adFailedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            final CustomEventNativeListener nativeListener = AppLovinCustomEventNative.this.nativeListener;
+            if ( nativeListener != null ) nativeListener.onNativeAdFailed( toMoPubErrorCode( loadErrorCode ) );
+        }
+    };
+
     //
     // MoPub Custom Event Methods
     //
@@ -56,23 +131,119 @@ public class AppLovinCustomEventNative
     @Override
     public void loadNativeAd(final Context context, final CustomEventNativeListener customEventNativeListener, final Map<String, Object> localExtras, final Map<String, String> serverExtras)
     {
-        log( DEBUG, "Requesting AppLovin native ad with server extras: " + serverExtras );
+        log( DEBUG, "Requesting AppLovin native ad with server extras: {}", serverExtras );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_NATIVE, AppLovinAdapterLogger.EVENT_LOAD_REQUESTED, 0 );
+        loadStartMillis = SystemClock.elapsedRealtime();
 
-        // Pass the user consent from the MoPub SDK as per GDPR
-        PersonalInfoManager personalInfoManager = MoPub.getPersonalInformationManager();
-        if ( personalInfoManager != null && personalInfoManager.gdprApplies() )
-        {
-            boolean canCollectPersonalInfo = personalInfoManager.canCollectPersonalInformation();
-            AppLovinPrivacySettings.setHasUserConsent( canCollectPersonalInfo, context );
-        }
+        // Pass the user consent from the MoPub SDK as per GDPR, only when it changed
+        AppLovinConsentSync.sync( context );
 
         this.context = context;
         this.nativeListener = customEventNativeListener;
 
-        sdk = retrieveSdk( serverExtras, context );
-        sdk.setPluginVersion( "MoPub-3.0.0" );
+        // Number of native ads to load per request, with the surplus served to later requests from memory
+        final String serverExtrasBatchSize = serverExtras != null ? serverExtras.get( "batch_size" ) : null;
+        if ( !TextUtils.isEmpty( serverExtrasBatchSize ) )
+        {
+            try
+            {
+                batchSize = Math.max( 1, Math.min( Integer.parseInt( serverExtrasBatchSize ), MAX_BATCH_SIZE ) );
+            }
+            catch ( NumberFormatException ex )
+            {
+                log( ERROR, "Invalid batch size provided: {}", serverExtrasBatchSize );
+            }
+        }
+
+        // How long surplus native ads stay valid in the cache
+        final String serverExtrasAdTtl = serverExtras != null ? serverExtras.get( "ad_ttl_seconds" ) : null;
+        if ( !TextUtils.isEmpty( serverExtrasAdTtl ) )
+        {
+            try
+            {
+                nativeAdTtlMillis = TimeUnit.SECONDS.toMillis( Long.parseLong( serverExtrasAdTtl ) );
+            }
+            catch ( NumberFormatException ex )
+            {
+                log( ERROR, "Invalid ad TTL provided: {}", serverExtrasAdTtl );
+            }
+        }
+
+        // How long a load may take before failing back to the waterfall
+        final String serverExtrasLoadDeadline = serverExtras != null ? serverExtras.get( "load_deadline_millis" ) : null;
+        if ( !TextUtils.isEmpty( serverExtrasLoadDeadline ) )
+        {
+            try
+            {
+                AppLovinLoadDeadline.setDeadline( AppLovinLatencyStats.FORMAT_NATIVE, null, Long.parseLong( serverExtrasLoadDeadline ) );
+            }
+            catch ( NumberFormatException ex )
+            {
+                log( ERROR, "Invalid load deadline provided: {}", serverExtrasLoadDeadline );
+            }
+        }
+
+        // In progressive mode, the ad is delivered once its icon is ready and the main image follows when loaded
+        progressive = serverExtras != null && Boolean.parseBoolean( serverExtras.get( "progressive" ) );
+        iconDeadlineMillis = parseMillis( serverExtras, "icon_deadline_millis", DEFAULT_ICON_DEADLINE_MILLIS );
+        mainImageDeadlineMillis = parseMillis( serverExtras, "main_image_deadline_millis", DEFAULT_MAIN_IMAGE_DEADLINE_MILLIS );
+
+        final Object localExtrasMainImageViewId = localExtras != null ? localExtras.get( MAIN_IMAGE_VIEW_ID_EXTRA ) : null;
+        mainImageViewId = ( localExtrasMainImageViewId instanceof Integer ) ? (Integer) localExtrasMainImageViewId : 0;
+
+        // The sizes images are decoded at, off the main thread
+        iconImageSize = parseSize( localExtras, ICON_IMAGE_SIZE_EXTRA, 0 );
+        mainImageWidth = parseSize( localExtras, MAIN_IMAGE_WIDTH_EXTRA, context.getResources().getDisplayMetrics().widthPixels );
+        mainImageHeight = parseSize( localExtras, MAIN_IMAGE_HEIGHT_EXTRA, 0 );
+
+        // Requests made while the SDK is still warming up continue once it is ready
+        retrieveSdk( serverExtras, context, new AppLovinSdkRegistry.SdkReadyListener()
+        {
+            @Override
+            public void onSdkReady(final AppLovinSdk sdk)
+            {
+                AppLovinCustomEventNative.this.sdk = sdk;
+
+                // Serve an unexpired native ad left over from a previous batch, if there is one
+                final AppLovinNativeAd cachedNativeAd = pollCachedNativeAd( sdk );
+                if ( cachedNativeAd != null )
+                {
+                    log( DEBUG, "Found cached native ad: {}", cachedNativeAd.getAdId() );
+                    recordLatency( AppLovinLatencyStats.PHASE_LOAD_CACHE_HIT );
+
+                    // The deadline also covers loading the ad's images
+                    loadDeadline.start( AppLovinLoadDeadline.getDeadline( AppLovinLatencyStats.FORMAT_NATIVE, null ) );
+                    handleNativeAdLoaded( cachedNativeAd );
+                }
+                else if ( !getCircuitBreaker( sdk ).allowRequest() )
+                {
+                    // Fail right away, without a network round trip, while native ads keep failing
+                    loadErrorCode = getCircuitBreaker( sdk ).getErrorCode();
+                    log( DEBUG, "Circuit breaker for native ads is open, failing with error: {}", loadErrorCode );
+                    AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_NATIVE, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, loadErrorCode );
+
+                    AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+                }
+                else
+                {
+                    // The deadline covers both the network load and loading the ad's images, so the ad is delivered within it or not at all
+                    loadDeadline.start( AppLovinLoadDeadline.getDeadline( AppLovinLatencyStats.FORMAT_NATIVE, null ) );
+
+                    // The rest of the batch is prefetched for later requests, so it shrinks with the conditions
+                    final int loadBatchSize = Math.min( batchSize, 1 + Math.min( AppLovinPrefetchScheduler.getPrefetchLimit(), MAX_BATCH_SIZE ) );
+                    sdk.getNativeAdService().loadNativeAds( loadBatchSize, AppLovinCustomEventNative.this );
+                }
+            }
+
+            @Override
+            public void onSdkFailed()
+            {
+                log( ERROR, "Unable to request AppLovin native ad. SDK failed to initialize." );
+                AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_NATIVE, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.UNSPECIFIED_ERROR );
 
-        sdk.getNativeAdService().loadNativeAds( 1, this );
+                if ( nativeListener != null ) nativeListener.onNativeAdFailed( NativeErrorCode.UNSPECIFIED );
+            }
+        } );
     }
 
     //
@@ -82,53 +253,83 @@ public class AppLovinCustomEventNative
     @Override
     public void onNativeAdsLoaded(final List nativeAds)
     {
+        if ( nativeAds == null || nativeAds.isEmpty() )
+        {
+            onNativeAdsFailedToLoad( AppLovinErrorCodes.NO_FILL );
+            return;
+        }
+
+        getCircuitBreaker( sdk ).onSuccess();
+
+        // The deadline keeps running while the images load
+        if ( loadDeadline.hasExpired() )
+        {
+            loadDeadline.finish();
+            log( DEBUG, "Native ads loaded after their deadline, keeping them for later requests" );
+
+            for ( int i = 0; i < nativeAds.size(); i++ )
+            {
+                cacheNativeAd( sdk, (AppLovinNativeAd) nativeAds.get( i ), nativeAdTtlMillis );
+            }
+
+            return;
+        }
+
         final AppLovinNativeAd nativeAd = (AppLovinNativeAd) nativeAds.get( 0 );
 
-        log( DEBUG, "Native ad did load ad: " + nativeAd.getAdId() );
+        log( DEBUG, "Native ad did load ad: {}", nativeAd.getAdId() );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_NATIVE, AppLovinAdapterLogger.EVENT_AD_LOADED, nativeAd.getAdId() );
+        recordLatency( AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS );
+
+        // Keep the rest of the batch for later requests
+        for ( int i = 1; i < nativeAds.size(); i++ )
+        {
+            cacheNativeAd( sdk, (AppLovinNativeAd) nativeAds.get( i ), nativeAdTtlMillis );
+        }
 
-        final List<String> imageUrls = new ArrayList<>( 2 );
+        handleNativeAdLoaded( nativeAd );
+    }
 
-        if ( nativeAd.getIconUrl() != null ) imageUrls.add( nativeAd.getIconUrl() );
-        if ( nativeAd.getImageUrl() != null ) imageUrls.add( nativeAd.getImageUrl() );
+    private void handleNativeAdLoaded(final AppLovinNativeAd nativeAd)
+    {
+        final AppLovinMopubNativeAd appLovinMopubNativeAd = new AppLovinMopubNativeAd( nativeAd, context, mainImageViewId );
 
         // Please note: If/when we add support for videos, we must use AppLovin SDK's built-in precaching mechanism
 
-        runOnUiThread( new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                NativeImageHelper.preCacheImages( context, imageUrls, new NativeImageHelper.ImageListener()
-                {
-                    @Override
-                    public void onImagesCached()
-                    {
-                        handleNativeAdFinishedCaching( nativeAd );
-                    }
-
-                    @Override
-                    public void onImagesFailedToCache(NativeErrorCode nativeErrorCode)
-                    {
-                        handleNativeAdFinishedCaching( nativeAd );
-                    }
-                } );
-            }
-        } );
+        AppLovinMainThreadDispatcher.dispatch( new NativeAdImageLoader( appLovinMopubNativeAd ) );
     }
 
-    private void handleNativeAdFinishedCaching(final AppLovinNativeAd nativeAd)
+    private void handleNativeAdFinishedCaching(final AppLovinMopubNativeAd appLovinMopubNativeAd)
     {
-        log( DEBUG, "Native ad done precaching" );
+        // The request may have failed by its deadline, or been destroyed, while the images were loading. Nobody would destroy the ad then.
+        if ( !loadDeadline.finish() || nativeListener == null )
+        {
+            log( DEBUG, "Native ad finished precaching after its request was gone, keeping it for a later request" );
+
+            appLovinMopubNativeAd.releaseImages();
+            cacheNativeAd( sdk, appLovinMopubNativeAd.parentNativeAd, nativeAdTtlMillis );
+
+            return;
+        }
 
-        final AppLovinMopubNativeAd appLovinMopubNativeAd = new AppLovinMopubNativeAd( nativeAd, context );
+        log( DEBUG, "Native ad done precaching" );
         nativeListener.onNativeAdLoaded( appLovinMopubNativeAd );
     }
 
     @Override
     public void onNativeAdsFailedToLoad(final int errorCode)
     {
-        log( ERROR, "Native ad video failed to load with error: " + errorCode );
-        nativeListener.onNativeAdFailed( toMoPubErrorCode( errorCode ) );
+        getCircuitBreaker( sdk ).onFailure( errorCode );
+
+        // The request already failed when its deadline passed
+        if ( !loadDeadline.finish() ) return;
+
+        log( ERROR, "Native ad video failed to load with error: {}", errorCode );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_NATIVE, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, errorCode );
+        recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED );
+
+        loadErrorCode = errorCode;
+        AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
     }
 
     private class AppLovinMopubNativeAd
@@ -136,12 +337,16 @@ public class AppLovinCustomEventNative
     {
         private final AppLovinNativeAd parentNativeAd;
         private final Context          parentContext;
+        private final int              mainImageViewId;
+        private final List<Bitmap>     heldBitmaps = new ArrayList<>( 2 );
         private       View             parentView;
+        private       boolean          destroyed;
 
-        AppLovinMopubNativeAd(final AppLovinNativeAd nativeAd, final Context context)
+        AppLovinMopubNativeAd(final AppLovinNativeAd nativeAd, final Context context, final int mainImageViewId)
         {
             parentNativeAd = nativeAd;
             parentContext = context;
+            this.mainImageViewId = mainImageViewId;
 
             setTitle( nativeAd.getTitle() );
             setText( nativeAd.getDescriptionText() );
@@ -152,6 +357,44 @@ public class AppLovinCustomEventNative
             setClickDestinationUrl( nativeAd.getClickUrl() );
         }
 
+        void setImageBitmap(final String url, final Bitmap bitmap)
+        {
+            // An image arriving once the ad is gone is never drawn
+            if ( destroyed )
+            {
+                log( DEBUG, "Native ad image loaded after the ad was destroyed: {}", url );
+                AppLovinNativeImageCache.releaseBitmap( bitmap );
+
+                return;
+            }
+
+            // Held until the ad is destroyed, then handed back to the image cache for reuse
+            heldBitmaps.add( bitmap );
+
+            // The icon and main image may share the same URL
+            if ( url.equals( parentNativeAd.getIconUrl() ) ) addExtra( ICON_IMAGE_BITMAP_EXTRA, bitmap );
+            if ( url.equals( parentNativeAd.getImageUrl() ) )
+            {
+                addExtra( MAIN_IMAGE_BITMAP_EXTRA, bitmap );
+                bindMainImage();
+            }
+        }
+
+        /**
+         * Sets the main image into its `ImageView`, if the ad is bound to a view and the image has been loaded.
+         */
+        private void bindMainImage()
+        {
+            final Object bitmap = getExtra( MAIN_IMAGE_BITMAP_EXTRA );
+            if ( parentView == null || mainImageViewId == 0 || !( bitmap instanceof Bitmap ) ) return;
+
+            final View mainImageView = parentView.findViewById( mainImageViewId );
+            if ( mainImageView instanceof ImageView )
+            {
+                ( (ImageView) mainImageView ).setImageBitmap( (Bitmap) bitmap );
+            }
+        }
+
         @Override
         public void prepare(@NonNull final View view)
         {
@@ -174,6 +417,9 @@ public class AppLovinCustomEventNative
             parentView.findViewById( R.id.ID_OF_SUBVIEW ).setOnClickListener( onClickListener );
             */
 
+            parentView = view;
+            bindMainImage();
+
             // As of AppLovin SDK >=7.1.0, impression tracking convenience methods have been added to AppLovinNativeAd
             parentNativeAd.trackImpression( new AppLovinPostbackListener()
             {
@@ -192,9 +438,28 @@ public class AppLovinCustomEventNative
             } );
         }
 
+        /**
+         * Unsets the main image from its `ImageView`, if it still draws one of this ad's bitmaps, so a recycled view does not keep drawing a bitmap
+         * whose memory may be reused for decoding another image once released.
+         */
+        private void unbindMainImage(final View view)
+        {
+            if ( view == null || mainImageViewId == 0 ) return;
+
+            final View mainImageView = view.findViewById( mainImageViewId );
+            if ( !( mainImageView instanceof ImageView ) ) return;
+
+            final Drawable drawable = ( (ImageView) mainImageView ).getDrawable();
+            if ( drawable instanceof BitmapDrawable && heldBitmaps.contains( ( (BitmapDrawable) drawable ).getBitmap() ) )
+            {
+                ( (ImageView) mainImageView ).setImageDrawable( null );
+            }
+        }
+
         @Override
         public void clear(@NonNull final View view)
         {
+            unbindMainImage( view );
             parentView = null;
         }
 
@@ -202,6 +467,213 @@ public class AppLovinCustomEventNative
         public void destroy()
         {
             AppLovinCustomEventNative.this.nativeListener = null;
+            releaseImages();
+        }
+
+        /**
+         * Hands the ad's bitmaps back to the image cache, along with any that arrive later.
+         */
+        void releaseImages()
+        {
+            destroyed = true;
+
+            // Nothing may draw the bitmaps once they are released
+            unbindMainImage( parentView );
+            parentView = null;
+
+            for ( final Bitmap bitmap : heldBitmaps )
+            {
+                AppLovinNativeImageCache.releaseBitmap( bitmap );
+            }
+            heldBitmaps.clear();
+        }
+    }
+
+    /**
+     * Loads a native ad's icon and main image through the image cache, and delivers the ad once they are loaded or their deadlines pass.
+     * In progressive mode, the ad is delivered without waiting on the main image, which is handed to the ad whenever it arrives.
+     * <p>
+     * Dispatched to the main thread to start, and all methods run on the main thread.
+     */
+    private class NativeAdImageLoader
+            extends AppLovinMainThreadDispatcher.Event
+            implements AppLovinNativeImageCache.Listener
+    {
+        private final AppLovinMopubNativeAd appLovinMopubNativeAd;
+        private final String                iconUrl;
+        private final String                mainImageUrl;
+
+        private boolean iconPending;
+        private boolean mainImagePending;
+        private boolean delivered;
+
+        private final Runnable iconDeadline = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                log( ERROR, "Native ad icon did not load in time: {}", iconUrl );
+                onIconFinished();
+            }
+        };
+
+        private final Runnable mainImageDeadline = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                log( ERROR, "Native ad main image did not load in time: {}", mainImageUrl );
+                onMainImageFinished();
+            }
+        };
+
+        NativeAdImageLoader(final AppLovinMopubNativeAd appLovinMopubNativeAd)
+        {
+            this.appLovinMopubNativeAd = appLovinMopubNativeAd;
+            this.iconUrl = appLovinMopubNativeAd.parentNativeAd.getIconUrl();
+            this.mainImageUrl = appLovinMopubNativeAd.parentNativeAd.getImageUrl();
+        }
+
+        @Override
+        public void run()
+        {
+            iconPending = iconUrl != null;
+            mainImagePending = mainImageUrl != null;
+
+            // Images are served from the memory or disk cache when possible, and only downloaded otherwise
+            if ( iconPending )
+            {
+                AppLovinMainThreadDispatcher.dispatchDelayed( iconDeadline, iconDeadlineMillis );
+                AppLovinNativeImageCache.loadImage( context, iconUrl, iconImageSize, iconImageSize, this );
+            }
+
+            if ( mainImagePending )
+            {
+                AppLovinMainThreadDispatcher.dispatchDelayed( mainImageDeadline, mainImageDeadlineMillis );
+                AppLovinNativeImageCache.loadImage( context, mainImageUrl, mainImageWidth, mainImageHeight, this );
+            }
+
+            deliverIfReady();
+        }
+
+        @Override
+        public void onImageLoaded(final String url, final Bitmap bitmap)
+        {
+            // Images arriving after their deadline are still handed to the ad
+            appLovinMopubNativeAd.setImageBitmap( url, bitmap );
+            onImageFinished( url );
+        }
+
+        @Override
+        public void onImageFailed(final String url)
+        {
+            log( ERROR, "Native ad failed to cache image: {}", url );
+            onImageFinished( url );
+        }
+
+        private void onImageFinished(final String url)
+        {
+            // The icon and main image may share the same URL
+            if ( url.equals( iconUrl ) ) onIconFinished();
+            if ( url.equals( mainImageUrl ) ) onMainImageFinished();
+        }
+
+        private void onIconFinished()
+        {
+            if ( !iconPending ) return;
+
+            iconPending = false;
+            AppLovinMainThreadDispatcher.cancel( iconDeadline );
+
+            deliverIfReady();
+        }
+
+        private void onMainImageFinished()
+        {
+            if ( !mainImagePending ) return;
+
+            mainImagePending = false;
+            AppLovinMainThreadDispatcher.cancel( mainImageDeadline );
+
+            deliverIfReady();
+        }
+
+        private void deliverIfReady()
+        {
+            if ( delivered || iconPending || ( mainImagePending && !progressive ) ) return;
+
+            delivered = true;
+            handleNativeAdFinishedCaching( appLovinMopubNativeAd );
+        }
+    }
+
+    //
+    // Native Ad Cache
+    //
+
+    /**
+     * Takes the oldest unexpired native ad cached for the given SDK, dropping any expired ones along the way.
+     */
+    private static AppLovinNativeAd pollCachedNativeAd(final AppLovinSdk sdk)
+    {
+        final ArrayDeque<CachedNativeAd> cachedNativeAds = CACHED_NATIVE_ADS.get( sdk.getSdkKey() );
+        if ( cachedNativeAds == null ) return null;
+
+        final long now = SystemClock.elapsedRealtime();
+
+        synchronized ( cachedNativeAds )
+        {
+            CachedNativeAd cachedNativeAd;
+            while ( ( cachedNativeAd = cachedNativeAds.poll() ) != null )
+            {
+                if ( cachedNativeAd.expirationMillis > now )
+                {
+                    return cachedNativeAd.nativeAd;
+                }
+
+                log( DEBUG, "Dropping expired native ad: {}", cachedNativeAd.nativeAd.getAdId() );
+            }
+        }
+
+        return null;
+    }
+
+    private static void cacheNativeAd(final AppLovinSdk sdk, final AppLovinNativeAd nativeAd, final long ttlMillis)
+    {
+        ArrayDeque<CachedNativeAd> cachedNativeAds = CACHED_NATIVE_ADS.get( sdk.getSdkKey() );
+        if ( cachedNativeAds == null )
+        {
+            final ArrayDeque<CachedNativeAd> newCachedNativeAds = new ArrayDeque<CachedNativeAd>( MAX_CACHED_NATIVE_ADS );
+            cachedNativeAds = CACHED_NATIVE_ADS.putIfAbsent( sdk.getSdkKey(), newCachedNativeAds );
+            if ( cachedNativeAds == null )
+            {
+                cachedNativeAds = newCachedNativeAds;
+            }
+        }
+
+        synchronized ( cachedNativeAds )
+        {
+            // Drop the oldest ad to stay within the cache's bound
+            if ( cachedNativeAds.size() >= MAX_CACHED_NATIVE_ADS )
+            {
+                cachedNativeAds.poll();
+            }
+
+            cachedNativeAds.offer( new CachedNativeAd( nativeAd, SystemClock.elapsedRealtime() + ttlMillis ) );
+        }
+
+        log( DEBUG, "Cached native ad: {}", nativeAd.getAdId() );
+    }
+
+    private static final class CachedNativeAd
+    {
+        private final AppLovinNativeAd nativeAd;
+        private final long             expirationMillis;
+
+        private CachedNativeAd(final AppLovinNativeAd nativeAd, final long expirationMillis)
+        {
+            this.nativeAd = nativeAd;
+            this.expirationMillis = expirationMillis;
         }
     }
 
@@ -209,14 +681,55 @@ public class AppLovinCustomEventNative
     // Utility Methods
     //
 
-    private static void log(final int priority, final String message)
+    private static int parseSize(final Map<String, Object> localExtras, final String key, final int defaultSize)
+    {
+        final Object value = localExtras != null ? localExtras.get( key ) : null;
+        return ( value instanceof Integer && (Integer) value > 0 ) ? (Integer) value : defaultSize;
+    }
+
+    private static long parseMillis(final Map<String, String> serverExtras, final String key, final long defaultMillis)
     {
-        if ( LOGGING_ENABLED )
+        final String value = serverExtras != null ? serverExtras.get( key ) : null;
+        if ( TextUtils.isEmpty( value ) ) return defaultMillis;
+
+        try
+        {
+            return Long.parseLong( value );
+        }
+        catch ( NumberFormatException ex )
         {
-            Log.println( priority, "AppLovinNative", message );
+            log( ERROR, "Invalid {} provided: {}", key, value );
+            return defaultMillis;
         }
     }
 
+    private static AppLovinCircuitBreaker getCircuitBreaker(final AppLovinSdk sdk)
+    {
+        // Native ads have no zones, so they all share the default zone's breaker
+        return AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_NATIVE, sdk, "" );
+    }
+
+    private void recordLatency(final int phase)
+    {
+        // Native ads have no zones, so they are all recorded under the default zone
+        AppLovinLatencyStats.record( AppLovinLatencyStats.FORMAT_NATIVE, "", phase, SystemClock.elapsedRealtime() - loadStartMillis );
+    }
+
+    private static void log(final int priority, final String message)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message );
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
+    }
+
     private static NativeErrorCode toMoPubErrorCode(final int applovinErrorCode)
     {
         if ( applovinErrorCode == AppLovinErrorCodes.NO_FILL )
@@ -246,37 +759,11 @@ public class AppLovinCustomEventNative
     }
 
     /**
-     * Performs the given runnable on the main thread.
+     * Retrieves the appropriate instance of AppLovin's SDK from the SDK key given in the server parameters, or Android Manifest, once it is ready and any pending consent write has landed.
      */
-    private static void runOnUiThread(final Runnable runnable)
-    {
-        if ( Looper.myLooper() == Looper.getMainLooper() )
-        {
-            runnable.run();
-        }
-        else
-        {
-            UI_HANDLER.post( runnable );
-        }
-    }
-
-    /**
-     * Retrieves the appropriate instance of AppLovin's SDK from the SDK key given in the server parameters, or Android Manifest.
-     */
-    private static AppLovinSdk retrieveSdk(final Map<String, String> serverExtras, final Context context)
+    private static void retrieveSdk(final Map<String, String> serverExtras, final Context context, final AppLovinSdkRegistry.SdkReadyListener listener)
     {
         final String sdkKey = serverExtras != null ? serverExtras.get( "sdk_key" ) : null;
-        final AppLovinSdk sdk;
-
-        if ( !TextUtils.isEmpty( sdkKey ) )
-        {
-            sdk = AppLovinSdk.getInstance( sdkKey, new AppLovinSdkSettings(), context );
-        }
-        else
-        {
-            sdk = AppLovinSdk.getInstance( context );
-        }
-
-        return sdk;
+        AppLovinSdkRegistry.whenReady( sdkKey, context, AppLovinConsentSync.afterPendingWrites( listener ) );
     }
 }
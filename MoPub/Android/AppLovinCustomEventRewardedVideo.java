@@ -2,10 +2,10 @@ package YOUR_PACKAGE_NAME;
 
 import android.app.Activity;
 import android.content.Context;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
-import android.util.Log;
 
 import com.applovin.adview.AppLovinIncentivizedInterstitial;
 import com.applovin.sdk.AppLovinAd;
@@ -15,19 +15,18 @@ import com.applovin.sdk.AppLovinAdLoadListener;
 import com.applovin.sdk.AppLovinAdRewardListener;
 import com.applovin.sdk.AppLovinAdVideoPlaybackListener;
 import com.applovin.sdk.AppLovinErrorCodes;
-import com.applovin.sdk.AppLovinPrivacySettings;
 import com.applovin.sdk.AppLovinSdk;
-import com.applovin.sdk.AppLovinSdkSettings;
 import com.mopub.common.LifecycleListener;
-import com.mopub.common.MoPub;
 import com.mopub.common.MoPubReward;
-import com.mopub.common.privacy.PersonalInfoManager;
 import com.mopub.mobileads.CustomEventRewardedVideo;
 import com.mopub.mobileads.MoPubErrorCode;
 import com.mopub.mobileads.MoPubRewardedVideoManager;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static android.util.Log.DEBUG;
 import static android.util.Log.ERROR;
@@ -45,23 +44,104 @@ public class AppLovinCustomEventRewardedVideo
         extends CustomEventRewardedVideo
         implements AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdClickListener, AppLovinAdVideoPlaybackListener, AppLovinAdRewardListener
 {
-    private static final boolean LOGGING_ENABLED = true;
-    private static final String  DEFAULT_ZONE    = "";
+    private static final String TAG          = "AppLovinRewardedVideo";
+    private static final String DEFAULT_ZONE = "";
 
     // A map of Zone -> `AppLovinIncentivizedInterstitial` to be shared by instances of the custom event.
     // This prevents skipping of ads as this adapter will be re-created and preloaded (along with underlying `AppLovinIncentivizedInterstitial`)
     // on every ad load regardless if ad was actually displayed or not.
-    private static final Map<String, AppLovinIncentivizedInterstitial> GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS = new HashMap<String, AppLovinIncentivizedInterstitial>();
+    private static final ConcurrentMap<String, IncentivizedInterstitialPool> GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS = new ConcurrentHashMap<String, IncentivizedInterstitialPool>();
+
+    // The number of `AppLovinIncentivizedInterstitial`s per zone, so the next rewarded video can preload while the current one is showing
+    private static final int DEFAULT_POOL_SIZE = 2;
+    private static final int MAX_POOL_SIZE     = 4;
+
+    // The states of a rewarded video slot
+    private static final int SLOT_IDLE       = 0;
+    private static final int SLOT_PRELOADING = 1;
+    private static final int SLOT_READY      = 2;
+    private static final int SLOT_SHOWING    = 3;
 
     private boolean initialized;
 
-    private AppLovinSdk                      sdk;
-    private AppLovinIncentivizedInterstitial incentivizedInterstitial;
-    private Activity                         parentActivity;
+    private IncentivizedInterstitialPool incentivizedInterstitialPool;
+    private Activity                     parentActivity;
 
     private boolean     fullyWatched;
     private MoPubReward reward;
 
+    private volatile long    loadStartMillis;    // When the current mediation request was made
+    private volatile long    showStartMillis;    // When the current show call was made
+    private volatile boolean loadServedFromPool; // Whether the zone's pool had a ready video when the current request was made
+    private volatile int     loadErrorCode;
+
+    // Fails the current request back to the mediation waterfall once its load deadline passes
+    private final AppLovinLoadDeadline loadDeadline = new AppLovinLoadDeadline( new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            log( ERROR, "Rewarded video load timed out" );
+            AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.FETCH_AD_TIMEOUT );
+            recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED, loadStartMillis );
+
+            // The video keeps loading into its slot of the zone's pool, ready for the next request
+            loadErrorCode = AppLovinErrorCodes.FETCH_AD_TIMEOUT;
+            AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
+        }
+    } );
+
+    // Listener callbacks, delivered on the main thread
+    private final AppLovinMainThreadDispatcher.Event adLoadedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            MoPubRewardedVideoManager.onRewardedVideoLoadSuccess( AppLovinCustomEventRewardedVideo.this.getClass(), "" );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adFailedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            MoPubRewardedVideoManager.onRewardedVideoLoadFailure( AppLovinCustomEventRewardedVideo.this.getClass(), "", toMoPubErrorCode( loadErrorCode ) );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adStartedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            MoPubRewardedVideoManager.onRewardedVideoStarted( AppLovinCustomEventRewardedVideo.this.getClass(), "" );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adClosedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            if ( fullyWatched && reward != null )
+            {
+                log( DEBUG, "Rewarded{} {}", reward.getAmount(), reward.getLabel() );
+                MoPubRewardedVideoManager.onRewardedVideoCompleted( AppLovinCustomEventRewardedVideo.this.getClass(), "", reward );
+            }
+
+            MoPubRewardedVideoManager.onRewardedVideoClosed( AppLovinCustomEventRewardedVideo.this.getClass(), "" );
+        }
+    };
+
+    private final AppLovinMainThreadDispatcher.Event adClickedEvent = new AppLovinMainThreadDispatcher.Event()
+    {
+        @Override
+        public void run()
+        {
+            MoPubRewardedVideoManager.onRewardedVideoClicked( AppLovinCustomEventRewardedVideo.this.getClass(), "" );
+        }
+    };
 
     //
     // MoPub Custom Event Methods
@@ -74,8 +154,9 @@ public class AppLovinCustomEventRewardedVideo
 
         if ( !initialized )
         {
-            sdk = retrieveSdk( serverExtras, activity );
-            sdk.setPluginVersion( "MoPub-3.0.0" );
+            // The SDK initializes in the background unless it was warmed up, and loads wait for it without blocking this thread
+            final String sdkKey = serverExtras != null ? serverExtras.get( "sdk_key" ) : null;
+            AppLovinSdkRegistry.startInitializing( sdkKey, activity );
 
             initialized = true;
 
@@ -88,15 +169,12 @@ public class AppLovinCustomEventRewardedVideo
     @Override
     protected void loadWithSdkInitialized(@NonNull final Activity activity, @NonNull final Map<String, Object> localExtras, @NonNull final Map<String, String> serverExtras) throws Exception
     {
-        log( DEBUG, "Requesting AppLovin banner with serverExtras: " + serverExtras + " and localExtras: " + localExtras );
+        log( DEBUG, "Requesting AppLovin banner with serverExtras: {} and localExtras: {}", serverExtras, localExtras );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_LOAD_REQUESTED, 0 );
+        loadStartMillis = SystemClock.elapsedRealtime();
 
-        // Pass the user consent from the MoPub SDK as per GDPR
-        PersonalInfoManager personalInfoManager = MoPub.getPersonalInformationManager();
-        if ( personalInfoManager != null && personalInfoManager.gdprApplies() )
-        {
-            boolean canCollectPersonalInfo = personalInfoManager.canCollectPersonalInformation();
-            AppLovinPrivacySettings.setHasUserConsent( canCollectPersonalInfo, activity.getApplicationContext() );
-        }
+        // Pass the user consent from the MoPub SDK as per GDPR, only when it changed
+        AppLovinConsentSync.sync( activity );
 
         parentActivity = activity;
 
@@ -112,39 +190,80 @@ public class AppLovinCustomEventRewardedVideo
         }
 
 
-        // Check if incentivized ad for zone already exists
-        if ( GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.containsKey( zoneId ) )
+        // Number of rewarded videos that can be ready or showing at once for the zone
+        int poolSize = DEFAULT_POOL_SIZE;
+        final String serverExtrasPoolSize = serverExtras.get( "pool_size" );
+        if ( !TextUtils.isEmpty( serverExtrasPoolSize ) )
         {
-            incentivizedInterstitial = GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.get( zoneId );
+            try
+            {
+                poolSize = Integer.parseInt( serverExtrasPoolSize );
+            }
+            catch ( NumberFormatException ex )
+            {
+                log( ERROR, "Invalid pool size provided: {}", serverExtrasPoolSize );
+            }
         }
-        else
+
+        // How long a load for the zone may take before failing back to the waterfall
+        final String serverExtrasLoadDeadline = serverExtras.get( "load_deadline_millis" );
+        if ( !TextUtils.isEmpty( serverExtrasLoadDeadline ) )
         {
-            // If this is a default Zone, create the incentivized ad normally
-            if ( DEFAULT_ZONE.equals( zoneId ) )
+            try
             {
-                incentivizedInterstitial = AppLovinIncentivizedInterstitial.create( activity );
+                AppLovinLoadDeadline.setDeadline( AppLovinLatencyStats.FORMAT_REWARDED, zoneId, Long.parseLong( serverExtrasLoadDeadline ) );
             }
-            // Otherwise, use the Zones API
-            else
+            catch ( NumberFormatException ex )
             {
-                incentivizedInterstitial = AppLovinIncentivizedInterstitial.create( zoneId, sdk );
+                log( ERROR, "Invalid load deadline provided: {}", serverExtrasLoadDeadline );
             }
-
-            GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.put( zoneId, incentivizedInterstitial );
         }
 
-        incentivizedInterstitial.preload( this );
+        final int zonePoolSize = poolSize;
+
+        // Requests made while the SDK is still warming up continue once it is ready
+        retrieveSdk( serverExtras, activity, new AppLovinSdkRegistry.SdkReadyListener()
+        {
+            @Override
+            public void onSdkReady(final AppLovinSdk sdk)
+            {
+                // Check if incentivized ads for zone already exist. The pool size is fixed by the first request for the zone.
+                incentivizedInterstitialPool = GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.get( zoneId );
+                if ( incentivizedInterstitialPool == null )
+                {
+                    final IncentivizedInterstitialPool newPool = new IncentivizedInterstitialPool( zoneId, sdk, Math.max( 1, Math.min( zonePoolSize, MAX_POOL_SIZE ) ) );
+                    incentivizedInterstitialPool = GLOBAL_INCENTIVIZED_INTERSTITIAL_ADS.putIfAbsent( zoneId, newPool );
+                    if ( incentivizedInterstitialPool == null )
+                    {
+                        incentivizedInterstitialPool = newPool;
+                    }
+                }
+
+                loadDeadline.start( AppLovinLoadDeadline.getDeadline( AppLovinLatencyStats.FORMAT_REWARDED, zoneId ) );
+                incentivizedInterstitialPool.load( AppLovinCustomEventRewardedVideo.this );
+            }
+
+            @Override
+            public void onSdkFailed()
+            {
+                log( ERROR, "Unable to request AppLovin rewarded video. SDK failed to initialize." );
+                AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, AppLovinErrorCodes.UNSPECIFIED_ERROR );
+
+                MoPubRewardedVideoManager.onRewardedVideoLoadFailure( AppLovinCustomEventRewardedVideo.this.getClass(), "", MoPubErrorCode.INTERNAL_ERROR );
+            }
+        } );
     }
 
     @Override
     protected void showVideo()
     {
-        if ( hasVideoAvailable() )
-        {
-            fullyWatched = false;
-            reward = null;
+        fullyWatched = false;
+        reward = null;
+        showStartMillis = SystemClock.elapsedRealtime();
 
-            incentivizedInterstitial.show( parentActivity, null, this, this, this, this );
+        if ( incentivizedInterstitialPool != null && incentivizedInterstitialPool.show( this, parentActivity ) )
+        {
+            log( DEBUG, "Showing rewarded video" );
         }
         else
         {
@@ -156,7 +275,7 @@ public class AppLovinCustomEventRewardedVideo
     @Override
     protected boolean hasVideoAvailable()
     {
-        return incentivizedInterstitial.isAdReadyToDisplay();
+        return incentivizedInterstitialPool != null && incentivizedInterstitialPool.hasReadySlot();
     }
 
     @Override
@@ -177,45 +296,30 @@ public class AppLovinCustomEventRewardedVideo
     @Override
     public void adReceived(final AppLovinAd ad)
     {
-        log( DEBUG, "Rewarded video did load ad: " + ad.getAdIdNumber() );
-
-        parentActivity.runOnUiThread( new Runnable()
+        if ( !loadDeadline.finish() )
         {
-            @Override
-            public void run()
-            {
-                try
-                {
-                    MoPubRewardedVideoManager.onRewardedVideoLoadSuccess( AppLovinCustomEventRewardedVideo.this.getClass(), "" );
-                }
-                catch ( Throwable th )
-                {
-                    log( ERROR, "Unable to notify listener of successful ad load.", th );
-                }
-            }
-        } );
+            log( DEBUG, "Rewarded video loaded ad: {} after its deadline, keeping it for the next request", ad.getAdIdNumber() );
+            return;
+        }
+
+        log( DEBUG, "Rewarded video did load ad: {}", ad.getAdIdNumber() );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_LOADED, ad.getAdIdNumber() );
+        recordLatency( loadServedFromPool ? AppLovinLatencyStats.PHASE_LOAD_CACHE_HIT : AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, loadStartMillis );
+        AppLovinMainThreadDispatcher.dispatch( adLoadedEvent );
     }
 
     @Override
     public void failedToReceiveAd(final int errorCode)
     {
-        log( DEBUG, "Rewarded video failed to load with error: " + errorCode );
+        // The request already failed when its deadline passed
+        if ( !loadDeadline.finish() ) return;
 
-        parentActivity.runOnUiThread( new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                try
-                {
-                    MoPubRewardedVideoManager.onRewardedVideoLoadFailure( AppLovinCustomEventRewardedVideo.this.getClass(), "", toMoPubErrorCode( errorCode ) );
-                }
-                catch ( Throwable th )
-                {
-                    log( ERROR, "Unable to notify listener of failure to receive ad.", th );
-                }
-            }
-        } );
+        log( DEBUG, "Rewarded video failed to load with error: {}", errorCode );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_LOAD_FAILED, errorCode );
+        recordLatency( AppLovinLatencyStats.PHASE_LOAD_FAILED, loadStartMillis );
+
+        loadErrorCode = errorCode;
+        AppLovinMainThreadDispatcher.dispatch( adFailedEvent );
     }
 
     //
@@ -226,21 +330,17 @@ public class AppLovinCustomEventRewardedVideo
     public void adDisplayed(final AppLovinAd ad)
     {
         log( DEBUG, "Rewarded video displayed" );
-        MoPubRewardedVideoManager.onRewardedVideoStarted( getClass(), "" );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_DISPLAYED, ad.getAdIdNumber() );
+        recordLatency( AppLovinLatencyStats.PHASE_SHOW, showStartMillis );
+        AppLovinMainThreadDispatcher.dispatch( adStartedEvent );
     }
 
     @Override
     public void adHidden(final AppLovinAd ad)
     {
         log( DEBUG, "Rewarded video dismissed" );
-
-        if ( fullyWatched && reward != null )
-        {
-            log( DEBUG, "Rewarded" + reward.getAmount() + " " + reward.getLabel() );
-            MoPubRewardedVideoManager.onRewardedVideoCompleted( getClass(), "", reward );
-        }
-
-        MoPubRewardedVideoManager.onRewardedVideoClosed( getClass(), "" );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_HIDDEN, ad.getAdIdNumber() );
+        AppLovinMainThreadDispatcher.dispatch( adClosedEvent );
     }
 
     //
@@ -251,7 +351,8 @@ public class AppLovinCustomEventRewardedVideo
     public void adClicked(final AppLovinAd ad)
     {
         log( DEBUG, "Rewarded video clicked" );
-        MoPubRewardedVideoManager.onRewardedVideoClicked( getClass(), "" );
+        AppLovinAdapterLogger.recordEvent( AppLovinAdapterLogger.SOURCE_REWARDED, AppLovinAdapterLogger.EVENT_AD_CLICKED, ad.getAdIdNumber() );
+        AppLovinMainThreadDispatcher.dispatch( adClickedEvent );
     }
 
     //
@@ -267,7 +368,7 @@ public class AppLovinCustomEventRewardedVideo
     @Override
     public void videoPlaybackEnded(final AppLovinAd ad, final double percentViewed, final boolean fullyWatched)
     {
-        log( DEBUG, "Rewarded video playback ended at playback percent: " + percentViewed );
+        log( DEBUG, "Rewarded video playback ended at playback percent: {}", percentViewed );
 
         this.fullyWatched = fullyWatched;
     }
@@ -279,26 +380,26 @@ public class AppLovinCustomEventRewardedVideo
     @Override
     public void userOverQuota(final AppLovinAd appLovinAd, final Map map)
     {
-        log( ERROR, "Rewarded video validation request for ad did exceed quota with response: " + map );
+        log( ERROR, "Rewarded video validation request for ad did exceed quota with response: {}", map );
     }
 
     @Override
     public void validationRequestFailed(final AppLovinAd appLovinAd, final int errorCode)
     {
-        log( ERROR, "Rewarded video validation request for ad failed with error code: " + errorCode );
+        log( ERROR, "Rewarded video validation request for ad failed with error code: {}", errorCode );
     }
 
     @Override
     public void userRewardRejected(final AppLovinAd appLovinAd, final Map map)
     {
-        log( ERROR, "Rewarded video validation request was rejected with response: " + map );
+        log( ERROR, "Rewarded video validation request was rejected with response: {}", map );
     }
 
     @Override
     public void userDeclinedToViewAd(final AppLovinAd appLovinAd)
     {
         log( DEBUG, "User declined to view rewarded video" );
-        MoPubRewardedVideoManager.onRewardedVideoClosed( getClass(), "" );
+        AppLovinMainThreadDispatcher.dispatch( adClosedEvent );
     }
 
     @Override
@@ -307,7 +408,7 @@ public class AppLovinCustomEventRewardedVideo
         final String currency = (String) map.get( "currency" );
         final int amount = (int) Double.parseDouble( (String) map.get( "amount" ) ); // AppLovin returns amount as double
 
-        log( DEBUG, "Verified " + amount + " " + currency );
+        log( DEBUG, "Verified {} {}", amount, currency );
 
         reward = MoPubReward.success( currency, amount );
     }
@@ -316,17 +417,25 @@ public class AppLovinCustomEventRewardedVideo
     // Utility Methods
     //
 
+    private void recordLatency(final int phase, final long startMillis)
+    {
+        final String zoneId = ( incentivizedInterstitialPool != null ) ? incentivizedInterstitialPool.zoneId : DEFAULT_ZONE;
+        AppLovinLatencyStats.record( AppLovinLatencyStats.FORMAT_REWARDED, zoneId, phase, SystemClock.elapsedRealtime() - startMillis );
+    }
+
     private static void log(final int priority, final String message)
     {
-        log( priority, message, null );
+        AppLovinAdapterLogger.log( priority, TAG, message );
     }
 
-    private static void log(final int priority, final String message, final Throwable th)
+    private static void log(final int priority, final String message, final Object arg)
     {
-        if ( LOGGING_ENABLED )
-        {
-            Log.println( priority, "AppLovinRewardedVideo", message + ( ( th == null ) ? "" : Log.getStackTraceString( th ) ) );
-        }
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
     }
 
     private static MoPubErrorCode toMoPubErrorCode(final int applovinErrorCode)
@@ -354,22 +463,372 @@ public class AppLovinCustomEventRewardedVideo
     }
 
     /**
-     * Retrieves the appropriate instance of AppLovin's SDK from the SDK key given in the server parameters, or Android Manifest.
+     * A zone's pool of `AppLovinIncentivizedInterstitial`s, shared by all instances of the adapter.
+     * <p>
+     * Each slot holds at most one ad. As soon as a slot's video starts playing, the next idle slot starts preloading, so another rewarded video
+     * is ready by the time the current one is dismissed.
      */
-    private static AppLovinSdk retrieveSdk(final Map<String, String> serverExtras, final Context context)
+    private static final class IncentivizedInterstitialPool
     {
-        final String sdkKey = serverExtras != null ? serverExtras.get( "sdk_key" ) : null;
-        final AppLovinSdk sdk;
+        private final String                         zoneId;
+        private final AppLovinSdk                    sdk;
+        private final IncentivizedInterstitialSlot[] slots; // Lazily populated, guarded by this
+        private final AppLovinCircuitBreaker         circuitBreaker;
 
-        if ( !TextUtils.isEmpty( sdkKey ) )
+        private IncentivizedInterstitialPool(final String zoneId, final AppLovinSdk sdk, final int size)
         {
-            sdk = AppLovinSdk.getInstance( sdkKey, new AppLovinSdkSettings(), context );
+            this.zoneId = zoneId;
+            this.sdk = sdk;
+            this.slots = new IncentivizedInterstitialSlot[size];
+            this.circuitBreaker = AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_REWARDED, sdk, zoneId );
         }
-        else
+
+        private boolean hasReadySlot()
         {
-            sdk = AppLovinSdk.getInstance( context );
+            return findSlot( SLOT_READY ) != null;
+        }
+
+        /**
+         * Notifies the adapter right away if any slot has an ad ready, otherwise has it wait on a slot that is preloading, starting one if needed.
+         */
+        private void load(final AppLovinCustomEventRewardedVideo adapter)
+        {
+            IncentivizedInterstitialSlot slot = findSlot( SLOT_READY );
+            adapter.loadServedFromPool = ( slot != null );
+
+            if ( slot == null ) slot = findSlot( SLOT_PRELOADING );
+            if ( slot == null )
+            {
+                slot = findSlot( SLOT_IDLE );
+
+                // Only an idle slot goes to the network, which is skipped while the zone keeps failing
+                if ( slot != null && !circuitBreaker.allowRequest() )
+                {
+                    log( DEBUG, "Circuit breaker for zone: {{}} is open", zoneId );
+                    adapter.failedToReceiveAd( circuitBreaker.getErrorCode() );
+
+                    return;
+                }
+            }
+
+            if ( slot != null )
+            {
+                slot.load( adapter );
+            }
+            else
+            {
+                log( ERROR, "All rewarded video slots for zone: {{}} are showing", zoneId );
+                adapter.failedToReceiveAd( AppLovinErrorCodes.UNSPECIFIED_ERROR );
+            }
+        }
+
+        /**
+         * Shows the ad of the first ready slot.
+         *
+         * @return Whether an ad was ready to be shown.
+         */
+        private boolean show(final AppLovinCustomEventRewardedVideo adapter, final Context context)
+        {
+            final IncentivizedInterstitialSlot slot = findSlot( SLOT_READY );
+            if ( slot == null ) return false;
+
+            slot.show( adapter, context );
+            return true;
+        }
+
+        /**
+         * Starts preloading an idle slot while the given slot is showing, unless another slot is already ready or preloading.
+         */
+        private void preloadNext(final IncentivizedInterstitialSlot showingSlot)
+        {
+            if ( findSlot( SLOT_READY ) != null || findSlot( SLOT_PRELOADING ) != null ) return;
+
+            // Preloads once conditions allow, e.g. back online or charging
+            if ( AppLovinPrefetchScheduler.getPrefetchLimit() == 0 )
+            {
+                AppLovinPrefetchScheduler.defer( "rewarded/" + sdk.getSdkKey() + "/" + zoneId, new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        preloadNext( null );
+                    }
+                } );
+
+                return;
+            }
+
+            final IncentivizedInterstitialSlot slot = findSlot( SLOT_IDLE );
+            if ( slot != null && slot != showingSlot && circuitBreaker.allowRequest() )
+            {
+                log( DEBUG, "Preloading next rewarded video for zone: {{}}", zoneId );
+                slot.preload();
+            }
         }
 
-        return sdk;
+        private IncentivizedInterstitialSlot findSlot(final int state)
+        {
+            for ( int i = 0; i < slots.length; i++ )
+            {
+                final IncentivizedInterstitialSlot slot = getSlot( i, state == SLOT_IDLE );
+                if ( slot != null && slot.getState() == state )
+                {
+                    return slot;
+                }
+            }
+
+            return null;
+        }
+
+        private synchronized IncentivizedInterstitialSlot getSlot(final int index, final boolean create)
+        {
+            if ( slots[index] == null && create )
+            {
+                final AppLovinIncentivizedInterstitial incentivizedInterstitial;
+
+                // If this is a default Zone, create the incentivized ad normally
+                if ( DEFAULT_ZONE.equals( zoneId ) )
+                {
+                    incentivizedInterstitial = AppLovinIncentivizedInterstitial.create( sdk );
+                }
+                // Otherwise, use the Zones API
+                else
+                {
+                    incentivizedInterstitial = AppLovinIncentivizedInterstitial.create( zoneId, sdk );
+                }
+
+                slots[index] = new IncentivizedInterstitialSlot( this, incentivizedInterstitial );
+            }
+
+            return slots[index];
+        }
+    }
+
+    /**
+     * A single `AppLovinIncentivizedInterstitial` of a zone's pool, along with the adapters waiting on it.
+     * <p>
+     * The slot is the only listener ever registered with the underlying instance. Load events are fanned out to every adapter waiting for the
+     * ad to load, while display, click, playback and reward events are routed to the adapter that showed the ad they refer to.
+     */
+    private static final class IncentivizedInterstitialSlot
+            implements AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdClickListener, AppLovinAdVideoPlaybackListener, AppLovinAdRewardListener
+    {
+        private final IncentivizedInterstitialPool     pool;
+        private final AppLovinIncentivizedInterstitial incentivizedInterstitial;
+
+        private final List<AppLovinCustomEventRewardedVideo>                loadWaiters = new ArrayList<AppLovinCustomEventRewardedVideo>(); // Guarded by this
+        private final ConcurrentMap<Long, AppLovinCustomEventRewardedVideo> adOwners    = new ConcurrentHashMap<Long, AppLovinCustomEventRewardedVideo>();
+
+        private          boolean                          preloading; // Guarded by this
+        private volatile boolean                          showing;
+        private volatile AppLovinAd                       loadedAd;
+        private volatile AppLovinCustomEventRewardedVideo lastShowingAdapter;
+
+        private IncentivizedInterstitialSlot(final IncentivizedInterstitialPool pool, final AppLovinIncentivizedInterstitial incentivizedInterstitial)
+        {
+            this.pool = pool;
+            this.incentivizedInterstitial = incentivizedInterstitial;
+        }
+
+        private synchronized int getState()
+        {
+            if ( showing ) return SLOT_SHOWING;
+            if ( preloading ) return SLOT_PRELOADING;
+            if ( loadedAd != null && incentivizedInterstitial.isAdReadyToDisplay() ) return SLOT_READY;
+
+            return SLOT_IDLE;
+        }
+
+        /**
+         * Notifies the adapter right away if an ad is ready, otherwise waits on the in-flight preload, starting one if needed.
+         */
+        private void load(final AppLovinCustomEventRewardedVideo adapter)
+        {
+            final AppLovinAd readyAd;
+            boolean shouldPreload = false;
+
+            synchronized ( this )
+            {
+                readyAd = ( !showing && loadedAd != null && incentivizedInterstitial.isAdReadyToDisplay() ) ? loadedAd : null;
+                if ( readyAd == null )
+                {
+                    loadWaiters.add( adapter );
+
+                    if ( !preloading )
+                    {
+                        preloading = true;
+                        shouldPreload = true;
+                    }
+                }
+            }
+
+            if ( readyAd != null )
+            {
+                adapter.adReceived( readyAd );
+            }
+            else if ( shouldPreload )
+            {
+                incentivizedInterstitial.preload( this );
+            }
+        }
+
+        /**
+         * Preloads an ad without any adapter waiting on it.
+         */
+        private void preload()
+        {
+            synchronized ( this )
+            {
+                if ( preloading || showing ) return;
+
+                preloading = true;
+            }
+
+            incentivizedInterstitial.preload( this );
+        }
+
+        private void show(final AppLovinCustomEventRewardedVideo adapter, final Context context)
+        {
+            final AppLovinAd ad = loadedAd;
+            if ( ad != null )
+            {
+                adOwners.put( ad.getAdIdNumber(), adapter );
+            }
+            lastShowingAdapter = adapter;
+            showing = true;
+
+            incentivizedInterstitial.show( context, null, this, this, this, this );
+        }
+
+        private AppLovinCustomEventRewardedVideo getOwner(final AppLovinAd ad)
+        {
+            final AppLovinCustomEventRewardedVideo owner = ( ad != null ) ? adOwners.get( ad.getAdIdNumber() ) : null;
+            return ( owner != null ) ? owner : lastShowingAdapter;
+        }
+
+        private List<AppLovinCustomEventRewardedVideo> takeLoadWaiters()
+        {
+            synchronized ( this )
+            {
+                preloading = false;
+
+                final List<AppLovinCustomEventRewardedVideo> waiters = new ArrayList<AppLovinCustomEventRewardedVideo>( loadWaiters );
+                loadWaiters.clear();
+
+                return waiters;
+            }
+        }
+
+        @Override
+        public void adReceived(final AppLovinAd ad)
+        {
+            pool.circuitBreaker.onSuccess();
+            loadedAd = ad;
+
+            for ( final AppLovinCustomEventRewardedVideo waiter : takeLoadWaiters() )
+            {
+                waiter.adReceived( ad );
+            }
+        }
+
+        @Override
+        public void failedToReceiveAd(final int errorCode)
+        {
+            pool.circuitBreaker.onFailure( errorCode );
+
+            for ( final AppLovinCustomEventRewardedVideo waiter : takeLoadWaiters() )
+            {
+                waiter.failedToReceiveAd( errorCode );
+            }
+        }
+
+        @Override
+        public void adDisplayed(final AppLovinAd ad)
+        {
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.adDisplayed( ad );
+        }
+
+        @Override
+        public void adHidden(final AppLovinAd ad)
+        {
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+
+            if ( ad != null ) adOwners.remove( ad.getAdIdNumber() );
+            loadedAd = null;
+            showing = false;
+
+            if ( owner != null ) owner.adHidden( ad );
+        }
+
+        @Override
+        public void adClicked(final AppLovinAd ad)
+        {
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.adClicked( ad );
+        }
+
+        @Override
+        public void videoPlaybackBegan(final AppLovinAd ad)
+        {
+            // Get the next rewarded video ready while this one plays
+            pool.preloadNext( this );
+
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.videoPlaybackBegan( ad );
+        }
+
+        @Override
+        public void videoPlaybackEnded(final AppLovinAd ad, final double percentViewed, final boolean fullyWatched)
+        {
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.videoPlaybackEnded( ad, percentViewed, fullyWatched );
+        }
+
+        @Override
+        public void userRewardVerified(final AppLovinAd ad, final Map map)
+        {
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.userRewardVerified( ad, map );
+        }
+
+        @Override
+        public void userOverQuota(final AppLovinAd ad, final Map map)
+        {
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.userOverQuota( ad, map );
+        }
+
+        @Override
+        public void userRewardRejected(final AppLovinAd ad, final Map map)
+        {
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.userRewardRejected( ad, map );
+        }
+
+        @Override
+        public void validationRequestFailed(final AppLovinAd ad, final int errorCode)
+        {
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.validationRequestFailed( ad, errorCode );
+        }
+
+        @Override
+        public void userDeclinedToViewAd(final AppLovinAd ad)
+        {
+            showing = false;
+
+            final AppLovinCustomEventRewardedVideo owner = getOwner( ad );
+            if ( owner != null ) owner.userDeclinedToViewAd( ad );
+        }
+    }
+
+    /**
+     * Retrieves the appropriate instance of AppLovin's SDK from the SDK key given in the server parameters, or Android Manifest, once it is ready and any pending consent write has landed.
+     */
+    private static void retrieveSdk(final Map<String, String> serverExtras, final Context context, final AppLovinSdkRegistry.SdkReadyListener listener)
+    {
+        final String sdkKey = serverExtras != null ? serverExtras.get( "sdk_key" ) : null;
+        AppLovinSdkRegistry.whenReady( sdkKey, context, AppLovinConsentSync.afterPendingWrites( listener ) );
     }
 }
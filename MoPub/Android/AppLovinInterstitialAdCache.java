@@ -0,0 +1,1251 @@
+package YOUR_PACKAGE_NAME;
+
+import android.os.SystemClock;
+
+import com.applovin.sdk.AppLovinAd;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.applovin.sdk.AppLovinAdSize;
+import com.applovin.sdk.AppLovinSdk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static android.util.Log.DEBUG;
+import static android.util.Log.ERROR;
+
+/**
+ * Per-zone pool of preloaded interstitial `AppLovinAd`s, shared by all instances of the interstitial custom event.
+ * <p>
+ * Each zone is kept topped up to a target depth. Whenever an ad is reserved by a mediation request and shown (or dismissed), the pool refills itself
+ * in the background so the next mediation request for that zone can be served from memory instead of waiting on the network.
+ * <p>
+ * Unless set explicitly, a zone's depth follows its demand: request and show rates are tracked per zone as exponentially decayed estimates, and
+ * the depth covers the shows expected while a replacement ad loads, based on the zone's p90 load latency. Zones that stop being requested drop
+ * to a depth of 0, and their leftover preloaded ads are evicted by the sweeper. Ads reserved by mediation requests, and zones with requests still
+ * waiting on a load, are left alone.
+ * <p>
+ * Every cached ad is tagged with the time it was loaded and expires after its zone's TTL. Expired ads are skipped (and dropped) when reserving,
+ * and a background sweeper periodically evicts them from zones that are not being requested. A reserved ad is held by its mediation request, out
+ * of the pool, and keeps its load time so that its TTL can be checked again before it is shown.
+ * <p>
+ * Zones are independent of each other: each one owns a fixed-size ring buffer guarded by its own lock, so SDK callback threads and the main thread
+ * only ever contend on the same zone, and enqueuing or dequeuing an ad does not allocate.
+ * <p>
+ * The pool as a whole is bounded by a memory budget, based on an estimated size per ad. When over budget, ads are evicted from the least recently
+ * requested zone first. Hit, miss and eviction counters are available via {@link #getStats()}.
+ * <p>
+ * Network loads are coalesced per SDK key and zone: mediation requests that miss the pool while a load for the same zone is already in flight
+ * (including a background preload) wait on that load instead of starting their own, up to the zone's load fan-out. Each loaded ad goes to a single
+ * request.
+ */
+public final class AppLovinInterstitialAdCache
+{
+    private static final String TAG          = "AppLovinInterstitial";
+    private static final String DEFAULT_ZONE = "";
+
+    /**
+     * The number of ads kept ready for a zone that is being requested, on top of those covering its show rate, unless overridden via
+     * {@link #setPreloadDepth(String, int)}.
+     */
+    public static final int DEFAULT_PRELOAD_DEPTH = 1;
+
+    /**
+     * The upper bound for a zone's preload depth, to keep a misconfigured zone from flooding the network.
+     */
+    public static final int MAX_PRELOAD_DEPTH = 5;
+
+    /**
+     * The number of concurrent network loads allowed per zone, unless overridden via {@link #setLoadFanOut(String, int)}.
+     */
+    public static final int DEFAULT_LOAD_FAN_OUT = 1;
+
+    /**
+     * How long a cached ad stays valid, unless overridden via {@link #setAdTtl(String, long)}.
+     */
+    public static final long DEFAULT_AD_TTL_MILLIS = TimeUnit.HOURS.toMillis( 1 );
+
+    // Leaves room for ads loaded by mediation requests on top of the preloaded ones. Once full, the oldest ad of the zone is dropped.
+    private static final int ZONE_CAPACITY = 2 * MAX_PRELOAD_DEPTH;
+
+    /**
+     * The estimated memory retained by a cached ad, unless overridden via {@link #setEstimatedAdSizeBytes(int)}.
+     */
+    public static final int DEFAULT_ESTIMATED_AD_SIZE_BYTES = 100 * 1024;
+
+    /**
+     * The memory budget for all cached ads across zones, unless overridden via {@link #setMemoryBudgetBytes(long)}.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET_BYTES = 2 * 1024 * 1024;
+
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+
+    // Request and show rates decay by a factor of e over this time, so they mostly reflect the last few minutes
+    private static final long RATE_TIME_CONSTANT_MILLIS = TimeUnit.MINUTES.toMillis( 10 );
+
+    // Zones requested less often than this, in requests per millisecond, are idle and keep no ads preloaded
+    private static final double IDLE_REQUEST_RATE = 1.0 / TimeUnit.MINUTES.toMillis( 30 );
+
+    // The load latency assumed for zones with no recorded load latencies
+    private static final long DEFAULT_LOAD_LATENCY_MILLIS = TimeUnit.SECONDS.toMillis( 3 );
+
+    // A map of Zone -> ring buffer of `AppLovinAd`s to be shared by instances of the custom event.
+    // This prevents skipping of ads as the adapter will be re-created and preloaded
+    // on every ad load regardless if ad was actually displayed or not.
+    private static final ConcurrentMap<String, ZoneInventory> GLOBAL_INTERSTITIAL_ADS = new ConcurrentHashMap<String, ZoneInventory>();
+
+    // A map of SDK Key + Zone -> loads currently in flight for that zone
+    private static final ConcurrentMap<String, InFlightLoad> IN_FLIGHT_LOADS = new ConcurrentHashMap<String, InFlightLoad>();
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            final Thread thread = new Thread( runnable, "AppLovinInterstitialAdCacheSweeper" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
+
+    private static final Runnable SWEEP_TASK = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            sweep();
+        }
+    };
+
+    private static final AtomicBoolean SWEEP_SCHEDULED = new AtomicBoolean();
+
+    private static final AppLovinAdLoadListener[] NO_WAITERS = new AppLovinAdLoadListener[0];
+
+    // How long a multi-zone load waits on a zone with no recorded load latencies before also loading from the next zone
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = TimeUnit.SECONDS.toMillis( 2 );
+
+    private static final AtomicInteger CACHED_AD_COUNT = new AtomicInteger();
+    private static final AtomicLong    HIT_COUNT       = new AtomicLong();
+    private static final AtomicLong    MISS_COUNT      = new AtomicLong();
+    private static final AtomicLong    EXPIRED_COUNT   = new AtomicLong();
+    private static final AtomicLong    EVICTED_COUNT   = new AtomicLong();
+
+    private static volatile int  estimatedAdSizeBytes = DEFAULT_ESTIMATED_AD_SIZE_BYTES;
+    private static volatile long memoryBudgetBytes    = DEFAULT_MEMORY_BUDGET_BYTES;
+
+    private AppLovinInterstitialAdCache() {}
+
+    /**
+     * Sets a fixed number of ads to keep preloaded for the given zone, in place of the depth sized from its demand. A depth of 0 disables
+     * background preloading for the zone.
+     */
+    public static void setPreloadDepth(final String zoneId, final int depth)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            inventory.preloadDepth = Math.max( 0, Math.min( depth, MAX_PRELOAD_DEPTH ) );
+            inventory.preloadDepthFixed = true;
+        }
+    }
+
+    /**
+     * @return The number of ads currently kept preloaded for the given zone.
+     */
+    public static int getPreloadDepth(final String zoneId)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        final long loadLatencyMillis = getLoadLatency( zoneId );
+
+        synchronized ( inventory )
+        {
+            return inventory.getTargetDepth( SystemClock.elapsedRealtime(), loadLatencyMillis );
+        }
+    }
+
+    /**
+     * Sets how many network loads may be in flight at once for the given zone. Mediation requests beyond that wait for an outstanding load
+     * to finish, and get the next ad loaded once it does. Raise this when a zone really needs more than one ad at a time, e.g. for several placements shown back to back.
+     */
+    public static void setLoadFanOut(final String zoneId, final int fanOut)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            inventory.loadFanOut = Math.max( 1, Math.min( fanOut, MAX_PRELOAD_DEPTH ) );
+        }
+    }
+
+    /**
+     * Sets how long, in milliseconds, ads cached for the given zone stay valid after being loaded.
+     */
+    public static void setAdTtl(final String zoneId, final long ttlMillis)
+    {
+        if ( ttlMillis <= 0 )
+        {
+            log( ERROR, "Ignoring invalid TTL of {}ms for zone: {{}}", ttlMillis, zoneId );
+            return;
+        }
+
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            inventory.adTtlMillis = ttlMillis;
+        }
+    }
+
+    /**
+     * @return How long, in milliseconds, ads cached for the given zone stay valid after being loaded.
+     */
+    public static long getAdTtl(final String zoneId)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            return inventory.adTtlMillis;
+        }
+    }
+
+    /**
+     * Sets the estimated memory, in bytes, retained by a single cached ad.
+     */
+    public static void setEstimatedAdSizeBytes(final int sizeBytes)
+    {
+        if ( sizeBytes <= 0 )
+        {
+            log( ERROR, "Ignoring invalid estimated ad size of {} bytes", sizeBytes );
+            return;
+        }
+
+        estimatedAdSizeBytes = sizeBytes;
+        trimToBudget();
+    }
+
+    /**
+     * Sets the memory budget, in bytes, for all cached ads across zones. Least recently requested zones are trimmed first when over budget.
+     */
+    public static void setMemoryBudgetBytes(final long budgetBytes)
+    {
+        memoryBudgetBytes = Math.max( 0, budgetBytes );
+        trimToBudget();
+    }
+
+    /**
+     * @return A snapshot of the pool's counters.
+     */
+    public static Stats getStats()
+    {
+        return new Stats( CACHED_AD_COUNT.get(), HIT_COUNT.get(), MISS_COUNT.get(), EXPIRED_COUNT.get(), EVICTED_COUNT.get() );
+    }
+
+    /**
+     * Records a mediation request for the given zone, and whether it was served from the pool. Requests probing several zones are recorded once,
+     * for their first zone.
+     */
+    static void recordRequest(final String zoneId, final boolean hit)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            final long nowMillis = SystemClock.elapsedRealtime();
+
+            inventory.lastAccessMillis = nowMillis;
+            inventory.recordRequest( nowMillis );
+        }
+
+        ( hit ? HIT_COUNT : MISS_COUNT ).incrementAndGet();
+    }
+
+    /**
+     * Takes the oldest unexpired ad of the given zone out of the pool, for a mediation request to show later. It keeps its original load time,
+     * and no other request or the sweeper can take it from there. Nothing is recorded in the zone's stats; see {@link #recordRequest(String, boolean)}.
+     *
+     * @return The reserved ad, or {@code null} if the zone has none ready.
+     */
+    static ReservedAd reserveAd(final String zoneId)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            if ( inventory.evictExpiredAds( SystemClock.elapsedRealtime() ) == 0 ) return null;
+
+            final long loadTimeMillis = inventory.loadTimesMillis[inventory.head];
+            return new ReservedAd( inventory.poll(), zoneId, loadTimeMillis + inventory.adTtlMillis );
+        }
+    }
+
+    /**
+     * Reserves an ad just loaded from the network for a mediation request. Such ads are handed straight to the request, without going through the pool.
+     */
+    static ReservedAd reserveAd(final String zoneId, final AppLovinAd ad)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            return new ReservedAd( ad, zoneId, SystemClock.elapsedRealtime() + inventory.adTtlMillis );
+        }
+    }
+
+    /**
+     * Puts a reserved ad that will not be shown back into its zone's pool, with its original load time, unless it expired.
+     */
+    static void releaseAd(final ReservedAd reservedAd)
+    {
+        if ( reservedAd.isExpired( SystemClock.elapsedRealtime() ) ) return;
+
+        makeRoomForAd();
+
+        final ZoneInventory inventory = getInventory( reservedAd.zoneId );
+        synchronized ( inventory )
+        {
+            inventory.offer( reservedAd.ad, reservedAd.expirationMillis - inventory.adTtlMillis );
+        }
+
+        scheduleSweep();
+    }
+
+    /**
+     * Records that a reserved ad of the given zone is being shown, which sizes the zone's depth.
+     */
+    static void recordShow(final String zoneId)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            final long nowMillis = SystemClock.elapsedRealtime();
+
+            inventory.lastAccessMillis = nowMillis;
+            inventory.recordShow( nowMillis );
+        }
+    }
+
+    static void enqueueAd(final AppLovinAd ad, final String zoneId)
+    {
+        makeRoomForAd();
+
+        final ZoneInventory inventory = getInventory( zoneId );
+        synchronized ( inventory )
+        {
+            final long nowMillis = SystemClock.elapsedRealtime();
+
+            inventory.lastAccessMillis = nowMillis;
+            inventory.offer( ad, nowMillis );
+        }
+
+        scheduleSweep();
+    }
+
+    /**
+     * Loads an ad for the given zone on behalf of a mediation request, joining a load already in flight for the same SDK and zone if the zone's
+     * fan-out has been reached. The loaded ad is handed to the listener alone, and is not added to the pool.
+     */
+    static void loadAd(final AppLovinSdk sdk, final String zoneId, final AppLovinAdLoadListener listener)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        final InFlightLoad inFlightLoad = getInFlightLoad( sdk, inventory );
+
+        if ( inFlightLoad.join( listener ) )
+        {
+            fetch( sdk, inFlightLoad );
+        }
+        else
+        {
+            log( DEBUG, "Joining in-flight load for zone: {{}}", zoneId );
+        }
+    }
+
+    /**
+     * Removes a mediation request that stopped waiting, e.g. once its load deadline passed, from the load it joined. The load keeps going, and its
+     * ad is added to the pool for a later request.
+     */
+    static void abandonLoad(final AppLovinSdk sdk, final String zoneId, final AppLovinAdLoadListener listener)
+    {
+        final InFlightLoad inFlightLoad = IN_FLIGHT_LOADS.get( sdk.getSdkKey() + "/" + zoneId );
+        if ( inFlightLoad != null ) inFlightLoad.leave( listener );
+    }
+
+    /**
+     * Loads as many ads as needed, in the background, to bring the given zone back up to its preload depth.
+     * Unexpired ads that are already queued, and ads still being loaded, count towards the depth. While the zone's circuit breaker is open, only
+     * the single probe it lets through is loaded.
+     */
+    static void replenish(final AppLovinSdk sdk, final String zoneId)
+    {
+        final ZoneInventory inventory = getInventory( zoneId );
+        final long loadLatencyMillis = getLoadLatency( zoneId );
+        final int prefetchLimit = AppLovinPrefetchScheduler.getPrefetchLimit();
+        final int adsToLoad;
+        final boolean limited;
+
+        synchronized ( inventory )
+        {
+            final long nowMillis = SystemClock.elapsedRealtime();
+            final int queuedCount = inventory.evictExpiredAds( nowMillis );
+            final int targetDepth = inventory.getTargetDepth( nowMillis, loadLatencyMillis );
+
+            // Metered or constrained conditions shrink the depth, down to nothing while offline or low on battery
+            limited = targetDepth > prefetchLimit;
+            adsToLoad = Math.max( 0, Math.min( targetDepth, prefetchLimit ) - queuedCount - inventory.pendingLoadCount );
+        }
+
+        // Tops up the rest of the way once conditions allow more prefetching
+        if ( limited )
+        {
+            AppLovinPrefetchScheduler.defer( "interstitial/" + sdk.getSdkKey() + "/" + zoneId, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    replenish( sdk, zoneId );
+                }
+            } );
+        }
+
+        if ( adsToLoad > 0 )
+        {
+            final InFlightLoad inFlightLoad = getInFlightLoad( sdk, inventory );
+            final AppLovinCircuitBreaker circuitBreaker = inFlightLoad.circuitBreaker;
+
+            final int allowedCount;
+            if ( circuitBreaker.isClosed() )
+            {
+                allowedCount = adsToLoad;
+            }
+            else if ( circuitBreaker.allowRequest() )
+            {
+                allowedCount = 1;
+            }
+            else
+            {
+                log( DEBUG, "Skipping preload for zone: {{}} while its circuit breaker is open", zoneId );
+                return;
+            }
+
+            log( DEBUG, "Preloading {} ad(s) for zone: {{}}", allowedCount, zoneId );
+
+            for ( int i = 0; i < allowedCount; i++ )
+            {
+                inFlightLoad.startPreload();
+                fetch( sdk, inFlightLoad );
+            }
+        }
+    }
+
+    //
+    // Utility Methods
+    //
+
+    private static ZoneInventory getInventory(final String zoneId)
+    {
+        ZoneInventory inventory = GLOBAL_INTERSTITIAL_ADS.get( zoneId );
+        if ( inventory == null )
+        {
+            final ZoneInventory newInventory = new ZoneInventory( zoneId );
+
+            inventory = GLOBAL_INTERSTITIAL_ADS.putIfAbsent( zoneId, newInventory );
+            if ( inventory == null )
+            {
+                inventory = newInventory;
+            }
+        }
+
+        return inventory;
+    }
+
+    /**
+     * @return The p90 of the zone's network load latencies, which is how long it usually takes to replace an ad.
+     */
+    private static long getLoadLatency(final String zoneId)
+    {
+        final long p90Millis = AppLovinLatencyStats.getValueAtPercentile( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId, AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, 90 );
+        return ( p90Millis >= 0 ) ? p90Millis : DEFAULT_LOAD_LATENCY_MILLIS;
+    }
+
+    private static InFlightLoad getInFlightLoad(final AppLovinSdk sdk, final ZoneInventory inventory)
+    {
+        final String key = sdk.getSdkKey() + "/" + inventory.zoneId;
+
+        InFlightLoad inFlightLoad = IN_FLIGHT_LOADS.get( key );
+        if ( inFlightLoad == null )
+        {
+            final InFlightLoad newInFlightLoad = new InFlightLoad( sdk, inventory, AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_INTERSTITIAL, sdk, inventory.zoneId ) );
+
+            inFlightLoad = IN_FLIGHT_LOADS.putIfAbsent( key, newInFlightLoad );
+            if ( inFlightLoad == null )
+            {
+                inFlightLoad = newInFlightLoad;
+            }
+        }
+
+        return inFlightLoad;
+    }
+
+    private static void fetch(final AppLovinSdk sdk, final InFlightLoad inFlightLoad)
+    {
+        final String zoneId = inFlightLoad.inventory.zoneId;
+
+        // If this is a default Zone, load the interstitial ad normally
+        if ( DEFAULT_ZONE.equals( zoneId ) )
+        {
+            sdk.getAdService().loadNextAd( AppLovinAdSize.INTERSTITIAL, inFlightLoad );
+        }
+        // Otherwise, use the Zones API
+        else
+        {
+            sdk.getAdService().loadNextAdForZoneId( zoneId, inFlightLoad );
+        }
+    }
+
+    /**
+     * Trims the pool so that one more ad fits in its memory budget. This runs before the ad is added, so the trim never picks the ad being added.
+     */
+    private static void makeRoomForAd()
+    {
+        trimToBudget( 1 );
+    }
+
+    private static void trimToBudget()
+    {
+        trimToBudget( 0 );
+    }
+
+    /**
+     * Evicts ads, oldest first, from the least recently requested zones until the pool, plus the given number of incoming ads, fits in its memory
+     * budget. Reserved ads are held outside the pool, so they are never evicted.
+     */
+    private static void trimToBudget(final int incomingCount)
+    {
+        while ( (long) ( CACHED_AD_COUNT.get() + incomingCount ) * estimatedAdSizeBytes > memoryBudgetBytes )
+        {
+            ZoneInventory lruInventory = null;
+            long lruAccessMillis = Long.MAX_VALUE;
+
+            for ( final ZoneInventory inventory : GLOBAL_INTERSTITIAL_ADS.values() )
+            {
+                synchronized ( inventory )
+                {
+                    if ( inventory.count > 0 && inventory.lastAccessMillis < lruAccessMillis )
+                    {
+                        lruInventory = inventory;
+                        lruAccessMillis = inventory.lastAccessMillis;
+                    }
+                }
+            }
+
+            if ( lruInventory == null ) return;
+
+            synchronized ( lruInventory )
+            {
+                final AppLovinAd evictedAd = lruInventory.poll();
+                if ( evictedAd != null )
+                {
+                    EVICTED_COUNT.incrementAndGet();
+                    log( DEBUG, "Over memory budget, evicting ad: {} for zone: {{}}", evictedAd.getAdIdNumber(), lruInventory.zoneId );
+                }
+            }
+        }
+    }
+
+    private static void scheduleSweep()
+    {
+        if ( SWEEP_SCHEDULED.compareAndSet( false, true ) )
+        {
+            SWEEPER.schedule( SWEEP_TASK, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    /**
+     * Evicts expired ads from every zone, along with the ads of zones that went idle, and keeps sweeping for as long as there are ads left in the pool.
+     */
+    private static void sweep()
+    {
+        SWEEP_SCHEDULED.set( false );
+
+        final long nowMillis = SystemClock.elapsedRealtime();
+        int remainingCount = 0;
+
+        for ( final ZoneInventory inventory : GLOBAL_INTERSTITIAL_ADS.values() )
+        {
+            synchronized ( inventory )
+            {
+                remainingCount += inventory.evictIdleAds( nowMillis );
+            }
+        }
+
+        if ( remainingCount > 0 )
+        {
+            scheduleSweep();
+        }
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
+    }
+
+    /**
+     * A snapshot of the pool's counters.
+     */
+    public static final class Stats
+    {
+        private final int  cachedAdCount;
+        private final long hitCount;
+        private final long missCount;
+        private final long expiredCount;
+        private final long evictedCount;
+
+        private Stats(final int cachedAdCount, final long hitCount, final long missCount, final long expiredCount, final long evictedCount)
+        {
+            this.cachedAdCount = cachedAdCount;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.expiredCount = expiredCount;
+            this.evictedCount = evictedCount;
+        }
+
+        /**
+         * @return The number of ads currently cached across all zones.
+         */
+        public int getCachedAdCount()
+        {
+            return cachedAdCount;
+        }
+
+        /**
+         * @return The number of mediation requests served from the pool.
+         */
+        public long getHitCount()
+        {
+            return hitCount;
+        }
+
+        /**
+         * @return The number of mediation requests that had to load an ad from the network.
+         */
+        public long getMissCount()
+        {
+            return missCount;
+        }
+
+        /**
+         * @return The number of ads dropped because their TTL elapsed.
+         */
+        public long getExpiredCount()
+        {
+            return expiredCount;
+        }
+
+        /**
+         * @return The number of unexpired ads dropped to stay within the memory budget or a zone's capacity.
+         */
+        public long getEvictedCount()
+        {
+            return evictedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Stats{cached=" + cachedAdCount + ", hits=" + hitCount + ", misses=" + missCount + ", expired=" + expiredCount + ", evicted=" + evictedCount + "}";
+        }
+    }
+
+    /**
+     * An ad taken out of the pool for a mediation request, which it keeps until shown.
+     */
+    static final class ReservedAd
+    {
+        private final AppLovinAd ad;
+        private final String     zoneId;
+        private final long       expirationMillis;
+
+        private ReservedAd(final AppLovinAd ad, final String zoneId, final long expirationMillis)
+        {
+            this.ad = ad;
+            this.zoneId = zoneId;
+            this.expirationMillis = expirationMillis;
+        }
+
+        AppLovinAd getAd()
+        {
+            return ad;
+        }
+
+        String getZoneId()
+        {
+            return zoneId;
+        }
+
+        /**
+         * @return Whether the ad's TTL elapsed, as of the given {@link SystemClock#elapsedRealtime()}.
+         */
+        boolean isExpired(final long nowMillis)
+        {
+            return nowMillis >= expirationMillis;
+        }
+    }
+
+    /**
+     * The ads and settings of a single zone. All fields are guarded by the instance's monitor.
+     * <p>
+     * Ads are kept in load order in a fixed-size ring buffer, so expired ads are always at the head.
+     */
+    private static final class ZoneInventory
+    {
+        private final String zoneId;
+
+        private final AppLovinAd[] ads             = new AppLovinAd[ZONE_CAPACITY];
+        private final long[]       loadTimesMillis = new long[ZONE_CAPACITY];
+        private       int          head;
+        private       int          count;
+
+        private int     preloadDepth = DEFAULT_PRELOAD_DEPTH;
+        private boolean preloadDepthFixed; // Whether the depth was set explicitly, rather than sized from the zone's demand
+        private int     loadFanOut   = DEFAULT_LOAD_FAN_OUT;
+        private long    adTtlMillis  = DEFAULT_AD_TTL_MILLIS;
+        private int     pendingLoadCount;
+        private int     waitingCount; // The mediation requests waiting on the zone's network loads
+        private long    lastAccessMillis;
+
+        // Exponentially decayed estimates, in events per millisecond, as of `rateUpdateMillis`
+        private double  requestRate;
+        private double  showRate;
+        private long    rateUpdateMillis;
+        private boolean ratesSeeded; // Whether the rates were seeded from the previous session's
+
+        private ZoneInventory(final String zoneId)
+        {
+            this.zoneId = zoneId;
+        }
+
+        /**
+         * Adds the ad in load order, which is at the tail unless it is a released ad that was loaded earlier.
+         */
+        private void offer(final AppLovinAd ad, final long loadTimeMillis)
+        {
+            if ( count == ZONE_CAPACITY )
+            {
+                final AppLovinAd droppedAd = poll();
+                EVICTED_COUNT.incrementAndGet();
+                log( DEBUG, "Zone: {{}} is full, dropping oldest ad: {}", zoneId, droppedAd.getAdIdNumber() );
+            }
+
+            int position = count;
+            while ( position > 0 && loadTimesMillis[( head + position - 1 ) % ZONE_CAPACITY] > loadTimeMillis )
+            {
+                final int from = ( head + position - 1 ) % ZONE_CAPACITY;
+                final int to = ( head + position ) % ZONE_CAPACITY;
+                ads[to] = ads[from];
+                loadTimesMillis[to] = loadTimesMillis[from];
+                position--;
+            }
+
+            final int index = ( head + position ) % ZONE_CAPACITY;
+            ads[index] = ad;
+            loadTimesMillis[index] = loadTimeMillis;
+            count++;
+
+            CACHED_AD_COUNT.incrementAndGet();
+        }
+
+        private AppLovinAd poll()
+        {
+            if ( count == 0 ) return null;
+
+            final AppLovinAd ad = ads[head];
+            ads[head] = null;
+            head = ( head + 1 ) % ZONE_CAPACITY;
+            count--;
+
+            CACHED_AD_COUNT.decrementAndGet();
+
+            return ad;
+        }
+
+        private void recordRequest(final long nowMillis)
+        {
+            // The first request comes after the SDK initialized, so the persisted stats are loaded by then
+            if ( !ratesSeeded )
+            {
+                ratesSeeded = true;
+                requestRate = Math.max( 0, AppLovinZoneStatsStore.getRequestRate( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId ) );
+                showRate = Math.max( 0, AppLovinZoneStatsStore.getShowRate( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId ) );
+                rateUpdateMillis = nowMillis;
+            }
+
+            decayRates( nowMillis );
+            requestRate += 1.0 / RATE_TIME_CONSTANT_MILLIS;
+
+            AppLovinZoneStatsStore.recordRates( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId, requestRate, showRate );
+        }
+
+        private void recordShow(final long nowMillis)
+        {
+            decayRates( nowMillis );
+            showRate += 1.0 / RATE_TIME_CONSTANT_MILLIS;
+
+            AppLovinZoneStatsStore.recordRates( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneId, requestRate, showRate );
+        }
+
+        private void decayRates(final long nowMillis)
+        {
+            if ( nowMillis <= rateUpdateMillis ) return;
+
+            final double decay = Math.exp( -(double) ( nowMillis - rateUpdateMillis ) / RATE_TIME_CONSTANT_MILLIS );
+            requestRate *= decay;
+            showRate *= decay;
+            rateUpdateMillis = nowMillis;
+        }
+
+        /**
+         * @return The number of ads to keep preloaded: the fixed depth if set, 0 if the zone is idle, otherwise enough ads to cover the shows
+         * expected while a replacement loads, on top of the default depth.
+         */
+        private int getTargetDepth(final long nowMillis, final long loadLatencyMillis)
+        {
+            if ( preloadDepthFixed ) return preloadDepth;
+
+            decayRates( nowMillis );
+            if ( requestRate < IDLE_REQUEST_RATE ) return 0;
+
+            return (int) Math.min( DEFAULT_PRELOAD_DEPTH + (long) ( showRate * loadLatencyMillis ), MAX_PRELOAD_DEPTH );
+        }
+
+        /**
+         * Drops expired ads, then the preloaded ads of a zone that went idle.
+         *
+         * @return The number of ads left.
+         */
+        private int evictIdleAds(final long nowMillis)
+        {
+            evictExpiredAds( nowMillis );
+
+            // Ads promised to mediation requests are reserved outside the buffer, and a zone with requests still waiting on a load is not idle
+            if ( !preloadDepthFixed && waitingCount == 0 && getTargetDepth( nowMillis, 0 ) == 0 )
+            {
+                while ( count > 0 )
+                {
+                    final AppLovinAd idleAd = poll();
+                    EVICTED_COUNT.incrementAndGet();
+                    log( DEBUG, "Zone: {{}} is idle, evicting ad: {}", zoneId, idleAd.getAdIdNumber() );
+                }
+            }
+
+            return count;
+        }
+
+        /**
+         * Drops expired ads from the head of the buffer.
+         *
+         * @return The number of unexpired ads left.
+         */
+        private int evictExpiredAds(final long nowMillis)
+        {
+            while ( count > 0 && nowMillis - loadTimesMillis[head] >= adTtlMillis )
+            {
+                final AppLovinAd expiredAd = poll();
+                EXPIRED_COUNT.incrementAndGet();
+                log( DEBUG, "Evicting expired ad: {} for zone: {{}}", expiredAd.getAdIdNumber(), zoneId );
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * The loads in flight for a given SDK and zone, and the mediation requests waiting on them. Fields are guarded by the instance's monitor.
+     * <p>
+     * Each successful load is handed to the oldest waiter alone, or added to the pool if nobody is waiting. Waiters left over beyond the loads still
+     * outstanding get loads of their own, up to the zone's fan-out. Waiters are only failed once the last outstanding load fails. Each network
+     * result is recorded once in the zone's circuit breaker.
+     */
+    private static final class InFlightLoad
+            implements AppLovinAdLoadListener
+    {
+        private final AppLovinSdk                  sdk;
+        private final ZoneInventory                inventory;
+        private final AppLovinCircuitBreaker       circuitBreaker;
+        private final List<AppLovinAdLoadListener> waiters = new ArrayList<AppLovinAdLoadListener>();
+        private       int                          fetchCount;
+
+        private InFlightLoad(final AppLovinSdk sdk, final ZoneInventory inventory, final AppLovinCircuitBreaker circuitBreaker)
+        {
+            this.sdk = sdk;
+            this.inventory = inventory;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        /**
+         * Adds the listener as a waiter.
+         *
+         * @return Whether a new network load should be started for it, as opposed to joining one already in flight.
+         */
+        private boolean join(final AppLovinAdLoadListener listener)
+        {
+            final int loadFanOut;
+            synchronized ( inventory )
+            {
+                loadFanOut = inventory.loadFanOut;
+            }
+
+            final boolean shouldFetch;
+            synchronized ( this )
+            {
+                waiters.add( listener );
+
+                shouldFetch = fetchCount < loadFanOut;
+                if ( shouldFetch )
+                {
+                    fetchCount++;
+                }
+            }
+
+            onWaitersChanged( 1 );
+
+            if ( shouldFetch )
+            {
+                onFetchStarted();
+            }
+
+            return shouldFetch;
+        }
+
+        private void leave(final AppLovinAdLoadListener listener)
+        {
+            final boolean removed;
+            synchronized ( this )
+            {
+                removed = waiters.remove( listener );
+            }
+
+            if ( removed ) onWaitersChanged( -1 );
+        }
+
+        private void startPreload()
+        {
+            synchronized ( this )
+            {
+                fetchCount++;
+            }
+
+            onFetchStarted();
+        }
+
+        private void onFetchStarted()
+        {
+            synchronized ( inventory )
+            {
+                inventory.pendingLoadCount++;
+            }
+        }
+
+        private void onWaitersChanged(final int delta)
+        {
+            synchronized ( inventory )
+            {
+                inventory.waitingCount = Math.max( 0, inventory.waitingCount + delta );
+            }
+        }
+
+        @Override
+        public void adReceived(final AppLovinAd ad)
+        {
+            log( DEBUG, "Loaded ad: {} for zone: {{}}", ad.getAdIdNumber(), inventory.zoneId );
+            circuitBreaker.onSuccess();
+
+            final int loadFanOut;
+            synchronized ( inventory )
+            {
+                inventory.pendingLoadCount = Math.max( 0, inventory.pendingLoadCount - 1 );
+                loadFanOut = inventory.loadFanOut;
+            }
+
+            final AppLovinAdLoadListener waiter;
+            final int extraFetchCount;
+            synchronized ( this )
+            {
+                fetchCount = Math.max( 0, fetchCount - 1 );
+                waiter = waiters.isEmpty() ? null : waiters.remove( 0 );
+
+                // Waiters that the outstanding loads will not cover get loads of their own
+                extraFetchCount = Math.max( 0, Math.min( waiters.size(), loadFanOut ) - fetchCount );
+                fetchCount += extraFetchCount;
+            }
+
+            for ( int i = 0; i < extraFetchCount; i++ )
+            {
+                onFetchStarted();
+                fetch( sdk, this );
+            }
+
+            if ( waiter != null )
+            {
+                onWaitersChanged( -1 );
+                waiter.adReceived( ad );
+            }
+            else
+            {
+                makeRoomForAd();
+
+                synchronized ( inventory )
+                {
+                    inventory.offer( ad, SystemClock.elapsedRealtime() );
+                }
+
+                scheduleSweep();
+            }
+        }
+
+        @Override
+        public void failedToReceiveAd(final int errorCode)
+        {
+            log( ERROR, "Failed to load ad for zone: {{}} with error: {}", inventory.zoneId, errorCode );
+            circuitBreaker.onFailure( errorCode );
+
+            synchronized ( inventory )
+            {
+                inventory.pendingLoadCount = Math.max( 0, inventory.pendingLoadCount - 1 );
+            }
+
+            final AppLovinAdLoadListener[] notifiedWaiters;
+            synchronized ( this )
+            {
+                fetchCount = Math.max( 0, fetchCount - 1 );
+                notifiedWaiters = ( fetchCount == 0 ) ? takeWaiters( waiters.size() ) : NO_WAITERS;
+            }
+
+            if ( notifiedWaiters.length > 0 ) onWaitersChanged( -notifiedWaiters.length );
+
+            for ( final AppLovinAdLoadListener waiter : notifiedWaiters )
+            {
+                waiter.failedToReceiveAd( errorCode );
+            }
+        }
+
+        private AppLovinAdLoadListener[] takeWaiters(final int count)
+        {
+            if ( count == 0 || waiters.isEmpty() ) return NO_WAITERS;
+
+            final List<AppLovinAdLoadListener> takenWaiters = waiters.subList( 0, Math.min( count, waiters.size() ) );
+            final AppLovinAdLoadListener[] result = takenWaiters.toArray( new AppLovinAdLoadListener[takenWaiters.size()] );
+            takenWaiters.clear();
+
+            return result;
+        }
+    }
+
+    /**
+     * A mediation request's load across several zones, where the first zone to fill wins. Fields are guarded by the instance's monitor.
+     * <p>
+     * Zones are loaded in order: the next zone's load starts once the previous one fails or runs past the p90 of its zone's load latencies, or
+     * right away when loading in parallel. Only the first fill is passed to the listener; ads that arrive after it are added to their zone's pool.
+     */
+    static final class MultiZoneLoad
+            implements Runnable
+    {
+        private final AppLovinSdk            sdk;
+        private final List<String>           zoneIds;
+        private final boolean                parallel;
+        private final AppLovinAdLoadListener listener;
+
+        private final List<ZoneLoad> zoneLoads = new ArrayList<ZoneLoad>();
+        private       int            failedCount;
+        private       boolean        done;
+        private       String         filledZoneId;
+
+        MultiZoneLoad(final AppLovinSdk sdk, final List<String> zoneIds, final boolean parallel, final AppLovinAdLoadListener listener)
+        {
+            this.sdk = sdk;
+            this.zoneIds = zoneIds;
+            this.parallel = parallel;
+            this.listener = listener;
+        }
+
+        void load()
+        {
+            loadNextZone();
+        }
+
+        /**
+         * @return The zone whose ad was passed to the listener, or {@code null} if none filled yet.
+         */
+        synchronized String getFilledZoneId()
+        {
+            return filledZoneId;
+        }
+
+        /**
+         * Stops waiting on the zones, e.g. once the request's deadline passed. Loads keep going, and their ads are added to their zone's pool.
+         */
+        void abandon()
+        {
+            final ZoneLoad[] abandonedLoads;
+            synchronized ( this )
+            {
+                if ( done ) return;
+
+                done = true;
+                abandonedLoads = zoneLoads.toArray( new ZoneLoad[zoneLoads.size()] );
+            }
+
+            AppLovinMainThreadDispatcher.cancel( this );
+
+            for ( final ZoneLoad zoneLoad : abandonedLoads )
+            {
+                abandonLoad( sdk, zoneLoad.zoneId, zoneLoad );
+            }
+        }
+
+        /**
+         * Hedges the zones loading so far by also loading from the next zone.
+         */
+        @Override
+        public void run()
+        {
+            loadNextZone();
+        }
+
+        private void loadNextZone()
+        {
+            AppLovinMainThreadDispatcher.cancel( this );
+
+            final ZoneLoad zoneLoad;
+            final boolean isHedge;
+            final boolean hasNextZone;
+            synchronized ( this )
+            {
+                if ( done || zoneLoads.size() >= zoneIds.size() ) return;
+
+                zoneLoad = new ZoneLoad( zoneIds.get( zoneLoads.size() ) );
+                zoneLoads.add( zoneLoad );
+
+                isHedge = zoneLoads.size() > 1;
+                hasNextZone = zoneLoads.size() < zoneIds.size();
+            }
+
+            // Zones whose circuit breaker is open fail right away, without a network round trip
+            if ( !zoneLoad.circuitBreaker.allowRequest() )
+            {
+                log( DEBUG, "Skipping zone: {{}} while its circuit breaker is open", zoneLoad.zoneId );
+                onZoneFailed( zoneLoad.circuitBreaker.getErrorCode() );
+
+                return;
+            }
+
+            if ( isHedge ) log( DEBUG, "Also loading from zone: {{}}", zoneLoad.zoneId );
+            loadAd( sdk, zoneLoad.zoneId, zoneLoad );
+
+            if ( hasNextZone )
+            {
+                if ( parallel )
+                {
+                    loadNextZone();
+                }
+                else
+                {
+                    final long p90Millis = AppLovinLatencyStats.getValueAtPercentile( AppLovinLatencyStats.FORMAT_INTERSTITIAL, zoneLoad.zoneId, AppLovinLatencyStats.PHASE_LOAD_CACHE_MISS, 90 );
+                    AppLovinMainThreadDispatcher.dispatchDelayed( this, ( p90Millis >= 0 ) ? p90Millis : DEFAULT_HEDGE_DELAY_MILLIS );
+                }
+            }
+        }
+
+        private void onZoneLoaded(final ZoneLoad filledLoad, final AppLovinAd ad)
+        {
+            final ZoneLoad[] losingLoads;
+            synchronized ( this )
+            {
+                if ( done )
+                {
+                    // Nobody is waiting for the ad any more
+                    enqueueAd( ad, filledLoad.zoneId );
+                    return;
+                }
+
+                done = true;
+                filledZoneId = filledLoad.zoneId;
+
+                zoneLoads.remove( filledLoad );
+                losingLoads = zoneLoads.toArray( new ZoneLoad[zoneLoads.size()] );
+            }
+
+            AppLovinMainThreadDispatcher.cancel( this );
+
+            // The losing zones' ads go to their pools
+            for ( final ZoneLoad zoneLoad : losingLoads )
+            {
+                abandonLoad( sdk, zoneLoad.zoneId, zoneLoad );
+            }
+
+            listener.adReceived( ad );
+        }
+
+        private void onZoneFailed(final int errorCode)
+        {
+            final boolean allFailed;
+            final boolean noneLoading;
+            synchronized ( this )
+            {
+                if ( done ) return;
+
+                failedCount++;
+                allFailed = failedCount >= zoneIds.size();
+                noneLoading = failedCount >= zoneLoads.size();
+
+                if ( allFailed ) done = true;
+            }
+
+            if ( allFailed )
+            {
+                AppLovinMainThreadDispatcher.cancel( this );
+                listener.failedToReceiveAd( errorCode );
+            }
+            else if ( noneLoading || parallel )
+            {
+                // Move on to the next zone without waiting to hedge
+                loadNextZone();
+            }
+        }
+
+        /**
+         * The load of one of the zones.
+         */
+        private final class ZoneLoad
+                implements AppLovinAdLoadListener
+        {
+            private final String                 zoneId;
+            private final AppLovinCircuitBreaker circuitBreaker;
+
+            private ZoneLoad(final String zoneId)
+            {
+                this.zoneId = zoneId;
+                this.circuitBreaker = AppLovinCircuitBreaker.get( AppLovinLatencyStats.FORMAT_INTERSTITIAL, sdk, zoneId );
+            }
+
+            // The outcome is recorded in the circuit breaker by the zone's in-flight load, once for all the requests that joined it
+            @Override
+            public void adReceived(final AppLovinAd ad)
+            {
+                onZoneLoaded( this, ad );
+            }
+
+            @Override
+            public void failedToReceiveAd(final int errorCode)
+            {
+                onZoneFailed( errorCode );
+            }
+        }
+    }
+}
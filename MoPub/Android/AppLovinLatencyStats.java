@@ -0,0 +1,298 @@
+package YOUR_PACKAGE_NAME;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histograms of the AppLovin adapters, per ad format, zone and phase, e.g. to tune preload depths or to catch regressions between SDK versions.
+ * <p>
+ * Each histogram has log-linear buckets, as in HdrHistogram: 16 buckets per power of two, so recorded values are accurate to within ~6%, up to
+ * {@link #MAX_TRACKABLE_MILLIS}. Recording is lock-free and does not allocate once a zone has been seen. Use {@link #getSnapshots()} to read p50/p99
+ * latencies.
+ */
+public final class AppLovinLatencyStats
+{
+    public static final int FORMAT_INTERSTITIAL = 0;
+    public static final int FORMAT_REWARDED     = 1;
+    public static final int FORMAT_BANNER       = 2;
+    public static final int FORMAT_NATIVE       = 3;
+
+    /**
+     * From the mediation request to an ad that was already cached or preloaded.
+     */
+    public static final int PHASE_LOAD_CACHE_HIT = 0;
+
+    /**
+     * From the mediation request to an ad loaded from the network.
+     */
+    public static final int PHASE_LOAD_CACHE_MISS = 1;
+
+    /**
+     * From the mediation request to a failed load.
+     */
+    public static final int PHASE_LOAD_FAILED = 2;
+
+    /**
+     * From the show call to the ad being displayed.
+     */
+    public static final int PHASE_SHOW = 3;
+
+    private static final String[] FORMAT_NAMES = { "interstitial", "rewarded", "banner", "native" };
+    private static final String[] PHASE_NAMES  = { "load_cache_hit", "load_cache_miss", "load_failed", "show" };
+
+    /**
+     * Latencies above this are recorded as this value.
+     */
+    public static final long MAX_TRACKABLE_MILLIS = ( 1L << 20 ) - 1; // ~17 minutes
+
+    private static final int SUB_BUCKET_BITS  = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT     = bucketIndex( MAX_TRACKABLE_MILLIS ) + 1;
+
+    // Each phase of a zone takes a run of slots in the zone's array: its count, sum and max, then its bucket counts
+    private static final int COUNT_OFFSET   = 0;
+    private static final int SUM_OFFSET     = 1;
+    private static final int MAX_OFFSET     = 2;
+    private static final int BUCKETS_OFFSET = 3;
+    private static final int PHASE_STRIDE   = BUCKETS_OFFSET + BUCKET_COUNT;
+
+    // Per format, a map of zone -> the histograms of all its phases
+    private static final List<ConcurrentMap<String, AtomicLongArray>> HISTOGRAMS = new ArrayList<ConcurrentMap<String, AtomicLongArray>>( FORMAT_NAMES.length );
+
+    static
+    {
+        for ( int i = 0; i < FORMAT_NAMES.length; i++ )
+        {
+            HISTOGRAMS.add( new ConcurrentHashMap<String, AtomicLongArray>() );
+        }
+    }
+
+    private AppLovinLatencyStats() {}
+
+    /**
+     * Records the latency of a phase, for the given ad format and zone.
+     */
+    public static void record(final int format, final String zoneId, final int phase, final long latencyMillis)
+    {
+        final ConcurrentMap<String, AtomicLongArray> zoneHistograms = HISTOGRAMS.get( format );
+        final String zone = ( zoneId != null ) ? zoneId : "";
+
+        AtomicLongArray histograms = zoneHistograms.get( zone );
+        if ( histograms == null )
+        {
+            final AtomicLongArray newHistograms = new AtomicLongArray( PHASE_NAMES.length * PHASE_STRIDE );
+            histograms = zoneHistograms.putIfAbsent( zone, newHistograms );
+            if ( histograms == null )
+            {
+                histograms = newHistograms;
+            }
+        }
+
+        final long value = Math.max( 0, Math.min( latencyMillis, MAX_TRACKABLE_MILLIS ) );
+        final int base = phase * PHASE_STRIDE;
+
+        histograms.incrementAndGet( base + BUCKETS_OFFSET + bucketIndex( value ) );
+        histograms.addAndGet( base + SUM_OFFSET, value );
+        histograms.incrementAndGet( base + COUNT_OFFSET );
+
+        long max = histograms.get( base + MAX_OFFSET );
+        while ( value > max && !histograms.compareAndSet( base + MAX_OFFSET, max, value ) )
+        {
+            max = histograms.get( base + MAX_OFFSET );
+        }
+    }
+
+    /**
+     * Returns a snapshot of every histogram with at least one recorded latency. Each snapshot is copied without blocking recording, so its
+     * counts may be off by the few latencies recorded while it was taken.
+     */
+    public static List<Snapshot> getSnapshots()
+    {
+        final List<Snapshot> snapshots = new ArrayList<Snapshot>();
+
+        for ( int format = 0; format < FORMAT_NAMES.length; format++ )
+        {
+            for ( final Map.Entry<String, AtomicLongArray> entry : HISTOGRAMS.get( format ).entrySet() )
+            {
+                final AtomicLongArray histograms = entry.getValue();
+
+                for ( int phase = 0; phase < PHASE_NAMES.length; phase++ )
+                {
+                    final int base = phase * PHASE_STRIDE;
+
+                    final long count = histograms.get( base + COUNT_OFFSET );
+                    if ( count == 0 ) continue;
+
+                    final long[] bucketCounts = new long[ BUCKET_COUNT ];
+                    for ( int i = 0; i < BUCKET_COUNT; i++ )
+                    {
+                        bucketCounts[i] = histograms.get( base + BUCKETS_OFFSET + i );
+                    }
+
+                    snapshots.add( new Snapshot( FORMAT_NAMES[format], entry.getKey(), PHASE_NAMES[phase], count, histograms.get( base + SUM_OFFSET ), histograms.get( base + MAX_OFFSET ), bucketCounts ) );
+                }
+            }
+        }
+
+        return Collections.unmodifiableList( snapshots );
+    }
+
+    /**
+     * Reads a percentile straight from the live histogram, without copying it, e.g. to pick a hedging delay on the request path.
+     *
+     * @param percentile A percentile between 0 and 100, e.g. 90 for the p90.
+     *
+     * @return The latency at or below which the given percentage of the phase's recorded latencies fall, or -1 if none were recorded.
+     */
+    public static long getValueAtPercentile(final int format, final String zoneId, final int phase, final double percentile)
+    {
+        final AtomicLongArray histograms = HISTOGRAMS.get( format ).get( ( zoneId != null ) ? zoneId : "" );
+        if ( histograms == null ) return -1;
+
+        final int base = phase * PHASE_STRIDE;
+
+        final long count = histograms.get( base + COUNT_OFFSET );
+        if ( count == 0 ) return -1;
+
+        final long maxMillis = histograms.get( base + MAX_OFFSET );
+        final long targetCount = Math.max( 1, (long) Math.ceil( Math.min( percentile, 100 ) / 100 * count ) );
+
+        long cumulativeCount = 0;
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            cumulativeCount += histograms.get( base + BUCKETS_OFFSET + i );
+            if ( cumulativeCount >= targetCount ) return Math.min( highestValueInBucket( i ), maxMillis );
+        }
+
+        return maxMillis;
+    }
+
+    /**
+     * Discards all recorded latencies, e.g. after updating the AppLovin SDK.
+     */
+    public static void reset()
+    {
+        for ( final ConcurrentMap<String, AtomicLongArray> zoneHistograms : HISTOGRAMS )
+        {
+            zoneHistograms.clear();
+        }
+    }
+
+    private static int bucketIndex(final long value)
+    {
+        if ( value < SUB_BUCKET_COUNT ) return (int) value;
+
+        // The highest set bit picks the power of two, and the next SUB_BUCKET_BITS bits pick the bucket within it
+        final int shift = ( 63 - Long.numberOfLeadingZeros( value ) ) - SUB_BUCKET_BITS;
+        return ( shift + 1 ) * SUB_BUCKET_COUNT + (int) ( ( value >>> shift ) - SUB_BUCKET_COUNT );
+    }
+
+    /**
+     * @return The highest value recorded into the given bucket.
+     */
+    private static long highestValueInBucket(final int index)
+    {
+        if ( index < SUB_BUCKET_COUNT ) return index;
+
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ( ( subBucket + 1 ) << shift ) - 1;
+    }
+
+    /**
+     * A copy of one histogram: the latencies of a phase, for an ad format and zone.
+     */
+    public static final class Snapshot
+    {
+        private final String format;
+        private final String zoneId;
+        private final String phase;
+        private final long   count;
+        private final long   sumMillis;
+        private final long   maxMillis;
+        private final long[] bucketCounts;
+
+        private Snapshot(final String format, final String zoneId, final String phase, final long count, final long sumMillis, final long maxMillis, final long[] bucketCounts)
+        {
+            this.format = format;
+            this.zoneId = zoneId;
+            this.phase = phase;
+            this.count = count;
+            this.sumMillis = sumMillis;
+            this.maxMillis = maxMillis;
+            this.bucketCounts = bucketCounts;
+        }
+
+        /**
+         * @return The ad format, e.g. "interstitial".
+         */
+        public String getFormat()
+        {
+            return format;
+        }
+
+        /**
+         * @return The zone identifier, empty for the default zone.
+         */
+        public String getZoneId()
+        {
+            return zoneId;
+        }
+
+        /**
+         * @return The phase, e.g. "load_cache_miss".
+         */
+        public String getPhase()
+        {
+            return phase;
+        }
+
+        /**
+         * @return The number of recorded latencies.
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        public long getMeanMillis()
+        {
+            return sumMillis / count;
+        }
+
+        public long getMaxMillis()
+        {
+            return maxMillis;
+        }
+
+        /**
+         * @param percentile A percentile between 0 and 100, e.g. 99 for the p99.
+         *
+         * @return The latency at or below which the given percentage of the recorded latencies fall.
+         */
+        public long getValueAtPercentile(final double percentile)
+        {
+            final long targetCount = Math.max( 1, (long) Math.ceil( Math.min( percentile, 100 ) / 100 * count ) );
+
+            long cumulativeCount = 0;
+            for ( int i = 0; i < bucketCounts.length; i++ )
+            {
+                cumulativeCount += bucketCounts[i];
+                if ( cumulativeCount >= targetCount ) return Math.min( highestValueInBucket( i ), maxMillis );
+            }
+
+            return maxMillis;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Snapshot{" + format + ", zone=" + zoneId + ", " + phase + ", count=" + count + ", p50=" + getValueAtPercentile( 50 ) + "ms, p99=" + getValueAtPercentile( 99 ) + "ms, max=" + maxMillis + "ms}";
+        }
+    }
+}
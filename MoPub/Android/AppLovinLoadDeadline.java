@@ -0,0 +1,137 @@
+package YOUR_PACKAGE_NAME;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A time limit on an adapter's ad load, so a slow AppLovin fetch fails back to the mediation waterfall right away instead of holding it up until
+ * the SDK's own fetch timeout.
+ * <p>
+ * Deadlines are configured per ad format and zone with {@link #setDeadline(int, String, long)}. Each adapter owns one instance: it calls
+ * {@link #start(long)} when it starts a load and {@link #finish()} from the load's callbacks. If the deadline passes first, the expiry callback
+ * runs on the main thread to fail the request, and {@link #finish()} tells the late callback that its request is gone, so the adapter keeps a
+ * late ad for a later request instead of dropping it.
+ */
+public final class AppLovinLoadDeadline
+        implements Runnable
+{
+    // Per ad format, as in `AppLovinLatencyStats`: interstitial, rewarded, banner and native
+    private static final long[] DEFAULT_DEADLINES_MILLIS = {
+            TimeUnit.SECONDS.toMillis( 10 ),
+            TimeUnit.SECONDS.toMillis( 15 ),
+            TimeUnit.SECONDS.toMillis( 5 ),
+            TimeUnit.SECONDS.toMillis( 8 )
+    };
+
+    // Per format, a map of zone -> deadline
+    private static final List<ConcurrentMap<String, Long>> DEADLINES = new ArrayList<ConcurrentMap<String, Long>>( DEFAULT_DEADLINES_MILLIS.length );
+
+    // Per format, a map of zone -> deadline seeded from the zone's latencies in previous sessions, used unless a deadline is set
+    private static final List<ConcurrentMap<String, Long>> SEEDED_DEADLINES = new ArrayList<ConcurrentMap<String, Long>>( DEFAULT_DEADLINES_MILLIS.length );
+
+    static
+    {
+        for ( int i = 0; i < DEFAULT_DEADLINES_MILLIS.length; i++ )
+        {
+            DEADLINES.add( new ConcurrentHashMap<String, Long>() );
+            SEEDED_DEADLINES.add( new ConcurrentHashMap<String, Long>() );
+        }
+    }
+
+    private static final int STATE_IDLE    = 0;
+    private static final int STATE_PENDING = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    private final Runnable      expiryCallback;
+    private final AtomicInteger state = new AtomicInteger( STATE_IDLE );
+
+    /**
+     * @param expiryCallback Run on the main thread if the deadline of a load passes before it finishes.
+     */
+    public AppLovinLoadDeadline(final Runnable expiryCallback)
+    {
+        this.expiryCallback = expiryCallback;
+    }
+
+    /**
+     * Sets how long, in milliseconds, loads of the given ad format and zone may take before failing with a timeout. A deadline of 0 leaves
+     * them to the SDK's own timeout.
+     *
+     * @param format One of the {@code AppLovinLatencyStats.FORMAT_*} constants.
+     */
+    public static void setDeadline(final int format, final String zoneId, final long deadlineMillis)
+    {
+        DEADLINES.get( format ).put( ( zoneId != null ) ? zoneId : "", Math.max( 0, deadlineMillis ) );
+    }
+
+    /**
+     * Seeds the deadline of loads of the given ad format and zone from previous sessions. It only ever shortens the default deadline, and a deadline
+     * set with {@link #setDeadline(int, String, long)} takes precedence.
+     */
+    static void seedDeadline(final int format, final String zoneId, final long deadlineMillis)
+    {
+        SEEDED_DEADLINES.get( format ).put( ( zoneId != null ) ? zoneId : "", Math.min( deadlineMillis, DEFAULT_DEADLINES_MILLIS[format] ) );
+    }
+
+    /**
+     * @param format One of the {@code AppLovinLatencyStats.FORMAT_*} constants.
+     *
+     * @return How long, in milliseconds, loads of the given ad format and zone may take, or 0 for no deadline.
+     */
+    public static long getDeadline(final int format, final String zoneId)
+    {
+        final String key = ( zoneId != null ) ? zoneId : "";
+
+        final Long deadlineMillis = DEADLINES.get( format ).get( key );
+        if ( deadlineMillis != null ) return deadlineMillis;
+
+        final Long seededDeadlineMillis = SEEDED_DEADLINES.get( format ).get( key );
+        return ( seededDeadlineMillis != null ) ? seededDeadlineMillis : DEFAULT_DEADLINES_MILLIS[format];
+    }
+
+    /**
+     * Starts the deadline of a new load, replacing the one of any previous load.
+     */
+    public void start(final long deadlineMillis)
+    {
+        AppLovinMainThreadDispatcher.cancel( this );
+        state.set( STATE_PENDING );
+
+        if ( deadlineMillis > 0 )
+        {
+            AppLovinMainThreadDispatcher.dispatchDelayed( this, deadlineMillis );
+        }
+    }
+
+    /**
+     * Stops the deadline of the current load, from its load callback.
+     *
+     * @return Whether the request is still waiting for this callback, i.e. it did not already fail by its deadline.
+     */
+    public boolean finish()
+    {
+        AppLovinMainThreadDispatcher.cancel( this );
+        return state.getAndSet( STATE_IDLE ) != STATE_EXPIRED;
+    }
+
+    /**
+     * @return Whether the deadline of the current load has passed, without stopping it.
+     */
+    public boolean hasExpired()
+    {
+        return state.get() == STATE_EXPIRED;
+    }
+
+    @Override
+    public void run()
+    {
+        if ( state.compareAndSet( STATE_PENDING, STATE_EXPIRED ) )
+        {
+            expiryCallback.run();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package YOUR_PACKAGE_NAME;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayDeque;
+
+import static android.util.Log.ERROR;
+
+/**
+ * Delivers adapter callbacks to the mediation listeners on the main thread, shared by all AppLovin adapters.
+ * <p>
+ * Callbacks are pre-allocated {@link Event}s, so dispatching one does not allocate. Events dispatched from a background thread are queued in a single
+ * FIFO and drained by one main looper message per batch. An event that is already queued is not queued again, so redundant notifications coalesce.
+ * An event dispatched on the main thread with nothing queued runs right away; otherwise it is queued behind the pending ones, so listeners are
+ * always called on the main thread in dispatch order.
+ */
+public final class AppLovinMainThreadDispatcher
+{
+    private static final String TAG = "AppLovinDispatcher";
+
+    private static final Looper  MAIN_LOOPER  = Looper.getMainLooper();
+    private static final Handler MAIN_HANDLER = new Handler( MAIN_LOOPER );
+
+    private static final ArrayDeque<Event> QUEUE = new ArrayDeque<Event>( 16 ); // Guarded by itself
+
+    private static boolean drainScheduled; // Guarded by QUEUE
+
+    private static final Runnable DRAIN = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            while ( true )
+            {
+                final Event event;
+                synchronized ( QUEUE )
+                {
+                    event = QUEUE.poll();
+                    if ( event == null )
+                    {
+                        drainScheduled = false;
+                        return;
+                    }
+
+                    event.queued = false;
+                }
+
+                runSafely( event );
+            }
+        }
+    };
+
+    private AppLovinMainThreadDispatcher() {}
+
+    /**
+     * A reusable callback to be run on the main thread. Any arguments are kept in fields of the event, or of its owner, and read when it runs.
+     */
+    public abstract static class Event
+            implements Runnable
+    {
+        private boolean queued; // Guarded by QUEUE
+    }
+
+    /**
+     * Runs the event on the main thread, after any events dispatched before it. Does nothing if the event is already waiting to run.
+     */
+    public static void dispatch(final Event event)
+    {
+        final boolean runNow;
+        synchronized ( QUEUE )
+        {
+            runNow = Looper.myLooper() == MAIN_LOOPER && !drainScheduled;
+            if ( !runNow )
+            {
+                // Coalesce with the pending notification
+                if ( event.queued ) return;
+
+                event.queued = true;
+                QUEUE.offer( event );
+
+                if ( drainScheduled ) return;
+
+                drainScheduled = true;
+            }
+        }
+
+        if ( runNow )
+        {
+            runSafely( event );
+        }
+        else
+        {
+            MAIN_HANDLER.post( DRAIN );
+        }
+    }
+
+    /**
+     * Runs the given runnable on the main thread after the given delay, e.g. for timeouts.
+     */
+    public static void dispatchDelayed(final Runnable runnable, final long delayMillis)
+    {
+        MAIN_HANDLER.postDelayed( runnable, delayMillis );
+    }
+
+    /**
+     * Cancels a runnable passed to {@link #dispatchDelayed(Runnable, long)} that has not run yet.
+     */
+    public static void cancel(final Runnable runnable)
+    {
+        MAIN_HANDLER.removeCallbacks( runnable );
+    }
+
+    private static void runSafely(final Event event)
+    {
+        try
+        {
+            event.run();
+        }
+        catch ( Throwable th )
+        {
+            log( ERROR, "Unable to notify listener.", th );
+        }
+    }
+
+    private static void log(final int priority, final String message, final Throwable th)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, th );
+    }
+}
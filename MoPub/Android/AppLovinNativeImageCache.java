@@ -0,0 +1,713 @@
+package YOUR_PACKAGE_NAME;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.util.LruCache;
+
+import com.mopub.network.Networking;
+import com.mopub.volley.Cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static android.util.Log.DEBUG;
+import static android.util.Log.ERROR;
+
+/**
+ * Two-tier cache of native ad images, shared by all instances of the native custom event.
+ * <p>
+ * Decoded bitmaps are kept in an in-memory LRU bounded by their byte size. Below it, the downloaded image files are kept in an LRU directory in the
+ * app's cache directory, bounded by total file size and named by the SHA-1 digest of the image URL. Both tiers are checked before an image is
+ * downloaded, so creatives that are served repeatedly are only fetched once.
+ * <p>
+ * Loads run on a small background pool, and concurrent loads of the same URL share a single fetch. Listeners are notified on the main thread.
+ * <p>
+ * Images are decoded on the background pool, downsampled to the size they are displayed at, so the main thread only has to draw them. Decoding
+ * reuses the memory of bitmaps that have left the memory cache and are no longer held by any native ad, through `inBitmap`. Every bitmap handed
+ * to a listener is held on its behalf until it is passed back to {@link #releaseBitmap(Bitmap)}.
+ * <p>
+ * MoPub's stock renderers load images through MoPub's own image loader rather than this cache, so each image is also written to MoPub's disk
+ * cache, from the bytes this cache already holds. Those renderers then load it from disk instead of downloading it again.
+ */
+public final class AppLovinNativeImageCache
+{
+    private static final String TAG = "AppLovinNativeImageCache";
+
+    private static final int    MEMORY_CACHE_MAX_BYTES = 4 * 1024 * 1024;
+    private static final long   DISK_CACHE_MAX_BYTES   = 20 * 1024 * 1024;
+    private static final String DISK_CACHE_DIRECTORY   = "applovin_native_images";
+    private static final String TEMP_FILE_SUFFIX       = ".tmp";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis( 10 );
+    private static final int READ_TIMEOUT_MILLIS    = (int) TimeUnit.SECONDS.toMillis( 10 );
+    private static final int LOADER_THREAD_COUNT    = 2;
+
+    // How long images shared with MoPub's disk cache stay fresh there
+    private static final long MOPUB_CACHE_TTL_MILLIS = TimeUnit.DAYS.toMillis( 1 );
+
+    private static final int MAX_POOLED_BITMAPS = 4;
+    private static final int BYTES_PER_PIXEL    = 4; // ARGB_8888
+
+    private static final LruCache<String, Bitmap> MEMORY_CACHE = new LruCache<String, Bitmap>( MEMORY_CACHE_MAX_BYTES )
+    {
+        @Override
+        protected int sizeOf(final String key, final Bitmap bitmap)
+        {
+            return bitmap.getByteCount();
+        }
+
+        @Override
+        protected void entryRemoved(final boolean evicted, final String key, final Bitmap oldBitmap, final Bitmap newBitmap)
+        {
+            if ( oldBitmap == newBitmap ) return;
+
+            synchronized ( BITMAP_POOL )
+            {
+                CACHED_BITMAPS.remove( oldBitmap );
+                if ( !BITMAP_REFERENCES.containsKey( oldBitmap ) )
+                {
+                    offerToPool( oldBitmap );
+                }
+            }
+        }
+    };
+
+    // Bitmaps whose memory can be reused for decoding, as they are neither in the memory cache nor held by a native ad
+    private static final List<Bitmap>         BITMAP_POOL       = new ArrayList<Bitmap>( MAX_POOLED_BITMAPS ); // Guarded by itself
+    private static final Map<Bitmap, Boolean> CACHED_BITMAPS    = new IdentityHashMap<Bitmap, Boolean>(); // Guarded by BITMAP_POOL
+    private static final Map<Bitmap, Integer> BITMAP_REFERENCES = new IdentityHashMap<Bitmap, Integer>(); // Guarded by BITMAP_POOL
+
+    // File name -> file size of the disk cache, in access order
+    private static final LinkedHashMap<String, Long> DISK_INDEX = new LinkedHashMap<String, Long>( 16, 0.75f, true ); // Guarded by itself
+
+    private static File diskCacheDirectory; // Guarded by DISK_INDEX
+    private static long diskCacheBytes;     // Guarded by DISK_INDEX
+
+    // URLs of the images shared with MoPub's disk cache during this session
+    private static final Set<String> SHARED_URLS = new HashSet<String>(); // Guarded by itself
+
+    // Memory cache key -> listeners waiting on the load in flight for it
+    private static final Map<String, List<Listener>> PENDING_LOADS = new HashMap<String, List<Listener>>(); // Guarded by itself
+
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool( LOADER_THREAD_COUNT, new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            final Thread thread = new Thread( runnable, "AppLovinNativeImageLoader" );
+            thread.setDaemon( true );
+            return thread;
+        }
+    } );
+
+    private AppLovinNativeImageCache() {}
+
+    /**
+     * Notified on the main thread once an image is available, or could not be loaded.
+     */
+    interface Listener
+    {
+        void onImageLoaded(String url, Bitmap bitmap);
+
+        void onImageFailed(String url);
+    }
+
+    /**
+     * Loads the image at the given URL from memory, disk or the network, in that order, downsampled to at least the given target size.
+     * A target dimension of 0 leaves that dimension unconstrained.
+     */
+    static void loadImage(final Context context, final String url, final int targetWidth, final int targetHeight, final Listener listener)
+    {
+        final String key = ( targetWidth > 0 || targetHeight > 0 ) ? url + "#" + targetWidth + "x" + targetHeight : url;
+
+        final Bitmap cachedBitmap;
+        synchronized ( BITMAP_POOL )
+        {
+            cachedBitmap = MEMORY_CACHE.get( key );
+            if ( cachedBitmap != null ) acquireBitmap( cachedBitmap );
+        }
+
+        if ( cachedBitmap != null )
+        {
+            listener.onImageLoaded( url, cachedBitmap );
+            return;
+        }
+
+        synchronized ( PENDING_LOADS )
+        {
+            List<Listener> listeners = PENDING_LOADS.get( key );
+            if ( listeners != null )
+            {
+                // Join the load in flight for the same image
+                listeners.add( listener );
+                return;
+            }
+
+            listeners = new ArrayList<Listener>( 2 );
+            listeners.add( listener );
+            PENDING_LOADS.put( key, listeners );
+        }
+
+        final Context applicationContext = context.getApplicationContext();
+        LOADER.execute( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Bitmap bitmap = null;
+                try
+                {
+                    bitmap = loadBitmap( applicationContext, url, targetWidth, targetHeight );
+                }
+                catch ( Throwable th )
+                {
+                    log( ERROR, "Unable to load native ad image: {}", url, th );
+                }
+
+                notifyListeners( key, url, bitmap );
+            }
+        } );
+    }
+
+    /**
+     * Releases a bitmap handed to a listener, once it is no longer displayed. Its memory may then be reused for decoding other images.
+     */
+    static void releaseBitmap(final Bitmap bitmap)
+    {
+        synchronized ( BITMAP_POOL )
+        {
+            final Integer referenceCount = BITMAP_REFERENCES.get( bitmap );
+            if ( referenceCount == null ) return;
+
+            if ( referenceCount > 1 )
+            {
+                BITMAP_REFERENCES.put( bitmap, referenceCount - 1 );
+            }
+            else
+            {
+                BITMAP_REFERENCES.remove( bitmap );
+                if ( !CACHED_BITMAPS.containsKey( bitmap ) )
+                {
+                    offerToPool( bitmap );
+                }
+            }
+        }
+    }
+
+    //
+    // Loading
+    //
+
+    private static Bitmap loadBitmap(final Context context, final String url, final int targetWidth, final int targetHeight)
+    {
+        final String fileName = toFileName( url );
+
+        final File cachedFile = getDiskCacheFile( context, fileName );
+        if ( cachedFile != null )
+        {
+            final Bitmap bitmap = decode( null, cachedFile.getAbsolutePath(), targetWidth, targetHeight );
+            if ( bitmap != null )
+            {
+                log( DEBUG, "Loaded native ad image from disk: {}", url );
+                shareWithMoPub( context, url, null, cachedFile );
+                return bitmap;
+            }
+
+            // The file is corrupt, fetch the image again
+            removeFromDiskCache( fileName );
+        }
+
+        final byte[] bytes = download( url );
+        if ( bytes == null ) return null;
+
+        log( DEBUG, "Downloaded native ad image: {}", url );
+        putInDiskCache( context, fileName, bytes );
+        shareWithMoPub( context, url, bytes, null );
+
+        return decode( bytes, null, targetWidth, targetHeight );
+    }
+
+    /**
+     * Decodes the given bytes or file, downsampled to at least the target size and reusing a pooled bitmap's memory when one is large enough.
+     */
+    private static Bitmap decode(final byte[] bytes, final String filePath, final int targetWidth, final int targetHeight)
+    {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decode( bytes, filePath, options );
+
+        if ( options.outWidth <= 0 || options.outHeight <= 0 ) return null;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize( options.outWidth, options.outHeight, targetWidth, targetHeight );
+        options.inMutable = true;
+
+        // Bitmaps of a different size can only be reused as of KitKat
+        if ( Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT )
+        {
+            final int sampledWidth = ( options.outWidth + options.inSampleSize - 1 ) / options.inSampleSize;
+            final int sampledHeight = ( options.outHeight + options.inSampleSize - 1 ) / options.inSampleSize;
+            options.inBitmap = takeFromPool( sampledWidth * sampledHeight * BYTES_PER_PIXEL );
+        }
+
+        Bitmap bitmap;
+        try
+        {
+            bitmap = decode( bytes, filePath, options );
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            // The pooled bitmap could not be reused for this image
+            options.inBitmap = null;
+            bitmap = decode( bytes, filePath, options );
+        }
+
+        if ( bitmap != null )
+        {
+            // Upload to the GPU ahead of the first draw
+            bitmap.prepareToDraw();
+        }
+
+        return bitmap;
+    }
+
+    private static Bitmap decode(final byte[] bytes, final String filePath, final BitmapFactory.Options options)
+    {
+        return ( bytes != null ) ? BitmapFactory.decodeByteArray( bytes, 0, bytes.length, options ) : BitmapFactory.decodeFile( filePath, options );
+    }
+
+    /**
+     * Returns the largest power of two that keeps the image at or above the target size.
+     */
+    private static int calculateInSampleSize(final int width, final int height, final int targetWidth, final int targetHeight)
+    {
+        if ( targetWidth <= 0 && targetHeight <= 0 ) return 1;
+
+        int inSampleSize = 1;
+        while ( ( targetWidth <= 0 || width / ( inSampleSize * 2 ) >= targetWidth ) && ( targetHeight <= 0 || height / ( inSampleSize * 2 ) >= targetHeight ) )
+        {
+            inSampleSize *= 2;
+        }
+
+        return inSampleSize;
+    }
+
+    private static byte[] download(final String url)
+    {
+        HttpURLConnection connection = null;
+        InputStream inputStream = null;
+
+        try
+        {
+            connection = (HttpURLConnection) new URL( url ).openConnection();
+            connection.setConnectTimeout( CONNECT_TIMEOUT_MILLIS );
+            connection.setReadTimeout( READ_TIMEOUT_MILLIS );
+
+            final int responseCode = connection.getResponseCode();
+            if ( responseCode != HttpURLConnection.HTTP_OK )
+            {
+                log( ERROR, "Failed to download native ad image with response code {}: {}", responseCode, url );
+                return null;
+            }
+
+            inputStream = connection.getInputStream();
+            return readFully( inputStream, connection.getContentLength() );
+        }
+        catch ( IOException ex )
+        {
+            log( ERROR, "Failed to download native ad image: {}", url, ex );
+            return null;
+        }
+        finally
+        {
+            closeQuietly( inputStream );
+            if ( connection != null ) connection.disconnect();
+        }
+    }
+
+    private static byte[] readFully(final InputStream inputStream, final int expectedLength)
+            throws IOException
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream( Math.max( expectedLength, 8 * 1024 ) );
+        final byte[] buffer = new byte[8 * 1024];
+
+        int count;
+        while ( ( count = inputStream.read( buffer ) ) != -1 )
+        {
+            outputStream.write( buffer, 0, count );
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Writes an image to MoPub's disk cache, keyed by its URL as MoPub's image requests are, unless it was already shared this session or MoPub
+     * already has it. Either the image's bytes or the file holding them must be given.
+     */
+    private static void shareWithMoPub(final Context context, final String url, final byte[] bytes, final File file)
+    {
+        synchronized ( SHARED_URLS )
+        {
+            if ( !SHARED_URLS.add( url ) ) return;
+        }
+
+        InputStream inputStream = null;
+        try
+        {
+            final Cache moPubCache = Networking.getRequestQueue( context ).getCache();
+
+            final Cache.Entry cachedEntry = moPubCache.get( url );
+            if ( cachedEntry != null && !cachedEntry.isExpired() ) return;
+
+            final Cache.Entry entry = new Cache.Entry();
+            if ( bytes != null )
+            {
+                entry.data = bytes;
+            }
+            else
+            {
+                inputStream = new FileInputStream( file );
+                entry.data = readFully( inputStream, (int) file.length() );
+            }
+
+            entry.ttl = System.currentTimeMillis() + MOPUB_CACHE_TTL_MILLIS;
+            entry.softTtl = entry.ttl;
+            entry.responseHeaders = Collections.emptyMap();
+
+            moPubCache.put( url, entry );
+        }
+        catch ( Throwable th )
+        {
+            // MoPub's renderer then downloads the image itself
+            log( ERROR, "Unable to share native ad image with MoPub: {}", url, th );
+        }
+        finally
+        {
+            closeQuietly( inputStream );
+        }
+    }
+
+    private static void notifyListeners(final String key, final String url, final Bitmap bitmap)
+    {
+        final List<Listener> listeners;
+        synchronized ( PENDING_LOADS )
+        {
+            listeners = PENDING_LOADS.remove( key );
+        }
+
+        if ( bitmap != null )
+        {
+            synchronized ( BITMAP_POOL )
+            {
+                // Hold the bitmap for each listener before caching it, so it cannot be evicted into the pool before they get it
+                if ( listeners != null )
+                {
+                    for ( int i = 0; i < listeners.size(); i++ )
+                    {
+                        acquireBitmap( bitmap );
+                    }
+                }
+
+                CACHED_BITMAPS.put( bitmap, Boolean.TRUE );
+            }
+
+            MEMORY_CACHE.put( key, bitmap );
+        }
+
+        if ( listeners == null ) return;
+
+        AppLovinMainThreadDispatcher.dispatch( new AppLovinMainThreadDispatcher.Event()
+        {
+            @Override
+            public void run()
+            {
+                for ( final Listener listener : listeners )
+                {
+                    if ( bitmap != null )
+                    {
+                        listener.onImageLoaded( url, bitmap );
+                    }
+                    else
+                    {
+                        listener.onImageFailed( url );
+                    }
+                }
+            }
+        } );
+    }
+
+    //
+    // Bitmap Pool
+    //
+
+    /**
+     * Must be called while holding the pool's lock.
+     */
+    private static void acquireBitmap(final Bitmap bitmap)
+    {
+        final Integer referenceCount = BITMAP_REFERENCES.get( bitmap );
+        BITMAP_REFERENCES.put( bitmap, ( referenceCount != null ) ? referenceCount + 1 : 1 );
+    }
+
+    /**
+     * Must be called while holding the pool's lock.
+     */
+    private static void offerToPool(final Bitmap bitmap)
+    {
+        if ( bitmap.isMutable() && !bitmap.isRecycled() && BITMAP_POOL.size() < MAX_POOLED_BITMAPS )
+        {
+            BITMAP_POOL.add( bitmap );
+        }
+    }
+
+    private static Bitmap takeFromPool(final int byteCount)
+    {
+        synchronized ( BITMAP_POOL )
+        {
+            for ( int i = 0; i < BITMAP_POOL.size(); i++ )
+            {
+                final Bitmap bitmap = BITMAP_POOL.get( i );
+                if ( bitmap.getAllocationByteCount() >= byteCount && bitmap.getConfig() == Bitmap.Config.ARGB_8888 )
+                {
+                    return BITMAP_POOL.remove( i );
+                }
+            }
+        }
+
+        return null;
+    }
+
+    //
+    // Disk Cache
+    //
+
+    /**
+     * Returns the cached file with the given name, marking it as most recently used, or null if it is not cached.
+     */
+    private static File getDiskCacheFile(final Context context, final String fileName)
+    {
+        synchronized ( DISK_INDEX )
+        {
+            final File directory = getDiskCacheDirectory( context );
+            if ( directory == null || DISK_INDEX.get( fileName ) == null ) return null;
+
+            final File file = new File( directory, fileName );
+
+            // Persist the access order for the next app launch
+            file.setLastModified( System.currentTimeMillis() );
+
+            return file;
+        }
+    }
+
+    private static void putInDiskCache(final Context context, final String fileName, final byte[] bytes)
+    {
+        final File directory;
+        synchronized ( DISK_INDEX )
+        {
+            directory = getDiskCacheDirectory( context );
+        }
+
+        if ( directory == null ) return;
+
+        // Write to a temporary file first, so a partially written file is never picked up as a cached image
+        final File tempFile = new File( directory, fileName + TEMP_FILE_SUFFIX );
+        OutputStream outputStream = null;
+        try
+        {
+            outputStream = new FileOutputStream( tempFile );
+            outputStream.write( bytes );
+        }
+        catch ( IOException ex )
+        {
+            log( ERROR, "Unable to write native ad image to disk", ex );
+            closeQuietly( outputStream );
+            tempFile.delete();
+
+            return;
+        }
+
+        closeQuietly( outputStream );
+
+        synchronized ( DISK_INDEX )
+        {
+            if ( !tempFile.renameTo( new File( directory, fileName ) ) )
+            {
+                tempFile.delete();
+                return;
+            }
+
+            final Long previousSize = DISK_INDEX.put( fileName, (long) bytes.length );
+            diskCacheBytes += bytes.length - ( previousSize != null ? previousSize : 0 );
+
+            trimDiskCache();
+        }
+    }
+
+    private static void removeFromDiskCache(final String fileName)
+    {
+        synchronized ( DISK_INDEX )
+        {
+            final Long size = DISK_INDEX.remove( fileName );
+            if ( size != null )
+            {
+                diskCacheBytes -= size;
+                new File( diskCacheDirectory, fileName ).delete();
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the disk cache is within its size limit. Must be called while holding the index's lock.
+     */
+    private static void trimDiskCache()
+    {
+        final Iterator<Map.Entry<String, Long>> iterator = DISK_INDEX.entrySet().iterator();
+        while ( diskCacheBytes > DISK_CACHE_MAX_BYTES && iterator.hasNext() )
+        {
+            final Map.Entry<String, Long> entry = iterator.next();
+            iterator.remove();
+
+            diskCacheBytes -= entry.getValue();
+            new File( diskCacheDirectory, entry.getKey() ).delete();
+        }
+    }
+
+    /**
+     * Returns the disk cache directory, indexing the files left by previous app launches on first use. Must be called while holding the index's lock.
+     */
+    private static File getDiskCacheDirectory(final Context context)
+    {
+        if ( diskCacheDirectory != null ) return diskCacheDirectory;
+
+        final File directory = new File( context.getCacheDir(), DISK_CACHE_DIRECTORY );
+        if ( !directory.isDirectory() && !directory.mkdirs() )
+        {
+            log( ERROR, "Unable to create native ad image cache directory" );
+            return null;
+        }
+
+        final File[] files = directory.listFiles();
+        if ( files != null )
+        {
+            // Oldest first, so the index starts out in access order
+            Arrays.sort( files, new Comparator<File>()
+            {
+                @Override
+                public int compare(final File file1, final File file2)
+                {
+                    final long lastModified1 = file1.lastModified();
+                    final long lastModified2 = file2.lastModified();
+                    return ( lastModified1 < lastModified2 ) ? -1 : ( ( lastModified1 == lastModified2 ) ? 0 : 1 );
+                }
+            } );
+
+            for ( final File file : files )
+            {
+                if ( file.getName().endsWith( TEMP_FILE_SUFFIX ) )
+                {
+                    file.delete();
+                }
+                else
+                {
+                    DISK_INDEX.put( file.getName(), file.length() );
+                    diskCacheBytes += file.length();
+                }
+            }
+        }
+
+        diskCacheDirectory = directory;
+        trimDiskCache();
+
+        return diskCacheDirectory;
+    }
+
+    //
+    // Utility Methods
+    //
+
+    private static String toFileName(final String url)
+    {
+        try
+        {
+            final byte[] digest = MessageDigest.getInstance( "SHA-1" ).digest( url.getBytes( "UTF-8" ) );
+
+            final StringBuilder fileName = new StringBuilder( digest.length * 2 );
+            for ( final byte b : digest )
+            {
+                fileName.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) );
+                fileName.append( Character.forDigit( b & 0xF, 16 ) );
+            }
+
+            return fileName.toString();
+        }
+        catch ( NoSuchAlgorithmException | IOException ex )
+        {
+            return Integer.toHexString( url.hashCode() );
+        }
+    }
+
+    private static void closeQuietly(final Closeable closeable)
+    {
+        if ( closeable == null ) return;
+
+        try
+        {
+            closeable.close();
+        }
+        catch ( IOException ignored ) {}
+    }
+
+    private static void log(final int priority, final String message)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message );
+    }
+
+    private static void log(final int priority, final String message, final Throwable th)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, th );
+    }
+
+    private static void log(final int priority, final String message, final Object arg)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg );
+    }
+
+    private static void log(final int priority, final String message, final Object arg, final Throwable th)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg, th );
+    }
+
+    private static void log(final int priority, final String message, final Object arg1, final Object arg2)
+    {
+        AppLovinAdapterLogger.log( priority, TAG, message, arg1, arg2 );
+    }
+}
@@ -9,6 +9,7 @@
 
 LC_ALL=C sed -i '' 's/package YOUR_PACKAGE_NAME/package AdMob.Android/g' AdMob/Android/*.java
 LC_ALL=C sed -i '' 's/package com.applovin.mediation/package AdMob.Android/g' AdMob/Android/*.java
+LC_ALL=C sed -i '' 's/import com.applovin.mediation.AppLovin/import AdMob.Android.AppLovin/g' AdMob/Android/*.java
 LC_ALL=C sed -i '' 's/package YOUR_PACKAGE_NAME/package MoPub.Android/g' MoPub/Android/*.java
 
 exit 0
\ No newline at end of file